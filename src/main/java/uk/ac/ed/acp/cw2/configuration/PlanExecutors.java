@@ -0,0 +1,56 @@
+package uk.ac.ed.acp.cw2.configuration;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.ac.ed.acp.cw2.utility.ParallelPathSearch;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Bounded thread pools used by the planner, created from configuration and shut down with the
+// application context.
+//   - search helpers: threads lent to parallel A* (ParallelPathSearch). There is no queue, so a
+//     search that finds them busy runs on fewer threads, with the same result.
+//   - plan workers: shared by all requests for the parts of a plan that can run side by side
+//     (batch groups, days planned ahead). Work is handed over as SharedTask, so what the workers cannot take is run
+//     by the requesting thread itself.
+@Component
+public class PlanExecutors {
+
+    private final ThreadPoolExecutor searchHelpers;
+    private final ThreadPoolExecutor planWorkers;
+
+    public PlanExecutors(@Value("${ilp.plan.search-threads:3}") int searchThreads,
+                         @Value("${ilp.plan.workers:4}") int workers,
+                         @Value("${ilp.plan.queue:64}") int queueCapacity) {
+        this.searchHelpers = new ThreadPoolExecutor(0, Math.max(1, searchThreads), 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), r -> {
+                    Thread t = new Thread(r, "hda-worker");
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.planWorkers = new ThreadPoolExecutor(Math.max(1, workers), Math.max(1, workers), 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                    Thread t = new Thread(r, "plan-worker");
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.planWorkers.allowCoreThreadTimeOut(true);
+        ParallelPathSearch.useExecutor(searchHelpers);
+    }
+
+    public Executor planWorkers() {
+        return planWorkers;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ParallelPathSearch.useExecutor(null);
+        searchHelpers.shutdownNow();
+        planWorkers.shutdownNow();
+    }
+}
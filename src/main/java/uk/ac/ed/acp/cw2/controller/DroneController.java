@@ -1,15 +1,38 @@
 package uk.ac.ed.acp.cw2.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import uk.ac.ed.acp.cw2.data.*;
-import uk.ac.ed.acp.cw2.data.response.CalcDeliveryPathResponse;
-import uk.ac.ed.acp.cw2.data.response.GeoJsonResponseCollection;
+import uk.ac.ed.acp.cw2.data.response.BatchPlanResult;
+import uk.ac.ed.acp.cw2.data.response.DeliveryCostEstimateResponse;
+import uk.ac.ed.acp.cw2.data.response.PlanJobStatusResponse;
+import uk.ac.ed.acp.cw2.data.response.PlanSessionResponse;
 import uk.ac.ed.acp.cw2.external.DroneService;
+import uk.ac.ed.acp.cw2.service.PlanJobService;
+import uk.ac.ed.acp.cw2.service.PlanSessionService;
+import uk.ac.ed.acp.cw2.utility.AcceptNegotiation;
+import uk.ac.ed.acp.cw2.utility.CancellationToken;
+import uk.ac.ed.acp.cw2.utility.PlanAbortedException;
+import uk.ac.ed.acp.cw2.utility.PlanBinaryWriter;
+import uk.ac.ed.acp.cw2.utility.PlanJsonWriter;
+import uk.ac.ed.acp.cw2.utility.PlanStreamWriter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 /**
  * Controller providing endpoints for drone-related queries.
@@ -22,11 +45,22 @@ public class DroneController {
     private static final Logger logger = LoggerFactory.getLogger(GeometryController.class);
 
     private final DroneService droneService;
+    private final PlanJobService planJobService;
+    private final PlanSessionService planSessionService;
     private final String serviceUrl;
+    private final Duration planDeadline;
+    private final ObjectMapper objectMapper;
 
-    public DroneController(DroneService droneService, String ilpEndpoint) {
+    public DroneController(DroneService droneService, PlanJobService planJobService,
+                           PlanSessionService planSessionService, String ilpEndpoint,
+                           @Value("${ilp.plan.deadline:30s}") Duration planDeadline,
+                           ObjectMapper objectMapper) {
         this.droneService = droneService;
+        this.planJobService = planJobService;
+        this.planSessionService = planSessionService;
         this.serviceUrl = ilpEndpoint;
+        this.planDeadline = planDeadline;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -35,9 +69,8 @@ public class DroneController {
      * - Returns 200 OK with a JSON array of matching drone IDs.
      */
     @GetMapping("/dronesWithCooling/{state}")
-    public List<String> dronesWithCooling(@PathVariable Boolean state) {
-
-        return droneService.dronesWithCooling(state);
+    public ResponseEntity<byte[]> dronesWithCooling(@PathVariable Boolean state) {
+        return json(droneService.dronesWithCoolingJson(state));
     }
 
 
@@ -62,8 +95,8 @@ public class DroneController {
      * - Returns 200 OK with a JSON array of matching drone IDs.
      */
     @GetMapping("/queryAsPath/{attribute}/{value}")
-    public List<String> queryAsPath(@PathVariable String attribute, @PathVariable String value) {
-        return droneService.queryAsPath(attribute,value);
+    public ResponseEntity<byte[]> queryAsPath(@PathVariable String attribute, @PathVariable String value) {
+        return json(droneService.queryAsPathJson(attribute, value));
     }
 
     /**
@@ -72,8 +105,8 @@ public class DroneController {
      * - Returns 200 OK with a JSON array of matching drone IDs.
      */
     @PostMapping("/query")
-    public List<String> query(@RequestBody List<QueryCondition> conditions) {
-        return droneService.query(conditions);
+    public ResponseEntity<byte[]> query(@RequestBody List<QueryCondition> conditions) {
+        return json(droneService.queryJson(conditions));
     }
 
     /**
@@ -90,19 +123,334 @@ public class DroneController {
      * POST /api/v1/calcDeliveryPath
      * - 200 OK with a CalcDeliveryPathResponse JSON body describing all planned drone paths.
      * - Returns an empty plan (zero cost/moves) if no valid routes are possible.
+     * - Returns 503 if planning exceeds the configured deadline (ilp.plan.deadline).
+     * - With Accept: application/vnd.ilp.plan the plan is sent in the compact binary format
+     *   (see PlanBinaryWriter) instead of JSON.
+     * - With ?summary=true only the assignments, per-flight moves and costs and the totals are
+     *   returned (DeliveryPlanSummaryResponse, always JSON); no flight paths are built.
+     * The body is streamed from the planned flights rather than built as a response object.
      */
     @PostMapping("/calcDeliveryPath")
-    public CalcDeliveryPathResponse calcDeliveryPath(@RequestBody List<MedDispatchRec> dispatches){
-        return droneService.calcDeliveryPath(dispatches);
+    public WebAsyncTask<ResponseEntity<StreamingResponseBody>> calcDeliveryPath(
+            @RequestBody List<MedDispatchRec> dispatches,
+            @RequestParam(defaultValue = "false") boolean summary,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept){
+        CancellationToken token = CancellationToken.withTimeout(planDeadline);
+        boolean binary = PlanBinaryWriter.isPreferred(accept);
+        return cancellable(token, () -> {
+            if (summary) {
+                var plan = droneService.calcDeliveryPathSummary(dispatches, token);
+                return streamed(gen -> objectMapper.writeValue(gen, plan));
+            }
+            List<FlightBuilder> flights = droneService.planFlights(dispatches, token);
+            if (binary) return binaryPlan(flights);
+            return streamed(gen -> PlanJsonWriter.writeDeliveryPath(flights, gen));
+        });
     }
 
     /**
      * POST /api/v1/calcDeliveryPathAsGeoJson
      * - 200 OK with a GeoJsonResponse JSON body describing a single drone paths.
      * - Returns an empty plan (zero cost/moves) if no valid routes are possible.
+     * - Returns 503 if planning exceeds the configured deadline (ilp.plan.deadline).
+     * - Always GeoJSON: 406 Not Acceptable if the Accept header does not allow application/json
+     *   (use calcDeliveryPath for the binary plan format).
+     * - With ?tolerance=d (degrees, >= 0) each line is simplified: hovers and straight runs are
+     *   collapsed, then points within d of the line are dropped unless that would cut through a
+     *   restricted area. Each feature reports pointsRemoved. A negative tolerance gives 400.
+     * The body is streamed from the planned flights rather than built as a response object.
      */
     @PostMapping("/calcDeliveryPathAsGeoJson")
-    public GeoJsonResponseCollection calcDeliveryPathAsGeoJson(@RequestBody List<MedDispatchRec> dispatches){
-        return droneService.calcDeliveryPathAsGeoJson(dispatches);
+    public WebAsyncTask<ResponseEntity<StreamingResponseBody>> calcDeliveryPathAsGeoJson(
+            @RequestBody List<MedDispatchRec> dispatches,
+            @RequestParam(required = false) Double tolerance,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept){
+        CancellationToken token = CancellationToken.withTimeout(planDeadline);
+        boolean acceptable = AcceptNegotiation.accepts(accept, MediaType.APPLICATION_JSON);
+        return cancellable(token, () -> {
+            if (!acceptable) return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+            if (tolerance != null) {
+                if (!(tolerance >= 0)) return ResponseEntity.badRequest().build();
+                PlannedFlights plan = droneService.planFlightsWithAreas(dispatches, token);
+                return streamed(gen -> PlanJsonWriter.writeGeoJson(plan.flights(), tolerance,
+                        plan.restrictedPolys(), plan.boxes(), gen));
+            }
+            List<FlightBuilder> flights = droneService.planFlights(dispatches, token);
+            return streamed(gen -> PlanJsonWriter.writeGeoJson(flights, gen));
+        });
+    }
+
+    /**
+     * POST /api/v1/calcDeliveryPath/stream
+     * Sends the plan while it is being planned: each flight as soon as it is closed, then a
+     * summary frame with the totals (see PlanStreamWriter for the frames).
+     * - 200 OK with application/x-ndjson, or text/event-stream if the Accept header prefers it.
+     * - The summary's status is ok, empty if no plan is possible (flights sent before are void),
+     *   or aborted once the configured deadline (ilp.plan.deadline) passes.
+     * Frames are written as planning goes, so a slow reader slows planning down.
+     */
+    @PostMapping("/calcDeliveryPath/stream")
+    public ResponseEntity<StreamingResponseBody> calcDeliveryPathStream(
+            @RequestBody List<MedDispatchRec> dispatches,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean eventStream = PlanStreamWriter.prefersEventStream(accept);
+        StreamingResponseBody body = out -> {
+            CancellationToken token = CancellationToken.withTimeout(planDeadline);
+            PlanStreamWriter writer = new PlanStreamWriter(out, objectMapper.getFactory(), eventStream);
+            try {
+                writer.finish(droneService.streamFlights(dispatches, token, writer));
+            } catch (PlanAbortedException e) {
+                logger.warn(e.getMessage());
+                writer.aborted(e.getReason());
+            } catch (UncheckedIOException e) {
+                // The client went away while a flight was written; planning has stopped
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(eventStream ? MediaType.TEXT_EVENT_STREAM : MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * POST /api/v1/calcDeliveryPath/batch
+     * Plans many independent dispatch lists at once, against one fetch of the ILP data.
+     * - 200 OK with one BatchPlanResult per group, in request order: status ok with the
+     *   CalcDeliveryPathResponse, or error / aborted (deadline) with a message for that group only.
+     * - The whole batch shares the configured deadline (ilp.plan.deadline).
+     */
+    @PostMapping("/calcDeliveryPath/batch")
+    public WebAsyncTask<List<BatchPlanResult>> calcDeliveryPathBatch(
+            @RequestBody List<List<MedDispatchRec>> groups) {
+        CancellationToken token = CancellationToken.withTimeout(planDeadline);
+        return cancellable(token, () -> droneService.calcDeliveryPathBatch(groups, token));
+    }
+
+    /**
+     * POST /api/v1/calcDeliveryPath/jobs
+     * Starts planning a dispatch list in the background, for plans that take longer than a request.
+     * - 202 Accepted with the job's PlanJobStatusResponse and its Location.
+     * - Returns 503 if too many jobs are already waiting (ilp.jobs.queue).
+     * Jobs have their own deadline (ilp.jobs.deadline) and are kept for ilp.jobs.ttl once finished.
+     */
+    @PostMapping("/calcDeliveryPath/jobs")
+    public ResponseEntity<PlanJobStatusResponse> submitPlanJob(@RequestBody List<MedDispatchRec> dispatches) {
+        PlanJobStatusResponse job = planJobService.submit(dispatches);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/calcDeliveryPath/jobs/" + job.getJobId()))
+                .body(job);
+    }
+
+    /**
+     * GET /api/v1/calcDeliveryPath/jobs/{id}
+     * - 200 OK with the job's status and progress (records assigned / total).
+     * - Returns 404 Not Found if the job is unknown or has expired.
+     */
+    @GetMapping("/calcDeliveryPath/jobs/{id}")
+    public ResponseEntity<PlanJobStatusResponse> planJobStatus(@PathVariable String id) {
+        PlanJobStatusResponse job = planJobService.status(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job);
+    }
+
+    /**
+     * GET /api/v1/calcDeliveryPath/jobs/{id}/result
+     * - 200 OK with the CalcDeliveryPathResponse once the job is done (binary format with
+     *   Accept: application/vnd.ilp.plan, as for /calcDeliveryPath).
+     * - Returns 409 Conflict with the job's status while it is still running, or if it was
+     *   aborted or failed.
+     * - Returns 404 Not Found if the job is unknown or has expired.
+     */
+    @GetMapping("/calcDeliveryPath/jobs/{id}/result")
+    public ResponseEntity<?> planJobResult(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        List<FlightBuilder> flights = planJobService.result(id);
+        if (flights != null) {
+            if (PlanBinaryWriter.isPreferred(accept)) return binaryPlan(flights);
+            return streamed(gen -> PlanJsonWriter.writeDeliveryPath(flights, gen));
+        }
+        PlanJobStatusResponse job = planJobService.status(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(job);
+    }
+
+    /**
+     * POST /api/v1/planSessions
+     * Opens a plan session: a dispatch list kept on the server with its plan, so records can be
+     * added and cancelled without planning the whole list again. The body (optional) holds the
+     * first records.
+     * - 201 Created with the session's PlanSessionResponse and its Location.
+     * - Returns 400 if the records are invalid, 409 if too many sessions are open (ilp.sessions.max).
+     * Sessions unused for ilp.sessions.idle-timeout are closed.
+     */
+    @PostMapping("/planSessions")
+    public ResponseEntity<PlanSessionResponse> openPlanSession(
+            @RequestBody(required = false) List<MedDispatchRec> dispatches) {
+        PlanSessionResponse session;
+        try {
+            session = planSessionService.open(dispatches);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.created(URI.create("/api/v1/planSessions/" + session.getSessionId()))
+                .body(session);
+    }
+
+    /**
+     * GET /api/v1/planSessions/{id}
+     * - 200 OK with the session's PlanSessionResponse; 404 Not Found if unknown or expired.
+     */
+    @GetMapping("/planSessions/{id}")
+    public ResponseEntity<PlanSessionResponse> planSession(@PathVariable String id) {
+        PlanSessionResponse session = planSessionService.status(id);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(session);
+    }
+
+    /**
+     * POST /api/v1/planSessions/{id}/dispatches
+     * Adds records to a session; only the days they fall on are planned again.
+     * - 200 OK with the updated PlanSessionResponse; 404 Not Found if the session is unknown.
+     * - Returns 400 if the records are invalid, 409 if an id is already in the session or the
+     *   session would exceed ilp.sessions.max-dispatches. The session is then unchanged.
+     * - Returns 503 if planning exceeds the configured deadline (ilp.plan.deadline).
+     */
+    @PostMapping("/planSessions/{id}/dispatches")
+    public ResponseEntity<PlanSessionResponse> addSessionDispatches(
+            @PathVariable String id, @RequestBody List<MedDispatchRec> dispatches) {
+        PlanSessionResponse session;
+        try {
+            session = planSessionService.add(id, dispatches == null ? List.of() : dispatches);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(session);
+    }
+
+    /**
+     * DELETE /api/v1/planSessions/{id}/dispatches/{dispatchId}
+     * Cancels one record; only its day is planned again.
+     * - 200 OK with the updated PlanSessionResponse.
+     * - Returns 404 Not Found if the session or the record is unknown.
+     */
+    @DeleteMapping("/planSessions/{id}/dispatches/{dispatchId}")
+    public ResponseEntity<PlanSessionResponse> cancelSessionDispatch(
+            @PathVariable String id, @PathVariable int dispatchId) {
+        PlanSessionResponse session = planSessionService.cancel(id, dispatchId);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(session);
+    }
+
+    /**
+     * GET /api/v1/planSessions/{id}/plan
+     * - 200 OK with the session's current CalcDeliveryPathResponse, flights in day order (binary
+     *   format with Accept: application/vnd.ilp.plan). The empty plan if the records cannot all
+     *   be assigned, as calcDeliveryPath would return.
+     * - Returns 404 Not Found if the session is unknown or expired.
+     */
+    @GetMapping("/planSessions/{id}/plan")
+    public ResponseEntity<StreamingResponseBody> planSessionPlan(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        List<FlightBuilder> flights = planSessionService.plan(id);
+        if (flights == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (PlanBinaryWriter.isPreferred(accept)) return binaryPlan(flights);
+        return streamed(gen -> PlanJsonWriter.writeDeliveryPath(flights, gen));
+    }
+
+    /**
+     * DELETE /api/v1/planSessions/{id}
+     * - 204 No Content once closed; 404 Not Found if unknown or expired.
+     */
+    @DeleteMapping("/planSessions/{id}")
+    public ResponseEntity<Void> closePlanSession(@PathVariable String id) {
+        if (!planSessionService.close(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * POST /api/v1/estimateDeliveryCost
+     * Quick estimate for each dispatch flown on its own, without planning:
+     * - 200 OK with a DeliveryCostEstimateResponse: feasibility (or the reason it is not),
+     *   candidate drone and service point, lower bounds and estimates of moves and cost.
+     * - errorBounds in the response states how far the estimates may be from a planned flight.
+     * - Returns 503 if estimating exceeds the configured deadline (ilp.plan.deadline).
+     */
+    @PostMapping("/estimateDeliveryCost")
+    public DeliveryCostEstimateResponse estimateDeliveryCost(@RequestBody List<MedDispatchRec> dispatches) {
+        return droneService.estimateDeliveryCost(dispatches, CancellationToken.withTimeout(planDeadline));
+    }
+
+    // Writes one JSON document to a generator
+    private interface JsonBody {
+        void writeTo(JsonGenerator gen) throws IOException;
+    }
+
+    // 200 response whose JSON body is written straight to the response stream
+    private ResponseEntity<StreamingResponseBody> streamed(JsonBody json) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+                gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                json.writeTo(gen);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // Body already serialised by the service (cached query answers)
+    private static ResponseEntity<byte[]> json(byte[] body) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // 200 response carrying the plan in the compact binary format
+    private ResponseEntity<StreamingResponseBody> binaryPlan(List<FlightBuilder> flights) {
+        StreamingResponseBody body = out -> PlanBinaryWriter.write(flights, out);
+        return ResponseEntity.ok().contentType(PlanBinaryWriter.MEDIA_TYPE).body(body);
+    }
+
+    // Planning aborted by its deadline or a client disconnect
+    @ExceptionHandler(PlanAbortedException.class)
+    public ResponseEntity<Void> planAborted(PlanAbortedException e) {
+        logger.warn(e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
+    // Run planning off the request thread; an async timeout or error
+    // (e.g. the client disconnecting) cancels the token so the search stops.
+    private <T> WebAsyncTask<T> cancellable(CancellationToken token, Callable<T> work) {
+        // Small grace period so the planner normally reports the deadline itself
+        WebAsyncTask<T> task = new WebAsyncTask<>(planDeadline.toMillis() + 1000, work);
+        task.onTimeout(() -> {
+            token.cancel(CancellationToken.REASON_DEADLINE);
+            throw new PlanAbortedException(CancellationToken.REASON_DEADLINE);
+        });
+        task.onError(() -> {
+            token.cancel(CancellationToken.REASON_DISCONNECT);
+            throw new PlanAbortedException(CancellationToken.REASON_DISCONNECT);
+        });
+        return task;
     }
 }
@@ -1,10 +1,13 @@
 package uk.ac.ed.acp.cw2.data;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import uk.ac.ed.acp.cw2.utility.AvailabilityCalendar;
 
 import java.util.List;
 
@@ -23,6 +26,26 @@ public class DroneForServicePoint {
     public static class Item {
         private String id; // droneId
         private List<Availability> availability;
+        // Parsed form of availability, built on first use
+        @JsonIgnore
+        @Getter(AccessLevel.NONE)
+        @Setter(AccessLevel.NONE)
+        private volatile AvailabilityCalendar calendar;
+
+        public void setAvailability(List<Availability> availability) {
+            this.availability = availability;
+            this.calendar = null;
+        }
+
+        // Availability windows compiled once; the raw list is not expected to change in place
+        public AvailabilityCalendar getCalendar() {
+            AvailabilityCalendar c = calendar;
+            if (c == null) {
+                c = AvailabilityCalendar.compile(availability);
+                calendar = c;
+            }
+            return c;
+        }
     }
 
     // Represents a drone's availability time slot.
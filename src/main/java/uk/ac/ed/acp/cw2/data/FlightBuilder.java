@@ -2,7 +2,7 @@ package uk.ac.ed.acp.cw2.data;
 
 import lombok.Getter;
 import lombok.Setter;
-import uk.ac.ed.acp.cw2.data.response.CalcDeliveryPathResponse;
+import uk.ac.ed.acp.cw2.utility.CompactPath;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
@@ -34,8 +34,24 @@ public class FlightBuilder {
     int deliveryCount = 0;
     List<Double> existingMaxCosts = new ArrayList<>();
 
-    // Ordered list of path segments representing each delivery
-    List<CalcDeliveryPathResponse.DeliverySegment> segments = new ArrayList<>();
+    // Ordered list of path segments representing each delivery (then the return)
+    List<Segment> segments = new ArrayList<>();
+    // False when only steps and costs are wanted (summary plans); segments then carry no path
+    boolean keepPaths = true;
+
+    // One delivery (or the return, with a null id) and its path in compact form;
+    // coordinates are only expanded when the response is written. The path is null
+    // when the flight does not keep paths.
+    @Getter
+    public static class Segment {
+        final Integer deliveryId;
+        final CompactPath path;
+
+        public Segment(Integer deliveryId, CompactPath path) {
+            this.deliveryId = deliveryId;
+            this.path = path;
+        }
+    }
 
     // Construct a new builder for a drone’s initial flight plan.
     public FlightBuilder(String droneId, ServicePoint sp, double capacity, int maxMoves,
@@ -63,10 +79,7 @@ public class FlightBuilder {
     // Updates step count, position, capacity, and requirement flags.
     public void addSegment(int deliveryId, List<Coordinate> path, int steps, double addedLoad, Double maxCost,
                     boolean markCooling, boolean markHeating) {
-        var seg = new CalcDeliveryPathResponse.DeliverySegment();
-        seg.setDeliveryId(deliveryId);
-        seg.setFlightPath(path);
-        segments.add(seg);
+        segments.add(new Segment(deliveryId, keepPaths ? CompactPath.of(path) : null));
 
         this.stepsUsed += steps;
         this.end = path.getLast();
@@ -82,14 +95,29 @@ public class FlightBuilder {
     // the drone’s journey back to the service point.
     public void addReturn(List<Coordinate> back, int steps) {
         if (!segments.isEmpty()) {
-            var seg = new CalcDeliveryPathResponse.DeliverySegment();
-            seg.setDeliveryId(null);
-            seg.setFlightPath(back);
-            segments.add(seg);
+            segments.add(new Segment(null, CompactPath.of(back)));
             // var lastPath = segments.getLast().getFlightPath();
             // for (int i = 1; i < back.size(); i++) lastPath.add(back.get(i));
         }
         this.stepsUsed += steps;
         this.end = back.getLast();
     }
+
+    // Same as above for a path already in compact form (e.g. the outbound path reversed)
+    public void addReturn(CompactPath back, Coordinate backEnd, int steps) {
+        if (!segments.isEmpty())
+            segments.add(new Segment(null, back));
+        this.stepsUsed += steps;
+        this.end = backEnd;
+    }
+
+    // Cost of the flight so far: fixed costs plus the moves used
+    public double getCost() {
+        return costInitial + costFinal + stepsUsed * costPerMove;
+    }
+
+    // Return known only by its step count (flights that do not keep paths)
+    public void addReturn(Coordinate backEnd, int steps) {
+        addReturn((CompactPath) null, backEnd, steps);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package uk.ac.ed.acp.cw2.data;
+
+import java.util.List;
+
+// Finished flights of a plan together with the restricted geometry they were planned around
+// (what GeoJSON simplification needs to keep its shortcuts clear of restricted areas)
+public record PlannedFlights(List<FlightBuilder> flights,
+                             List<List<Coordinate>> restrictedPolys, List<BoundBox> boxes) {
+}
@@ -0,0 +1,22 @@
+package uk.ac.ed.acp.cw2.data.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Result of one dispatch group in /calcDeliveryPath/batch, in the order the groups were sent.
+@Getter
+@Setter
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BatchPlanResult {
+    public static final String OK = "ok";
+    public static final String ABORTED = "aborted";   // the batch deadline passed first
+    public static final String ERROR = "error";       // planning this group failed
+
+    private int index;
+    private String status;
+    private CalcDeliveryPathResponse plan;   // null unless status is ok
+    private String error;                    // null if status is ok
+}
@@ -0,0 +1,36 @@
+package uk.ac.ed.acp.cw2.data.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+// Response model for the /estimateDeliveryCost endpoint.
+@Getter
+@Setter
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class DeliveryCostEstimateResponse {
+    private List<DispatchEstimate> estimates;
+    // How far estimates may be from the planned flight (see DeliveryCostEstimator)
+    private String errorBounds;
+
+    //Estimate for one dispatch, flown alone from the nearest service point with a suitable drone.
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class DispatchEstimate {
+        private Integer deliveryId;
+        private boolean feasible;
+        private String reason;            // why it is not feasible, null otherwise
+        private String droneId;
+        private Integer servicePointId;
+        private Integer movesLowerBound;  // whole flight: out, hover, back
+        private Integer estimatedMoves;
+        private Double costLowerBound;
+        private Double estimatedCost;
+    }
+}
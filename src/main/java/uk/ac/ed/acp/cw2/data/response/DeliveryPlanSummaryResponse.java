@@ -0,0 +1,32 @@
+package uk.ac.ed.acp.cw2.data.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+// Response model for /calcDeliveryPath?summary=true: the plan without flight paths.
+@Getter
+@Setter
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class DeliveryPlanSummaryResponse {
+    private double totalCost;
+    private int totalMoves;
+    private List<FlightSummary> flights;
+
+    //Assignment, length and cost of a single flight.
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class FlightSummary {
+        private String droneId;
+        private Integer servicePointId;
+        private List<Integer> deliveryIds;
+        private int moves;
+        private double cost;
+    }
+}
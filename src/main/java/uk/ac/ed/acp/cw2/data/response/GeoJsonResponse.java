@@ -21,6 +21,9 @@ public class GeoJsonResponse {
     @NoArgsConstructor
     public static class Properties {
         private String droneId;
+        // Points dropped by simplification; only present when it was requested
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private Integer pointsRemoved;
     }
 
     @Getter
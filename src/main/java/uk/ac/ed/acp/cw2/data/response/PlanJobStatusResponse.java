@@ -0,0 +1,27 @@
+package uk.ac.ed.acp.cw2.data.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// State of an asynchronous /calcDeliveryPath/jobs planning job.
+@Getter
+@Setter
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PlanJobStatusResponse {
+    public static final String QUEUED = "queued";
+    public static final String RUNNING = "running";
+    public static final String DONE = "done";         // result can be fetched
+    public static final String ABORTED = "aborted";   // the job deadline passed first
+    public static final String FAILED = "failed";
+
+    private String jobId;
+    private String status;
+    private int assigned;     // dispatch records assigned to a flight so far
+    private int total;        // dispatch records submitted
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String error;     // set when aborted or failed
+}
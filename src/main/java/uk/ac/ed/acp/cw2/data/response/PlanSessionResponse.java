@@ -0,0 +1,21 @@
+package uk.ac.ed.acp.cw2.data.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// State of a /planSessions plan session after the last change.
+@Getter
+@Setter
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PlanSessionResponse {
+    private String sessionId;
+    private int dispatches;      // dispatch records in the session
+    private int replanned;       // records planned again by the last change
+    private boolean planned;     // false if the records cannot all be assigned (empty plan)
+    private int flights;
+    private double totalCost;
+    private int totalMoves;
+}
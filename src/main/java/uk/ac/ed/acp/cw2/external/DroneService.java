@@ -1,7 +1,13 @@
 package uk.ac.ed.acp.cw2.external;
 import uk.ac.ed.acp.cw2.data.*;
+import uk.ac.ed.acp.cw2.data.response.BatchPlanResult;
 import uk.ac.ed.acp.cw2.data.response.CalcDeliveryPathResponse;
+import uk.ac.ed.acp.cw2.data.response.DeliveryCostEstimateResponse;
+import uk.ac.ed.acp.cw2.data.response.DeliveryPlanSummaryResponse;
 import uk.ac.ed.acp.cw2.data.response.GeoJsonResponseCollection;
+import uk.ac.ed.acp.cw2.utility.CancellationToken;
+import uk.ac.ed.acp.cw2.utility.FlightListener;
+import uk.ac.ed.acp.cw2.utility.PlanProgress;
 
 import java.util.List;
 
@@ -10,7 +16,22 @@ public interface DroneService {
     Drone droneDetails(String id);
     List<String> queryAsPath(String attribute, String value);
     List<String> query(List<QueryCondition> conditions);
+    // The same answers as JSON arrays, cached per drone snapshot
+    byte[] dronesWithCoolingJson(Boolean state);
+    byte[] queryAsPathJson(String attribute, String value);
+    byte[] queryJson(List<QueryCondition> conditions);
     List<String> queryAvailableDrones(List<MedDispatchRec> dispatches);
     CalcDeliveryPathResponse calcDeliveryPath(List<MedDispatchRec> dispatches);
+    CalcDeliveryPathResponse calcDeliveryPath(List<MedDispatchRec> dispatches, CancellationToken token);
+    List<FlightBuilder> planFlights(List<MedDispatchRec> dispatches, CancellationToken token);
+    List<FlightBuilder> planFlights(List<MedDispatchRec> dispatches, CancellationToken token,
+                                    PlanProgress progress);
+    List<FlightBuilder> planFlights(List<MedDispatchRec> dispatches, IlpSnapshot ilp, CancellationToken token);
+    PlannedFlights planFlightsWithAreas(List<MedDispatchRec> dispatches, CancellationToken token);
+    boolean streamFlights(List<MedDispatchRec> dispatches, CancellationToken token, FlightListener listener);
+    DeliveryPlanSummaryResponse calcDeliveryPathSummary(List<MedDispatchRec> dispatches, CancellationToken token);
+    List<BatchPlanResult> calcDeliveryPathBatch(List<List<MedDispatchRec>> groups, CancellationToken token);
+    DeliveryCostEstimateResponse estimateDeliveryCost(List<MedDispatchRec> dispatches, CancellationToken token);
     GeoJsonResponseCollection calcDeliveryPathAsGeoJson(List<MedDispatchRec> dispatches);
+    GeoJsonResponseCollection calcDeliveryPathAsGeoJson(List<MedDispatchRec> dispatches, CancellationToken token);
 }
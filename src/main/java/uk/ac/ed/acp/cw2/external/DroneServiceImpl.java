@@ -1,36 +1,71 @@
 package uk.ac.ed.acp.cw2.external;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import uk.ac.ed.acp.cw2.configuration.PlanExecutors;
 import uk.ac.ed.acp.cw2.data.*;
 import uk.ac.ed.acp.cw2.data.DroneForServicePoint;
+import uk.ac.ed.acp.cw2.data.response.BatchPlanResult;
 import uk.ac.ed.acp.cw2.data.response.CalcDeliveryPathResponse;
+import uk.ac.ed.acp.cw2.data.response.DeliveryCostEstimateResponse;
+import uk.ac.ed.acp.cw2.data.response.DeliveryPlanSummaryResponse;
 import uk.ac.ed.acp.cw2.data.response.GeoJsonResponseCollection;
-import uk.ac.ed.acp.cw2.utility.DeliveryPlanHelper;
-import uk.ac.ed.acp.cw2.utility.DeliveryPlanner;
-import uk.ac.ed.acp.cw2.utility.QueryDroneHelper;
+import uk.ac.ed.acp.cw2.utility.*;
 
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Service
 public class DroneServiceImpl implements DroneService {
+    private static final Logger logger = LoggerFactory.getLogger(DroneServiceImpl.class);
+
     private final IlpClientComponent ilpClient;
+    // Shared plan workers (PlanExecutors); null runs everything on the requesting thread
+    private final Executor planWorkers;
+    // Plan later days' dated records ahead on the plan workers (see DaySpeculation)
+    private final boolean parallelDays;
+    // Group dispatches by area and merge into the nearest flights first (see DispatchClusters)
+    private final boolean clustered;
 
     public DroneServiceImpl(IlpClientComponent ilpClient) {
+        this(ilpClient, true);
+    }
+
+    public DroneServiceImpl(IlpClientComponent ilpClient, boolean parallelDays) {
+        this(ilpClient, parallelDays, false);
+    }
+
+    public DroneServiceImpl(IlpClientComponent ilpClient, boolean parallelDays, boolean clustered) {
+        this(ilpClient, (Executor) null, parallelDays, clustered);
+    }
+
+    @Autowired
+    public DroneServiceImpl(IlpClientComponent ilpClient, PlanExecutors executors,
+                            @Value("${ilp.plan.parallel-days:true}") boolean parallelDays,
+                            @Value("${ilp.plan.cluster:false}") boolean clustered) {
+        this(ilpClient, executors.planWorkers(), parallelDays, clustered);
+    }
+
+    public DroneServiceImpl(IlpClientComponent ilpClient, Executor planWorkers,
+                            boolean parallelDays, boolean clustered) {
         this.ilpClient = ilpClient;
+        this.planWorkers = planWorkers;
+        this.parallelDays = parallelDays;
+        this.clustered = clustered;
     }
 
     // Returns drone IDs filtered by cooling capability.
     @Override
     public List<String> dronesWithCooling(Boolean state){
-        List<Drone> drones = ilpClient.getAllDrones();
-        return drones.stream()
-                .filter(d -> d.getCapability().isCooling() == state)
-                .map(Drone::getId)
-                .toList();
+        return query(coolingCondition(state));
     }
 
     // Returns the drone matching the given ID or null if not found
@@ -46,21 +81,48 @@ public class DroneServiceImpl implements DroneService {
     // Returns IDs of drones whose given attribute matches the specified value
     @Override
     public List<String> queryAsPath(String attribute, String value){
-        List<Drone> drones = ilpClient.getAllDrones();
-        return drones.stream()
-                .filter(d -> QueryDroneHelper.matches(d, attribute, value))
-                .map(Drone::getId)
-                .toList();
+        return query(List.of(condition(attribute, "=", value)));
     }
 
     // Returns IDs of drones whose attributes' value matches the given query conditions
     @Override
     public List<String> query(List<QueryCondition> conditions){
-        List<Drone> drones = ilpClient.getAllDrones();
-        return drones.stream()
-                .filter(d -> QueryDroneHelper.matchesConditions(d, conditions))
-                .map(Drone::getId)
-                .toList();
+        CompiledQuery compiled = CompiledQuery.compile(conditions);
+        if (compiled.isUnsatisfiable()) return List.of();
+        return compiled.matchingIds(DroneColumnIndex.of(ilpClient.getAllDrones()));
+    }
+
+    @Override
+    public byte[] dronesWithCoolingJson(Boolean state) {
+        return queryJson(coolingCondition(state));
+    }
+
+    @Override
+    public byte[] queryAsPathJson(String attribute, String value) {
+        return queryJson(List.of(condition(attribute, "=", value)));
+    }
+
+    // Serialised ids, shared between requests with the same compiled query on the same snapshot
+    @Override
+    public byte[] queryJson(List<QueryCondition> conditions) {
+        CompiledQuery compiled = CompiledQuery.compile(conditions);
+        if (compiled.isUnsatisfiable()) return QueryResultCache.idsJson(List.of());
+        DroneColumnIndex index = DroneColumnIndex.of(ilpClient.getAllDrones());
+        return QueryResultCache.get(index.version(), compiled.key(),
+                () -> QueryResultCache.idsJson(compiled.matchingIds(index)));
+    }
+
+    // dronesWithCooling is the query cooling = state
+    private static List<QueryCondition> coolingCondition(Boolean state) {
+        return List.of(condition("cooling", "=", String.valueOf(state)));
+    }
+
+    private static QueryCondition condition(String attribute, String operator, String value) {
+        QueryCondition c = new QueryCondition();
+        c.setAttribute(attribute);
+        c.setOperator(operator);
+        c.setValue(value);
+        return c;
     }
 
     // Returns IDs of drones that are available for a list of medicine dispatch record
@@ -72,45 +134,163 @@ public class DroneServiceImpl implements DroneService {
             if (rec.getRequirements().isCooling() && rec.getRequirements().isHeating())
                 return List.of();
         }
-        int n = dispatches.size();
         List<Drone> drones = ilpClient.getAllDrones();
         List<DroneForServicePoint> dfsp = ilpClient.getDronesForServicePoints();
         List<ServicePoint> servicePoints = ilpClient.getServicePoints();
 
-        Map<String, List<DroneForServicePoint.Availability>> availability
-                = QueryDroneHelper.buildAvailabilityIndex(dfsp);
-        Map<String, List<ServicePoint>> homePoints = QueryDroneHelper.buildHomePointIndex(dfsp, servicePoints);
-
-        return drones.stream()
-                .filter(d -> QueryDroneHelper.canHandleAll(d,
-                        availability.getOrDefault(d.getId(), Collections.emptyList()),
-                        homePoints.getOrDefault(d.getId(), Collections.emptyList())
-                        ,dispatches, n))
-                .map(Drone::getId)
-                .sorted()
-                .toList();
+        // Requirements intersected as bitsets; the max-cost estimate only runs on the drones left
+        return FleetIndex.build(drones, dfsp, servicePoints).availableFor(dispatches);
     }
 
 
     @Override
     public CalcDeliveryPathResponse calcDeliveryPath(List<MedDispatchRec> recs) {
+        return calcDeliveryPath(recs, CancellationToken.none());
+    }
+
+    @Override
+    public CalcDeliveryPathResponse calcDeliveryPath(List<MedDispatchRec> recs, CancellationToken token) {
+        return DeliveryPlanHelper.buildDeliveryResponse(planFlights(recs, token));
+    }
+
+    // Plans the deliveries, aborting with PlanAbortedException once the token
+    // expires or is cancelled. Aborted requests are counted in the plan metrics.
+    // An empty list stands for the empty plan.
+    @Override
+    public List<FlightBuilder> planFlights(List<MedDispatchRec> recs, CancellationToken token) {
+        return plan(recs, true, token, PlanProgress.NONE, null).flights();
+    }
+
+    // Same, reporting the records assigned to a flight as planning goes
+    @Override
+    public List<FlightBuilder> planFlights(List<MedDispatchRec> recs, CancellationToken token,
+                                           PlanProgress progress) {
+        return plan(recs, true, token, progress, null).flights();
+    }
+
+    // Plans the deliveries against ILP data fetched earlier; an empty list is the empty plan
+    @Override
+    public List<FlightBuilder> planFlights(List<MedDispatchRec> recs, IlpSnapshot ilp, CancellationToken token) {
+        if (!DeliveryPlanHelper.isValidDispatchList(recs)) return List.of();
+        return plan(recs, ilp, true, token, PlanProgress.NONE, null).flights();
+    }
+
+    // Plans the deliveries and keeps the restricted geometry of the snapshot they were planned
+    // against, e.g. for simplifying the drawn lines
+    @Override
+    public PlannedFlights planFlightsWithAreas(List<MedDispatchRec> recs, CancellationToken token) {
+        Plan plan = plan(recs, true, token, PlanProgress.NONE, null);
+        return new PlannedFlights(plan.flights(), plan.restrictedPolys(), plan.boxes());
+    }
+
+    // Plans the deliveries, handing each flight to the listener as soon as it is closed rather
+    // than keeping them all; flights of earlier days are closed when the next day starts.
+    // Returns false if the list cannot be planned, i.e. calcDeliveryPath would give the empty
+    // plan; flights already handed over are then void.
+    @Override
+    public boolean streamFlights(List<MedDispatchRec> recs, CancellationToken token, FlightListener listener) {
+        return plan(recs, true, token, PlanProgress.NONE, listener) != Plan.EMPTY;
+    }
+
+    // Same plan without flight paths: return legs are searched for their length only
+    @Override
+    public DeliveryPlanSummaryResponse calcDeliveryPathSummary(List<MedDispatchRec> recs, CancellationToken token) {
+        return DeliveryPlanHelper.buildSummaryResponse(plan(recs, false, token, PlanProgress.NONE, null).flights());
+    }
+
+    // Plans independent dispatch groups in parallel on the plan workers against one ILP snapshot.
+    // Results keep the group order; a group that fails does not affect the others. Once the
+    // token is cancelled or its deadline passes, the groups not finished are reported as aborted
+    // and those not started are dropped.
+    @Override
+    public List<BatchPlanResult> calcDeliveryPathBatch(List<List<MedDispatchRec>> groups, CancellationToken token) {
+        if (groups == null || groups.isEmpty()) return List.of();
+        IlpSnapshot ilp = groups.stream().anyMatch(DeliveryPlanHelper::isValidDispatchList)
+                ? IlpSnapshot.fetch(ilpClient) : null;
+
+        List<SharedTask<CalcDeliveryPathResponse>> pending = new ArrayList<>();
+        for (List<MedDispatchRec> group : groups) {
+            if (!DeliveryPlanHelper.isValidDispatchList(group)) {
+                pending.add(SharedTask.completed(DeliveryPlanHelper.emptyDeliveryResponse()));
+                continue;
+            }
+            pending.add(SharedTask.submit(planWorkers, () ->
+                    DeliveryPlanHelper.buildDeliveryResponse(plan(group, ilp, true, token, PlanProgress.NONE, null).flights())));
+        }
+
+        List<BatchPlanResult> results = new ArrayList<>();
+        for (int i = 0; i < pending.size(); i++) {
+            BatchPlanResult r = new BatchPlanResult();
+            r.setIndex(i);
+            try {
+                r.setPlan(pending.get(i).join(token));
+                r.setStatus(BatchPlanResult.OK);
+            } catch (PlanAbortedException aborted) {
+                // Deadline passed or cancelled while waiting: no group left is needed any more
+                for (SharedTask<?> left : pending.subList(i + 1, pending.size())) left.cancel();
+                r.setStatus(BatchPlanResult.ABORTED);
+                r.setError(aborted.getReason());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof PlanAbortedException aborted) {
+                    r.setStatus(BatchPlanResult.ABORTED);
+                    r.setError(aborted.getReason());
+                } else {
+                    logger.warn("Batch group {} failed", i, cause);
+                    r.setStatus(BatchPlanResult.ERROR);
+                    r.setError(cause.getClass().getSimpleName() + ": " + cause.getMessage());
+                }
+            }
+            results.add(r);
+        }
+        return results;
+    }
+
+    // Per-dispatch feasibility and cost estimates from distance fields, without planning
+    @Override
+    public DeliveryCostEstimateResponse estimateDeliveryCost(List<MedDispatchRec> recs, CancellationToken token) {
+        if (recs == null || recs.isEmpty())
+            return DeliveryCostEstimator.estimate(List.of(), List.of(), Map.of(), Map.of(),
+                    List.of(), List.of(), token);
+        IlpSnapshot ilp = IlpSnapshot.fetch(ilpClient);
+        return DeliveryCostEstimator.estimate(recs, ilp.getServicePoints(), ilp.getSpMapDrone(),
+                ilp.getDroneById(), ilp.getRestrictedPolys(), ilp.getBoxes(), token);
+    }
+
+    // Finished flights plus the restricted geometry they were planned around
+    private record Plan(List<FlightBuilder> flights,
+                        List<List<Coordinate>> restrictedPolys, List<BoundBox> boxes) {
+        static final Plan EMPTY = new Plan(List.of(), List.of(), List.of());
+    }
+
+    // With a listener, finished flights are handed to it instead of being kept in the plan
+    private Plan plan(List<MedDispatchRec> recs, boolean keepPaths, CancellationToken token,
+                      PlanProgress progress, FlightListener listener) {
         // Basic record verification
         if(!DeliveryPlanHelper.isValidDispatchList(recs))
-            return DeliveryPlanHelper.emptyDeliveryResponse();
+            return Plan.EMPTY;
+        return plan(recs, IlpSnapshot.fetch(ilpClient), keepPaths, token, progress, listener);
+    }
 
-        List<Drone> drones = ilpClient.getAllDrones();
-        List<ServicePoint> servicePts = ilpClient.getServicePoints();
-        List<RestrictedArea> areas = ilpClient.getRestrictedAreas();
-        List<DroneForServicePoint> dfsp = ilpClient.getDronesForServicePoints();
-        List<List<Coordinate>> restrictedPolys = DeliveryPlanHelper.extractPolygons(areas);
-        List<BoundBox> BBoxes = DeliveryPlanHelper.extractBBoxes(areas);
-        // Map drone by drone id
-        Map<String, Drone> droneById = drones.stream().
-                collect(Collectors.toMap(Drone::getId, d -> d));
-        // Map serviceId to DroneForServicePoint
-        Map<Integer, DroneForServicePoint> spMapDrone = dfsp.stream()
-                .collect(Collectors.toMap
-                        (DroneForServicePoint::getServicePointId, e -> e));
+    private Plan plan(List<MedDispatchRec> recs, IlpSnapshot ilp, boolean keepPaths, CancellationToken token,
+                      PlanProgress progress, FlightListener listener) {
+        try {
+            return planDeliveries(recs, ilp, keepPaths, token, progress, listener);
+        } catch (PlanAbortedException e) {
+            PlanMetrics.recordAborted(e.getReason());
+            throw e;
+        }
+    }
+
+    private Plan planDeliveries(List<MedDispatchRec> recs, IlpSnapshot ilp, boolean keepPaths,
+                                CancellationToken token, PlanProgress progress,
+                                FlightListener listener) {
+        // Own copy: openNewFlight sorts the candidates in place, and snapshots may be shared
+        List<ServicePoint> servicePts = new ArrayList<>(ilp.getServicePoints());
+        List<List<Coordinate>> restrictedPolys = ilp.getRestrictedPolys();
+        List<BoundBox> BBoxes = ilp.getBoxes();
+        Map<String, Drone> droneById = ilp.getDroneById();
+        Map<Integer, DroneForServicePoint> spMapDrone = ilp.getSpMapDrone();
 
         List<MedDispatchRec> fixed = new ArrayList<>();
         List<MedDispatchRec> dateOnly = new ArrayList<>();
@@ -120,6 +300,11 @@ public class DroneServiceImpl implements DroneService {
             else if (r.getDate() != null) dateOnly.add(r);
             else anytime.add(r);
         }
+        if (clustered) {
+            // Timed records keep their time order
+            dateOnly = DispatchClusters.order(dateOnly, ilp.getServicePoints());
+            anytime = new ArrayList<>(DispatchClusters.order(anytime, ilp.getServicePoints()));
+        }
         Map<LocalDate, List<MedDispatchRec>> fixedByDate =
                 fixed.stream().collect(Collectors.groupingBy(MedDispatchRec::getDate));
         Map<LocalDate, List<MedDispatchRec>> dateOnlyByDate =
@@ -130,40 +315,115 @@ public class DroneServiceImpl implements DroneService {
                         dateOnlyByDate.keySet().stream())
                 .distinct().sorted().toList();
 
-        // Group the dispatches by date and sorted in time sequence(compare id if same time)
-
         List<FlightBuilder> activeFlights = new ArrayList<>();
         List<FlightBuilder> finishedFlights = new ArrayList<>();
+        // Anytime records are retried every day; what cannot depend on the day is worked out once
+        RetryMemo retries = new RetryMemo();
+        int assigned = 0;
+        progress.update(assigned, recs.size());
 
-        for (LocalDate day : orderedDays) {
-            List<MedDispatchRec> today = new ArrayList<>();
-            var fx = new ArrayList<>(fixedByDate.getOrDefault(day, List.of()));
-            fx.sort(Comparator.comparing(MedDispatchRec::getTime).thenComparing(MedDispatchRec::getId));
-            today.addAll(fx);
-            today.addAll(dateOnlyByDate.getOrDefault(day, List.of()));
-            for (MedDispatchRec r : today) {
-                if (!DeliveryPlanner.tryAssignOrStartFlight(servicePts, spMapDrone, droneById,
-                        restrictedPolys, BBoxes, r, day, activeFlights, finishedFlights)) {
-                    return DeliveryPlanHelper.emptyDeliveryResponse();
+        // Days after the first planned ahead; used while no undated flight is active
+        DaySpeculation ahead = null;
+        if (parallelDays && planWorkers != null && DaySpeculation.worthwhile(orderedDays, recs, servicePts)) {
+            ahead = DaySpeculation.start(planWorkers, orderedDays.subList(1, orderedDays.size()),
+                    day -> datedRecords(day, fixedByDate, dateOnlyByDate), servicePts, spMapDrone, droneById,
+                    restrictedPolys, BBoxes, keepPaths, clustered, token);
+        }
+        try {
+            for (LocalDate day : orderedDays) {
+                // Flights of earlier days are final; close them now so they can be streamed
+                if (listener != null) {
+                    for (Iterator<FlightBuilder> it = activeFlights.iterator(); it.hasNext(); ) {
+                        FlightBuilder fb = it.next();
+                        if (fb.getFlightDate() == null || !fb.getFlightDate().isBefore(day)) continue;
+                        it.remove();
+                        DeliveryPlanner.closeFlight(fb, finishedFlights, restrictedPolys, BBoxes, token);
+                    }
+                    emitFinished(finishedFlights, listener);
                 }
-            }
+                List<MedDispatchRec> today = datedRecords(day, fixedByDate, dateOnlyByDate);
 
-            for (Iterator<MedDispatchRec> it = anytime.iterator(); it.hasNext(); ) {
-                MedDispatchRec r = it.next();
-                boolean ok = DeliveryPlanner.tryAssignOrStartFlight(servicePts, spMapDrone, droneById,
-                        restrictedPolys, BBoxes, r, day, activeFlights, finishedFlights);
-                if (ok) it.remove();
+                DaySpeculation.DayPlan planned = null;
+                if (ahead != null) {
+                    // Undated flights stay active to the end, so no later day can be taken either
+                    if (activeFlights.stream().anyMatch(fb -> fb.getFlightDate() == null)) {
+                        ahead.abandon();
+                        ahead = null;
+                    } else {
+                        planned = ahead.take(day);
+                    }
+                }
+                if (planned != null) {
+                    if (planned.failed()) return Plan.EMPTY;
+                    // As the day's first merge attempt would: close the earlier days' flights in order
+                    for (FlightBuilder fb : activeFlights)
+                        DeliveryPlanner.closeFlight(fb, finishedFlights, restrictedPolys, BBoxes, token);
+                    activeFlights.clear();
+                    activeFlights.addAll(planned.active());
+                    assigned += today.size();
+                    progress.update(assigned, recs.size());
+                    if (listener != null) emitFinished(finishedFlights, listener);
+                } else {
+                    for (MedDispatchRec r : today) {
+                        if (!DeliveryPlanner.tryAssignOrStartFlight(servicePts, spMapDrone, droneById,
+                                restrictedPolys, BBoxes, r, day, activeFlights, finishedFlights, keepPaths, token,
+                                null, clustered)) {
+                            return Plan.EMPTY;
+                        }
+                        progress.update(++assigned, recs.size());
+                        if (listener != null) emitFinished(finishedFlights, listener);
+                    }
+                }
+
+                for (Iterator<MedDispatchRec> it = anytime.iterator(); it.hasNext(); ) {
+                    MedDispatchRec r = it.next();
+                    boolean ok = DeliveryPlanner.tryAssignOrStartFlight(servicePts, spMapDrone, droneById,
+                            restrictedPolys, BBoxes, r, day, activeFlights, finishedFlights, keepPaths, token,
+                            retries, clustered);
+                    if (ok) {
+                        it.remove();
+                        retries.forget(r);
+                        progress.update(++assigned, recs.size());
+                    }
+                    if (listener != null) emitFinished(finishedFlights, listener);
+                }
             }
+        } finally {
+            if (ahead != null) ahead.abandon();
         }
         if(!activeFlights.isEmpty()){
             for(FlightBuilder fb : activeFlights)
-                DeliveryPlanner.closeFlight(fb, finishedFlights, restrictedPolys, BBoxes);
+                DeliveryPlanner.closeFlight(fb, finishedFlights, restrictedPolys, BBoxes, token);
         }
-        return DeliveryPlanHelper.buildDeliveryResponse(finishedFlights);
+        if (listener != null) emitFinished(finishedFlights, listener);
+        return new Plan(finishedFlights, restrictedPolys, BBoxes);
+    }
+
+    // A day's dated records in planning order: timed ones by time (then id), then date-only ones
+    private static List<MedDispatchRec> datedRecords(LocalDate day,
+                                                     Map<LocalDate, List<MedDispatchRec>> fixedByDate,
+                                                     Map<LocalDate, List<MedDispatchRec>> dateOnlyByDate) {
+        List<MedDispatchRec> today = new ArrayList<>();
+        var fx = new ArrayList<>(fixedByDate.getOrDefault(day, List.of()));
+        fx.sort(Comparator.comparing(MedDispatchRec::getTime).thenComparing(MedDispatchRec::getId));
+        today.addAll(fx);
+        today.addAll(dateOnlyByDate.getOrDefault(day, List.of()));
+        return today;
+    }
+
+    // Hand the newly closed flights to the listener and drop them from the plan
+    private static void emitFinished(List<FlightBuilder> finishedFlights, FlightListener listener) {
+        for (FlightBuilder fb : finishedFlights) listener.flightClosed(fb);
+        finishedFlights.clear();
     }
 
     @Override
     public GeoJsonResponseCollection calcDeliveryPathAsGeoJson(List<MedDispatchRec> recs) {
-        return DeliveryPlanHelper.buildGeoJsonResponseCollection(calcDeliveryPath(recs));
+        return calcDeliveryPathAsGeoJson(recs, CancellationToken.none());
+    }
+
+    @Override
+    public GeoJsonResponseCollection calcDeliveryPathAsGeoJson(List<MedDispatchRec> recs, CancellationToken token) {
+        return DeliveryPlanHelper.buildGeoJsonResponseCollection(calcDeliveryPath(recs, token));
     }
 }
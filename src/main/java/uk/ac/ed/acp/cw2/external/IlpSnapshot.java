@@ -0,0 +1,49 @@
+package uk.ac.ed.acp.cw2.external;
+
+import lombok.Getter;
+import uk.ac.ed.acp.cw2.data.*;
+import uk.ac.ed.acp.cw2.utility.DeliveryPlanHelper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// ILP data fetched once (one call per endpoint) and shared read-only by the plans that use it,
+// together with the lookups the planner derives from it.
+@Getter
+public class IlpSnapshot {
+    private final List<Drone> drones;
+    private final List<ServicePoint> servicePoints;
+    private final List<RestrictedArea> restrictedAreas;
+    private final List<DroneForServicePoint> dronesForServicePoints;
+
+    private final List<List<Coordinate>> restrictedPolys;
+    private final List<BoundBox> boxes;
+    private final Map<String, Drone> droneById;
+    private final Map<Integer, DroneForServicePoint> spMapDrone;
+
+    public IlpSnapshot(List<Drone> drones, List<ServicePoint> servicePoints,
+                       List<RestrictedArea> restrictedAreas,
+                       List<DroneForServicePoint> dronesForServicePoints) {
+        this.drones = Collections.unmodifiableList(new ArrayList<>(drones));
+        this.servicePoints = Collections.unmodifiableList(new ArrayList<>(servicePoints));
+        this.restrictedAreas = Collections.unmodifiableList(new ArrayList<>(restrictedAreas));
+        this.dronesForServicePoints = Collections.unmodifiableList(new ArrayList<>(dronesForServicePoints));
+
+        this.restrictedPolys = DeliveryPlanHelper.extractPolygons(restrictedAreas);
+        this.boxes = DeliveryPlanHelper.extractBBoxes(restrictedAreas);
+        // Map drone by drone id
+        this.droneById = drones.stream()
+                .collect(Collectors.toMap(Drone::getId, d -> d));
+        // Map serviceId to DroneForServicePoint
+        this.spMapDrone = dronesForServicePoints.stream()
+                .collect(Collectors.toMap(DroneForServicePoint::getServicePointId, e -> e));
+    }
+
+    public static IlpSnapshot fetch(IlpClientComponent ilpClient) {
+        return new IlpSnapshot(ilpClient.getAllDrones(), ilpClient.getServicePoints(),
+                ilpClient.getRestrictedAreas(), ilpClient.getDronesForServicePoints());
+    }
+}
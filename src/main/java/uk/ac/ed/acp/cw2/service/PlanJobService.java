@@ -0,0 +1,14 @@
+package uk.ac.ed.acp.cw2.service;
+
+import uk.ac.ed.acp.cw2.data.FlightBuilder;
+import uk.ac.ed.acp.cw2.data.MedDispatchRec;
+import uk.ac.ed.acp.cw2.data.response.PlanJobStatusResponse;
+
+import java.util.List;
+
+public interface PlanJobService {
+    PlanJobStatusResponse submit(List<MedDispatchRec> dispatches);
+    PlanJobStatusResponse status(String jobId);
+    List<FlightBuilder> result(String jobId);
+    int evictExpired();
+}
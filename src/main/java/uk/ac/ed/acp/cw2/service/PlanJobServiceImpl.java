@@ -0,0 +1,174 @@
+package uk.ac.ed.acp.cw2.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import uk.ac.ed.acp.cw2.data.FlightBuilder;
+import uk.ac.ed.acp.cw2.data.MedDispatchRec;
+import uk.ac.ed.acp.cw2.data.response.PlanJobStatusResponse;
+import uk.ac.ed.acp.cw2.external.DroneService;
+import uk.ac.ed.acp.cw2.utility.CancellationToken;
+import uk.ac.ed.acp.cw2.utility.PlanAbortedException;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Runs calcDeliveryPath plans as background jobs, so long plans do not hold a request open.
+// Jobs run on a fixed pool with a bounded queue; a finished job is kept for ilp.jobs.ttl
+// after it finishes and then evicted by a scheduled sweep. At most ilp.jobs.max-finished
+// finished jobs are kept at any time, the oldest being dropped first, so submissions that
+// finish at once (e.g. invalid lists) cannot pile up until the sweep.
+@Service
+public class PlanJobServiceImpl implements PlanJobService {
+    private static final Logger logger = LoggerFactory.getLogger(PlanJobServiceImpl.class);
+
+    private final DroneService droneService;
+    private final Duration jobDeadline;
+    private final long ttlNanos;
+    private final int maxFinished;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    // Finished jobs in the order they finished, oldest first
+    private final ArrayDeque<Job> finished = new ArrayDeque<>();
+
+    public PlanJobServiceImpl(DroneService droneService,
+                              @Value("${ilp.jobs.workers:2}") int workers,
+                              @Value("${ilp.jobs.queue:16}") int queueCapacity,
+                              @Value("${ilp.jobs.deadline:10m}") Duration jobDeadline,
+                              @Value("${ilp.jobs.ttl:15m}") Duration ttl,
+                              @Value("${ilp.jobs.max-finished:256}") int maxFinished) {
+        this.droneService = droneService;
+        this.jobDeadline = jobDeadline;
+        this.ttlNanos = ttl.toNanos();
+        this.maxFinished = Math.max(1, maxFinished);
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "plan-job");
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    // One submitted plan; fields are written by the worker and read by pollers
+    private static final class Job {
+        final String id = UUID.randomUUID().toString();
+        final List<MedDispatchRec> dispatches;
+        volatile String status = PlanJobStatusResponse.QUEUED;
+        volatile int assigned;
+        volatile int total;
+        volatile List<FlightBuilder> flights;
+        volatile String error;
+        volatile long finishedAt;   // System.nanoTime() once done, aborted or failed
+
+        Job(List<MedDispatchRec> dispatches) {
+            this.dispatches = dispatches;
+            this.total = dispatches == null ? 0 : dispatches.size();
+        }
+    }
+
+    // Queue a plan; null when the queue is full
+    @Override
+    public PlanJobStatusResponse submit(List<MedDispatchRec> dispatches) {
+        Job job = new Job(dispatches);
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            return null;
+        }
+        return toStatus(job);
+    }
+
+    // Current state of a job; null if unknown or already evicted
+    @Override
+    public PlanJobStatusResponse status(String jobId) {
+        Job job = jobId == null ? null : jobs.get(jobId);
+        return job == null ? null : toStatus(job);
+    }
+
+    // Planned flights of a finished job; null unless its status is done
+    @Override
+    public List<FlightBuilder> result(String jobId) {
+        Job job = jobId == null ? null : jobs.get(jobId);
+        if (job == null || !job.status.equals(PlanJobStatusResponse.DONE)) return null;
+        return job.flights;
+    }
+
+    // Drop jobs that finished more than ttl ago; returns the number removed
+    @Override
+    @Scheduled(fixedDelayString = "${ilp.jobs.sweep:1m}")
+    public int evictExpired() {
+        long now = System.nanoTime();
+        int removed = 0;
+        synchronized (finished) {
+            Job oldest;
+            while ((oldest = finished.peekFirst()) != null && now - oldest.finishedAt >= ttlNanos) {
+                finished.pollFirst();
+                if (jobs.remove(oldest.id, oldest)) removed++;
+            }
+        }
+        return removed;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(Job job) {
+        job.status = PlanJobStatusResponse.RUNNING;
+        CancellationToken token = CancellationToken.withTimeout(jobDeadline);
+        String outcome;
+        try {
+            job.flights = droneService.planFlights(job.dispatches, token, (assigned, total) -> {
+                job.assigned = assigned;
+                job.total = total;
+            });
+            outcome = PlanJobStatusResponse.DONE;
+        } catch (PlanAbortedException e) {
+            job.error = e.getReason();
+            outcome = PlanJobStatusResponse.ABORTED;
+        } catch (RuntimeException e) {
+            logger.warn("Planning job {} failed", job.id, e);
+            job.error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            outcome = PlanJobStatusResponse.FAILED;
+        }
+        retire(job, outcome);
+    }
+
+    // Mark the job finished and keep it among the last maxFinished ones
+    private void retire(Job job, String outcome) {
+        synchronized (finished) {
+            // Finish time first, so pollers never see a finished job without one
+            job.finishedAt = System.nanoTime();
+            job.status = outcome;
+            finished.addLast(job);
+            while (finished.size() > maxFinished) {
+                Job oldest = finished.pollFirst();
+                jobs.remove(oldest.id, oldest);
+            }
+        }
+    }
+
+    private static PlanJobStatusResponse toStatus(Job job) {
+        PlanJobStatusResponse r = new PlanJobStatusResponse();
+        r.setJobId(job.id);
+        r.setStatus(job.status);
+        r.setAssigned(job.assigned);
+        r.setTotal(job.total);
+        r.setError(job.error);
+        return r;
+    }
+}
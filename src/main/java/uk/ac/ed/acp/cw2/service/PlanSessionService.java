@@ -0,0 +1,17 @@
+package uk.ac.ed.acp.cw2.service;
+
+import uk.ac.ed.acp.cw2.data.FlightBuilder;
+import uk.ac.ed.acp.cw2.data.MedDispatchRec;
+import uk.ac.ed.acp.cw2.data.response.PlanSessionResponse;
+
+import java.util.List;
+
+public interface PlanSessionService {
+    PlanSessionResponse open(List<MedDispatchRec> dispatches);
+    PlanSessionResponse status(String sessionId);
+    PlanSessionResponse add(String sessionId, List<MedDispatchRec> dispatches);
+    PlanSessionResponse cancel(String sessionId, int dispatchId);
+    List<FlightBuilder> plan(String sessionId);
+    boolean close(String sessionId);
+    int evictIdle();
+}
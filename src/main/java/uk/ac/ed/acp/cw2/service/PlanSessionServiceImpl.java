@@ -0,0 +1,248 @@
+package uk.ac.ed.acp.cw2.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import uk.ac.ed.acp.cw2.data.FlightBuilder;
+import uk.ac.ed.acp.cw2.data.MedDispatchRec;
+import uk.ac.ed.acp.cw2.data.response.PlanSessionResponse;
+import uk.ac.ed.acp.cw2.external.DroneService;
+import uk.ac.ed.acp.cw2.external.IlpClientComponent;
+import uk.ac.ed.acp.cw2.external.IlpSnapshot;
+import uk.ac.ed.acp.cw2.utility.CancellationToken;
+import uk.ac.ed.acp.cw2.utility.DeliveryPlanHelper;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+// Plan sessions: a dispatch list kept server-side with its plan, changed one record at a time.
+// Flights only ever join records of their own date, so while every record has a date each day
+// is planned on its own and a change replans just the days it touches. Undated records may join
+// a flight on any day; a session holding one is replanned as a whole on every change.
+// A session plans against the ILP data fetched when it was opened, and is dropped after
+// ilp.sessions.idle-timeout without use.
+@Service
+public class PlanSessionServiceImpl implements PlanSessionService {
+
+    private final DroneService droneService;
+    private final IlpClientComponent ilpClient;
+    private final Duration planDeadline;
+    private final int maxSessions;
+    private final int maxDispatches;
+    private final long idleNanos;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    // Open sessions plus those still being opened; never more than maxSessions
+    private final AtomicInteger slots = new AtomicInteger();
+
+    public PlanSessionServiceImpl(DroneService droneService, IlpClientComponent ilpClient,
+                                  @Value("${ilp.plan.deadline:30s}") Duration planDeadline,
+                                  @Value("${ilp.sessions.max:64}") int maxSessions,
+                                  @Value("${ilp.sessions.max-dispatches:1000}") int maxDispatches,
+                                  @Value("${ilp.sessions.idle-timeout:30m}") Duration idleTimeout) {
+        this.droneService = droneService;
+        this.ilpClient = ilpClient;
+        this.planDeadline = planDeadline;
+        this.maxSessions = maxSessions;
+        this.maxDispatches = maxDispatches;
+        this.idleNanos = idleTimeout.toNanos();
+    }
+
+    private static final class Session {
+        final String id = UUID.randomUUID().toString();
+        final IlpSnapshot ilp;
+        final Map<Integer, MedDispatchRec> dispatches = new LinkedHashMap<>();   // in the order added
+        // Flights of each day while every record has a date (empty if the day cannot be planned)
+        final TreeMap<LocalDate, List<FlightBuilder>> flightsByDay = new TreeMap<>();
+        List<FlightBuilder> wholePlan;   // instead, while the session has undated records
+        int replanned;
+        volatile long lastUsed = System.nanoTime();
+
+        Session(IlpSnapshot ilp) {
+            this.ilp = ilp;
+        }
+
+        boolean isPlanned() {
+            if (dispatches.isEmpty()) return true;
+            if (wholePlan != null) return !wholePlan.isEmpty();
+            for (List<FlightBuilder> day : flightsByDay.values()) if (day.isEmpty()) return false;
+            return true;
+        }
+
+        List<FlightBuilder> flights() {
+            if (!isPlanned()) return List.of();
+            if (wholePlan != null) return wholePlan;
+            List<FlightBuilder> out = new ArrayList<>();
+            for (List<FlightBuilder> day : flightsByDay.values()) out.addAll(day);
+            return out;
+        }
+    }
+
+    // New session, planned with the given records (may be empty); throws IllegalStateException
+    // when the session limit is reached and IllegalArgumentException for an invalid list
+    @Override
+    public PlanSessionResponse open(List<MedDispatchRec> dispatches) {
+        if (!reserveSlot()) {
+            evictIdle();
+            if (!reserveSlot()) throw new IllegalStateException("Too many open plan sessions");
+        }
+        boolean opened = false;
+        try {
+            Session s = new Session(IlpSnapshot.fetch(ilpClient));
+            if (dispatches != null && !dispatches.isEmpty()) change(s, dispatches, null);
+            sessions.put(s.id, s);
+            opened = true;
+            return toResponse(s);
+        } finally {
+            if (!opened) slots.decrementAndGet();
+        }
+    }
+
+    // Take a session slot if one is free, so concurrent opens cannot go over the limit
+    private boolean reserveSlot() {
+        int n;
+        do {
+            n = slots.get();
+            if (n >= maxSessions) return false;
+        } while (!slots.compareAndSet(n, n + 1));
+        return true;
+    }
+
+    @Override
+    public PlanSessionResponse status(String sessionId) {
+        Session s = touch(sessionId);
+        if (s == null) return null;
+        synchronized (s) {
+            return toResponse(s);
+        }
+    }
+
+    // Add records and replan the days they fall on; null if the session is unknown
+    @Override
+    public PlanSessionResponse add(String sessionId, List<MedDispatchRec> dispatches) {
+        Session s = touch(sessionId);
+        if (s == null) return null;
+        synchronized (s) {
+            change(s, dispatches, null);
+            return toResponse(s);
+        }
+    }
+
+    // Remove a record and replan its day; null if the session or the record is unknown
+    @Override
+    public PlanSessionResponse cancel(String sessionId, int dispatchId) {
+        Session s = touch(sessionId);
+        if (s == null) return null;
+        synchronized (s) {
+            if (!s.dispatches.containsKey(dispatchId)) return null;
+            change(s, List.of(), dispatchId);
+            return toResponse(s);
+        }
+    }
+
+    // Current plan in day order; empty if the records cannot all be assigned, null if unknown
+    @Override
+    public List<FlightBuilder> plan(String sessionId) {
+        Session s = touch(sessionId);
+        if (s == null) return null;
+        synchronized (s) {
+            return List.copyOf(s.flights());
+        }
+    }
+
+    @Override
+    public boolean close(String sessionId) {
+        if (sessionId == null || sessions.remove(sessionId) == null) return false;
+        slots.decrementAndGet();
+        return true;
+    }
+
+    // Drop sessions unused for longer than the idle timeout; returns the number removed
+    @Override
+    @Scheduled(fixedDelayString = "${ilp.sessions.sweep:1m}")
+    public int evictIdle() {
+        long now = System.nanoTime();
+        int removed = 0;
+        for (Session s : sessions.values()) {
+            if (now - s.lastUsed >= idleNanos && sessions.remove(s.id, s)) {
+                slots.decrementAndGet();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private Session touch(String sessionId) {
+        Session s = sessionId == null ? null : sessions.get(sessionId);
+        if (s != null) s.lastUsed = System.nanoTime();
+        return s;
+    }
+
+    // Apply added records and/or one cancelled id, replanning only what they affect.
+    // The session is left unchanged if the records are rejected or planning is aborted.
+    private void change(Session s, List<MedDispatchRec> added, Integer cancelledId) {
+        if (!added.isEmpty() && !DeliveryPlanHelper.isValidDispatchList(added))
+            throw new IllegalArgumentException("Invalid dispatch records");
+        Map<Integer, MedDispatchRec> next = new LinkedHashMap<>(s.dispatches);
+        Set<LocalDate> touched = new HashSet<>();
+        if (cancelledId != null) touched.add(next.remove(cancelledId).getDate());
+        for (MedDispatchRec r : added) {
+            if (next.putIfAbsent(r.getId(), r) != null)
+                throw new IllegalStateException("Dispatch " + r.getId() + " is already in the session");
+            touched.add(r.getDate());
+        }
+        if (next.size() > maxDispatches)
+            throw new IllegalStateException("A plan session holds at most " + maxDispatches + " dispatches");
+
+        CancellationToken token = CancellationToken.withTimeout(planDeadline);
+        if (next.values().stream().anyMatch(r -> r.getDate() == null)) {
+            List<FlightBuilder> whole = droneService.planFlights(new ArrayList<>(next.values()), s.ilp, token);
+            s.flightsByDay.clear();
+            s.wholePlan = whole;
+            s.replanned = next.size();
+        } else {
+            // Records of each day in the order they were added, as a full plan would see them
+            Map<LocalDate, List<MedDispatchRec>> byDay = next.values().stream()
+                    .collect(Collectors.groupingBy(MedDispatchRec::getDate));
+            // After a whole-session plan no day has flights of its own yet
+            Set<LocalDate> stale = s.wholePlan != null ? byDay.keySet() : touched;
+            Map<LocalDate, List<FlightBuilder>> updated = new HashMap<>();
+            int replanned = 0;
+            for (LocalDate day : stale) {
+                List<MedDispatchRec> recs = byDay.get(day);
+                if (recs == null) continue;
+                updated.put(day, droneService.planFlights(recs, s.ilp, token));
+                replanned += recs.size();
+            }
+            if (s.wholePlan != null) s.flightsByDay.clear();
+            s.flightsByDay.keySet().removeIf(day -> !byDay.containsKey(day));
+            s.flightsByDay.putAll(updated);
+            s.wholePlan = null;
+            s.replanned = replanned;
+        }
+        s.dispatches.clear();
+        s.dispatches.putAll(next);
+    }
+
+    private static PlanSessionResponse toResponse(Session s) {
+        PlanSessionResponse r = new PlanSessionResponse();
+        r.setSessionId(s.id);
+        r.setDispatches(s.dispatches.size());
+        r.setReplanned(s.replanned);
+        r.setPlanned(s.isPlanned());
+        List<FlightBuilder> flights = s.flights();
+        double totalCost = 0.0;
+        int totalMoves = 0;
+        for (FlightBuilder fb : flights) {
+            totalCost += fb.getCost();
+            totalMoves += fb.getStepsUsed();
+        }
+        r.setFlights(flights.size());
+        r.setTotalCost(totalCost);
+        r.setTotalMoves(totalMoves);
+        return r;
+    }
+}
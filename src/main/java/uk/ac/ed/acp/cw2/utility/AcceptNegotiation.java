@@ -0,0 +1,63 @@
+package uk.ac.ed.acp.cw2.utility;
+
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Accept header handling for the endpoints that pick their own representation.
+// Media ranges are ranked by q-value (highest first), then exact types before wildcards,
+// then in header order; ranges with q=0 are never acceptable. A missing or malformed header
+// accepts anything and prefers nothing.
+public class AcceptNegotiation {
+
+    private static final Comparator<MediaType> PREFERENCE = Comparator
+            .comparingDouble(MediaType::getQualityValue).reversed()
+            .thenComparing(MediaType::isWildcardType)
+            .thenComparing(MediaType::isWildcardSubtype);
+
+    private AcceptNegotiation() {
+    }
+
+    // Whether the header ranks wanted above fallback (the first acceptable range matching either decides)
+    public static boolean prefers(String accept, MediaType wanted, MediaType fallback) {
+        for (MediaType t : ranked(accept)) {
+            if (t.equalsTypeAndSubtype(wanted)) return true;
+            if (t.isCompatibleWith(fallback)) return false;
+        }
+        return false;
+    }
+
+    // Whether the header allows the given type at all
+    public static boolean accepts(String accept, MediaType type) {
+        if (accept == null || accept.isBlank()) return true;
+        List<MediaType> types = parse(accept);
+        if (types == null) return true;
+        for (MediaType t : types) {
+            if (t.getQualityValue() > 0 && t.includes(type)) return true;
+        }
+        return false;
+    }
+
+    // Acceptable ranges, most preferred first
+    private static List<MediaType> ranked(String accept) {
+        if (accept == null || accept.isBlank()) return List.of();
+        List<MediaType> types = parse(accept);
+        if (types == null) return List.of();
+        List<MediaType> out = new ArrayList<>(types.size());
+        for (MediaType t : types) {
+            if (t.getQualityValue() > 0) out.add(t);
+        }
+        out.sort(PREFERENCE);
+        return out;
+    }
+
+    private static List<MediaType> parse(String accept) {
+        try {
+            return MediaType.parseMediaTypes(accept);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
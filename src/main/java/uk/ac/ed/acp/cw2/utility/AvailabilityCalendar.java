@@ -0,0 +1,106 @@
+package uk.ac.ed.acp.cw2.utility;
+
+import uk.ac.ed.acp.cw2.data.DroneForServicePoint;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// Availability windows of a drone at a service point, parsed once.
+// Each weekday keeps its windows as sorted, merged [from, until] nano-of-day intervals, plus a
+// bit per weekday with any window at all, so a check is a few integer comparisons.
+// Answers exactly as QueryDroneHelper.isAvailableAt does on the raw windows.
+public final class AvailabilityCalendar {
+
+    // No windows: only records without date and time are accepted
+    public static final AvailabilityCalendar NONE = new AvailabilityCalendar(true, 0, new long[7][0]);
+
+    private final boolean empty;
+    private final int dayMask;         // bit d set if some window names DayOfWeek.of(d + 1)
+    private final long[][] windows;    // per weekday (0 = Monday): from, until, from, until, ...
+
+    private AvailabilityCalendar(boolean empty, int dayMask, long[][] windows) {
+        this.empty = empty;
+        this.dayMask = dayMask;
+        this.windows = windows;
+    }
+
+    public static AvailabilityCalendar compile(List<DroneForServicePoint.Availability> raw) {
+        if (raw == null || raw.isEmpty()) return NONE;
+        int mask = 0;
+        List<List<long[]>> perDay = new ArrayList<>();
+        for (int d = 0; d < 7; d++) perDay.add(new ArrayList<>());
+        for (DroneForServicePoint.Availability w : raw) {
+            DayOfWeek dow = parseDayOfWeek(w.getDayOfWeek());
+            if (dow == null) continue;
+            int d = dow.ordinal();
+            // A day with a window counts for date-only checks, even if its times do not parse
+            mask |= 1 << d;
+            LocalTime from = parseTime(w.getFrom());
+            LocalTime until = parseTime(w.getUntil());
+            if (from == null || until == null || from.isAfter(until)) continue;
+            perDay.get(d).add(new long[]{from.toNanoOfDay(), until.toNanoOfDay()});
+        }
+        long[][] windows = new long[7][];
+        for (int d = 0; d < 7; d++) windows[d] = merge(perDay.get(d));
+        return new AvailabilityCalendar(false, mask, windows);
+    }
+
+    public boolean isAvailableAt(LocalDate date, LocalTime time) {
+        // No date and time restriction
+        if (date == null && time == null) return true;
+        if (empty || date == null) return false;
+        int d = date.getDayOfWeek().ordinal();
+        // Only date restriction
+        if (time == null) return (dayMask & (1 << d)) != 0;
+        long t = time.toNanoOfDay();
+        long[] w = windows[d];
+        for (int i = 0; i < w.length; i += 2) {
+            if (t < w[i]) return false;
+            if (t <= w[i + 1]) return true;
+        }
+        return false;
+    }
+
+    // Raw parts for indexes in this package (see FleetIndex)
+    boolean hasDay(int day) {
+        return !empty && (dayMask & (1 << day)) != 0;
+    }
+
+    // Merged windows of a weekday (0 = Monday) as from, until pairs; not to be modified
+    long[] windows(int day) {
+        return windows[day];
+    }
+
+    // Sort by start and join overlapping or touching intervals (bounds are inclusive)
+    private static long[] merge(List<long[]> intervals) {
+        intervals.sort((a, b) -> Long.compare(a[0], b[0]));
+        long[] out = new long[2 * intervals.size()];
+        int n = 0;
+        for (long[] iv : intervals) {
+            if (n > 0 && iv[0] <= out[n - 1]) {
+                out[n - 1] = Math.max(out[n - 1], iv[1]);
+            } else {
+                out[n++] = iv[0];
+                out[n++] = iv[1];
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static DayOfWeek parseDayOfWeek(String s) {
+        if (s == null) return null;
+        try { return DayOfWeek.valueOf(s.toUpperCase(Locale.ROOT)); }
+        catch (Exception e) { return null; }
+    }
+
+    private static LocalTime parseTime(String s) {
+        if (s == null) return null;
+        try { return LocalTime.parse(s); }
+        catch (Exception e) { return null; }
+    }
+}
@@ -0,0 +1,82 @@
+package uk.ac.ed.acp.cw2.utility;
+
+import java.time.Duration;
+
+// Per-request deadline and cancellation flag for delivery planning.
+// Long running searches poll it every POLL_INTERVAL expansions and stop
+// once the deadline has passed or the request was cancelled (e.g. client disconnect).
+public class CancellationToken {
+
+    // Number of A* expansions between two polls (power of two)
+    public static final int POLL_INTERVAL = 1024;
+
+    public static final String REASON_DEADLINE = "deadline";
+    public static final String REASON_DISCONNECT = "disconnect";
+    // Work dropped because its result is no longer needed
+    public static final String REASON_UNUSED = "unused";
+
+    private final long deadlineNanos;
+    private final boolean bounded;
+    private final CancellationToken parent;
+    private volatile String cancelReason;
+
+    private CancellationToken(long deadlineNanos, boolean bounded, CancellationToken parent) {
+        this.deadlineNanos = deadlineNanos;
+        this.bounded = bounded;
+        this.parent = parent;
+    }
+
+    // Token without deadline, only cancelled explicitly
+    public static CancellationToken none() {
+        return new CancellationToken(0L, false, null);
+    }
+
+    // Token that expires once the given timeout has elapsed from now
+    public static CancellationToken withTimeout(Duration timeout) {
+        return new CancellationToken(System.nanoTime() + timeout.toNanos(), true, null);
+    }
+
+    // Token cancelled together with this one, or on its own (e.g. to drop work no longer needed)
+    public CancellationToken child() {
+        return new CancellationToken(0L, false, this);
+    }
+
+    // Request cancellation; the first reason given wins
+    public void cancel(String reason) {
+        if (cancelReason == null) cancelReason = reason;
+    }
+
+    public boolean isCancelled() {
+        if (cancelReason != null) return true;
+        if (parent != null && parent.isCancelled()) {
+            cancel(parent.cancelReason);
+            return true;
+        }
+        if (bounded && System.nanoTime() - deadlineNanos > 0) {
+            cancel(REASON_DEADLINE);
+            return true;
+        }
+        return false;
+    }
+
+    // Time left before the deadline of this token or a parent, Long.MAX_VALUE if there is none
+    public long remainingNanos() {
+        long own = bounded ? Math.max(0L, deadlineNanos - System.nanoTime()) : Long.MAX_VALUE;
+        return parent == null ? own : Math.min(own, parent.remainingNanos());
+    }
+
+    // Reason the token was cancelled with, or null while it is still live
+    public String getReason() {
+        return isCancelled() ? cancelReason : null;
+    }
+
+    // Abort the current work by throwing if the token is cancelled or expired
+    public void throwIfCancelled() {
+        if (isCancelled()) throw new PlanAbortedException(cancelReason);
+    }
+
+    // Cheap poll to be called once per search expansion
+    public void poll(int expansions) {
+        if ((expansions & (POLL_INTERVAL - 1)) == 0) throwIfCancelled();
+    }
+}
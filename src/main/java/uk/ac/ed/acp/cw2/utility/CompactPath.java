@@ -0,0 +1,193 @@
+package uk.ac.ed.acp.cw2.utility;
+
+import uk.ac.ed.acp.cw2.data.Coordinate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Flight path stored as its start point plus one 4-bit direction code per move.
+// Every A* step adds one of GeoUtilities.DX/DY to the previous point, so replaying the
+// codes with the same additions reproduces each coordinate bit for bit. Hovers (a point
+// repeated) are kept as a list of move indices; any other move is kept as an explicit
+// anchor point so arbitrary paths still round-trip exactly.
+//
+// Prefixes and reversed views share the packed data of the path they come from.
+public class CompactPath {
+
+    private final double startLng, startLat;
+    private final byte[] codes;          // two moves per byte, low nibble first
+    private final int[] hovers;          // sorted move indices that repeat the previous point
+    private final int[] anchors;         // sorted move indices stored explicitly
+    private final double[] anchorPoints; // lng, lat per anchor
+    private final int points;            // points in this view
+    private final boolean reversed;
+
+    private CompactPath(double startLng, double startLat, byte[] codes, int[] hovers,
+                        int[] anchors, double[] anchorPoints, int points, boolean reversed) {
+        this.startLng = startLng;
+        this.startLat = startLat;
+        this.codes = codes;
+        this.hovers = hovers;
+        this.anchors = anchors;
+        this.anchorPoints = anchorPoints;
+        this.points = points;
+        this.reversed = reversed;
+    }
+
+    // Receives the points of a path in order
+    public interface PointConsumer {
+        void accept(double lng, double lat);
+    }
+
+    // Encode a coordinate path; an empty path gives an empty CompactPath
+    public static CompactPath of(List<Coordinate> path) {
+        int n = path.size();
+        if (n == 0) return new CompactPath(0, 0, new byte[0], new int[0], new int[0], new double[0], 0, false);
+        byte[] codes = new byte[n / 2];
+        int[] hovers = new int[n];
+        int[] anchors = new int[n];
+        double[] anchorPoints = new double[2 * n];
+        int nh = 0, na = 0;
+
+        Coordinate first = path.getFirst();
+        double lng = first.getLng(), lat = first.getLat();
+        for (int m = 0; m < n - 1; m++) {
+            Coordinate next = path.get(m + 1);
+            double nLng = next.getLng(), nLat = next.getLat();
+            int dir = directionOf(lng, lat, nLng, nLat);
+            if (dir >= 0) {
+                codes[m >> 1] |= (byte) (dir << ((m & 1) << 2));
+            } else if (same(nLng, lng) && same(nLat, lat)) {
+                hovers[nh++] = m;
+            } else {
+                anchors[na] = m;
+                anchorPoints[2 * na] = nLng;
+                anchorPoints[2 * na + 1] = nLat;
+                na++;
+            }
+            lng = nLng;
+            lat = nLat;
+        }
+        return new CompactPath(first.getLng(), first.getLat(), codes,
+                Arrays.copyOf(hovers, nh), Arrays.copyOf(anchors, na),
+                Arrays.copyOf(anchorPoints, 2 * na), n, false);
+    }
+
+    // Number of points (moves + 1, or 0 for an empty path)
+    public int size() {
+        return points;
+    }
+
+    public boolean isEmpty() {
+        return points == 0;
+    }
+
+    // Number of moves, hovers included
+    public int moves() {
+        return Math.max(0, points - 1);
+    }
+
+    // The first n points of this path, in the same direction
+    public CompactPath prefix(int n) {
+        if (reversed) throw new IllegalStateException("prefix of a reversed path");
+        return new CompactPath(startLng, startLat, codes, hovers, anchors, anchorPoints,
+                Math.min(n, points), false);
+    }
+
+    // The same points in reverse order
+    public CompactPath reversed() {
+        return new CompactPath(startLng, startLat, codes, hovers, anchors, anchorPoints, points, !reversed);
+    }
+
+    // Replay the points in order
+    public void forEach(PointConsumer out) {
+        if (points == 0) return;
+        if (!reversed) {
+            replay(out);
+            return;
+        }
+        double[] xy = new double[2 * points];
+        int[] i = {0};
+        replay((lng, lat) -> {
+            xy[i[0]++] = lng;
+            xy[i[0]++] = lat;
+        });
+        for (int p = points - 1; p >= 0; p--) out.accept(xy[2 * p], xy[2 * p + 1]);
+    }
+
+    // Expand to coordinates
+    public List<Coordinate> toCoordinates() {
+        List<Coordinate> out = new ArrayList<>(points);
+        forEach((lng, lat) -> out.add(new Coordinate(lng, lat)));
+        return out;
+    }
+
+    // Raw parts for encoders in this package (see PlanBinaryWriter)
+    double startLng() {
+        return startLng;
+    }
+
+    double startLat() {
+        return startLat;
+    }
+
+    boolean isReversed() {
+        return reversed;
+    }
+
+    // Direction code of move m (0 for hovers and anchors)
+    int code(int m) {
+        return (codes[m >> 1] >> ((m & 1) << 2)) & 0xF;
+    }
+
+    int[] hovers() {
+        return hovers;
+    }
+
+    int[] anchors() {
+        return anchors;
+    }
+
+    double[] anchorPoints() {
+        return anchorPoints;
+    }
+
+    // Approximate heap footprint of the packed data, in bytes
+    public long packedBytes() {
+        return codes.length + 4L * (hovers.length + anchors.length) + 8L * anchorPoints.length;
+    }
+
+    private void replay(PointConsumer out) {
+        double lng = startLng, lat = startLat;
+        out.accept(lng, lat);
+        int h = 0, a = 0;
+        for (int m = 0; m < points - 1; m++) {
+            if (h < hovers.length && hovers[h] == m) {
+                h++;
+            } else if (a < anchors.length && anchors[a] == m) {
+                lng = anchorPoints[2 * a];
+                lat = anchorPoints[2 * a + 1];
+                a++;
+            } else {
+                int dir = code(m);
+                lng = lng + GeoUtilities.DX[dir];
+                lat = lat + GeoUtilities.DY[dir];
+            }
+            out.accept(lng, lat);
+        }
+    }
+
+    // Direction whose step lands exactly on the next point, or -1
+    private static int directionOf(double lng, double lat, double nLng, double nLat) {
+        for (int dir = 0; dir < GeoUtilities.DX.length; dir++) {
+            if (same(lng + GeoUtilities.DX[dir], nLng) && same(lat + GeoUtilities.DY[dir], nLat)) return dir;
+        }
+        return -1;
+    }
+
+    // Bitwise equality, so replayed values match the originals exactly (including -0.0)
+    private static boolean same(double a, double b) {
+        return Double.doubleToLongBits(a) == Double.doubleToLongBits(b);
+    }
+}
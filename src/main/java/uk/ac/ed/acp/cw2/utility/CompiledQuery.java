@@ -0,0 +1,247 @@
+package uk.ac.ed.acp.cw2.utility;
+
+import uk.ac.ed.acp.cw2.data.Drone;
+import uk.ac.ed.acp.cw2.data.QueryCondition;
+import uk.ac.ed.acp.cw2.utility.DroneColumnIndex.Column;
+
+import java.util.*;
+
+// POST /query conditions compiled once into a predicate tree: attributes resolved to accessors,
+// values parsed, operators chosen, so matching a drone does no string work. Against a
+// DroneColumnIndex each condition is a lookup or a binary search rather than a scan of its own
+// (getting the index still takes one pass over the fetched drones, see DroneColumnIndex.of).
+// Matches the same drones as QueryDroneHelper.matchesConditions. A condition that can match no
+// drone (unknown attribute or operator, a value that does not parse, a missing field) makes the
+// whole query unsatisfiable, which is known before any drone is looked at; negated with != it
+// matches every drone, as before.
+// Compiled queries are cached by their normalised text (attribute case, condition order).
+public final class CompiledQuery {
+
+    private static final int MAX_CACHED = 256;
+    private static final Map<String, CompiledQuery> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+
+    private static final CompiledQuery UNSATISFIABLE = new CompiledQuery("", List.of(), true);
+
+    private final String key;
+    private final List<Node> conditions;
+    private final boolean unsatisfiable;
+
+    private CompiledQuery(String key, List<Node> conditions, boolean unsatisfiable) {
+        this.key = key;
+        this.conditions = conditions;
+        this.unsatisfiable = unsatisfiable;
+    }
+
+    // Predicate tree nodes; test checks one drone, select finds the matching positions of an index
+    private sealed interface Node {
+        boolean test(Drone d);
+
+        int[] select(DroneColumnIndex index);
+    }
+
+    private record Const(boolean value) implements Node {
+        public boolean test(Drone d) {
+            return value;
+        }
+
+        public int[] select(DroneColumnIndex index) {
+            return value ? index.all() : new int[0];
+        }
+    }
+
+    private record Not(Node inner) implements Node {
+        public boolean test(Drone d) {
+            return !inner.test(d);
+        }
+
+        public int[] select(DroneColumnIndex index) {
+            return index.complement(inner.select(index));
+        }
+    }
+
+    private record IdEquals(String value) implements Node {
+        public boolean test(Drone d) {
+            return value.equals(d.getId());
+        }
+
+        public int[] select(DroneColumnIndex index) {
+            return index.withId(value);
+        }
+    }
+
+    private record NameEquals(String value) implements Node {
+        public boolean test(Drone d) {
+            return d.getName() != null && d.getName().equalsIgnoreCase(value);
+        }
+
+        public int[] select(DroneColumnIndex index) {
+            return index.withName(value);
+        }
+    }
+
+    // op is '=', '<' or '>'; flags compare as 1 / 0
+    private record Compare(Column column, char op, double value) implements Node {
+        public boolean test(Drone d) {
+            if (d.getCapability() == null) return false;
+            double v = column.value(d.getCapability());
+            return switch (op) {
+                case '<' -> v < value;
+                case '>' -> v > value;
+                default -> v == value;
+            };
+        }
+
+        public int[] select(DroneColumnIndex index) {
+            return index.range(column, op, value);
+        }
+    }
+
+    // Compiled form of the conditions, from the cache when the same query was seen before
+    public static CompiledQuery compile(List<QueryCondition> conditions) {
+        if (conditions == null) return UNSATISFIABLE;
+        String key = normalise(conditions);
+        synchronized (CACHE) {
+            CompiledQuery hit = CACHE.get(key);
+            if (hit != null) return hit;
+        }
+        CompiledQuery compiled = build(key, conditions);
+        synchronized (CACHE) {
+            CACHE.put(key, compiled);
+            Iterator<CompiledQuery> it = CACHE.values().iterator();
+            while (CACHE.size() > MAX_CACHED && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        return compiled;
+    }
+
+    // Normalised text of the conditions; equal keys select the same drones
+    public String key() {
+        return key;
+    }
+
+    // True if no drone can match, so the drones need not be fetched
+    public boolean isUnsatisfiable() {
+        return unsatisfiable;
+    }
+
+    public boolean matches(Drone d) {
+        if (unsatisfiable || d == null) return false;
+        for (Node n : conditions) if (!n.test(d)) return false;
+        return true;
+    }
+
+    // Ids of the matching drones, in snapshot order, resolved through the column index
+    public List<String> matchingIds(DroneColumnIndex index) {
+        if (unsatisfiable) return List.of();
+        int[] positions;
+        if (conditions.isEmpty()) {
+            positions = index.all();
+        } else {
+            List<int[]> selections = new ArrayList<>(conditions.size());
+            for (Node n : conditions) selections.add(n.select(index));
+            positions = DroneColumnIndex.intersect(selections);
+        }
+        List<String> out = new ArrayList<>(positions.length);
+        for (int p : positions) out.add(index.idAt(p));
+        return out;
+    }
+
+    private static CompiledQuery build(String key, List<QueryCondition> conditions) {
+        List<Node> nodes = new ArrayList<>();
+        for (QueryCondition c : conditions) {
+            Node n = c == null ? new Const(false) : condition(c);
+            if (n instanceof Const k) {
+                if (!k.value()) return UNSATISFIABLE;
+                continue;
+            }
+            nodes.add(n);
+        }
+        return new CompiledQuery(key, List.copyOf(nodes), false);
+    }
+
+    private static Node condition(QueryCondition c) {
+        String attr = c.getAttribute() == null ? null : c.getAttribute().toLowerCase(Locale.ROOT);
+        String op = c.getOperator();
+        String val = c.getValue();
+        if (attr == null || op == null) return new Const(false);
+        return switch (op) {
+            case "=" -> equalsNode(attr, val);
+            case "!=" -> {
+                Node eq = equalsNode(attr, val);
+                yield eq instanceof Const k ? new Const(!k.value()) : new Not(eq);
+            }
+            case "<", ">" -> {
+                Column f = column(attr);
+                Double v = parseDouble(val);
+                yield f == null || v == null ? new Const(false) : new Compare(f, op.charAt(0), v);
+            }
+            default -> new Const(false);
+        };
+    }
+
+    // Same comparison as QueryDroneHelper.matches
+    private static Node equalsNode(String attr, String val) {
+        switch (attr) {
+            case "id":
+                return val == null ? new Const(false) : new IdEquals(val);
+            case "name":
+                return val == null ? new Const(false) : new NameEquals(val);
+            case "cooling":
+                return new Compare(Column.COOLING, '=', Boolean.parseBoolean(val) ? 1 : 0);
+            case "heating":
+                return new Compare(Column.HEATING, '=', Boolean.parseBoolean(val) ? 1 : 0);
+            case "maxmoves": {
+                // Whole number only, as Integer.parseInt
+                try {
+                    return new Compare(Column.MAXMOVES, '=', Integer.parseInt(val));
+                } catch (NumberFormatException e) {
+                    return new Const(false);
+                }
+            }
+            default: {
+                Column f = column(attr);
+                Double v = parseDouble(val);
+                return f == null || v == null ? new Const(false) : new Compare(f, '=', v);
+            }
+        }
+    }
+
+    // Numeric attributes (the ones < and > apply to)
+    private static Column column(String attr) {
+        return switch (attr) {
+            case "capacity" -> Column.CAPACITY;
+            case "maxmoves" -> Column.MAXMOVES;
+            case "costpermove" -> Column.COSTPERMOVE;
+            case "costinitial" -> Column.COSTINITIAL;
+            case "costfinal" -> Column.COSTFINAL;
+            default -> null;
+        };
+    }
+
+    private static Double parseDouble(String s) {
+        if (s == null) return null;
+        try { return Double.parseDouble(s); }
+        catch (NumberFormatException e) { return null; }
+    }
+
+    // Cache key: attribute lower-cased, conditions sorted (they are and-ed), fields length-prefixed
+    private static String normalise(List<QueryCondition> conditions) {
+        List<String> parts = new ArrayList<>(conditions.size());
+        for (QueryCondition c : conditions) {
+            if (c == null) {
+                parts.add("-");
+                continue;
+            }
+            String attr = c.getAttribute() == null ? null : c.getAttribute().toLowerCase(Locale.ROOT);
+            parts.add(part(attr) + part(c.getOperator()) + part(c.getValue()));
+        }
+        Collections.sort(parts);
+        return String.join("&", parts);
+    }
+
+    private static String part(String s) {
+        return s == null ? "~" : s.length() + ":" + s;
+    }
+}
@@ -0,0 +1,111 @@
+package uk.ac.ed.acp.cw2.utility;
+
+import uk.ac.ed.acp.cw2.data.*;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+// Dated records of later days planned ahead, one day per task, while the planner works through
+// the days in order. A day's dated records can only join flights of their own day or undated
+// ("anytime") flights, and the earlier days' flights are all closed by its first record, so
+// while no undated flight is active the planner can adopt the day's flights as planned here.
+// Once an undated flight exists the remaining days are planned in order as before. The first
+// anytime record that opens a flight creates one and throws away every day planned ahead, so
+// requests with anytime records are not speculated on at all.
+//
+// openNewFlight sorts the service points by distance in place and ties keep the previous order,
+// so speculation is only used when no record has two service points at the same distance.
+//
+// The days run on the shared plan workers as SharedTask: a day no worker has started by the time
+// the planner reaches it is planned on the planner's own thread, so busy workers cost no more
+// than sequential planning.
+public class DaySpeculation {
+
+    // Flights left active after a day's dated records, or failed if one could not be assigned
+    public record DayPlan(List<FlightBuilder> active, boolean failed) {
+    }
+
+    private final Map<LocalDate, SharedTask<DayPlan>> days = new HashMap<>();
+    private final CancellationToken parent;
+    private final CancellationToken token;
+
+    private DaySpeculation(CancellationToken parent) {
+        this.parent = parent;
+        this.token = parent.child();
+    }
+
+    // Whether there are later days to plan ahead, no anytime record can make the planner drop
+    // them, and their result cannot depend on the day order
+    public static boolean worthwhile(List<LocalDate> orderedDays, List<MedDispatchRec> recs,
+                                     List<ServicePoint> servicePts) {
+        if (orderedDays.size() < 2) return false;
+        for (MedDispatchRec rec : recs) if (rec.getDate() == null) return false;
+        double[] dist = new double[servicePts.size()];
+        for (MedDispatchRec rec : recs) {
+            for (int i = 0; i < dist.length; i++)
+                dist[i] = GeoUtilities.distanceBetween(servicePts.get(i).getLocation(), rec.getDelivery());
+            Arrays.sort(dist);
+            for (int i = 1; i < dist.length; i++) if (dist[i] == dist[i - 1]) return false;
+        }
+        return true;
+    }
+
+    // Start planning each of the days' dated records (in planning order) on its own
+    public static DaySpeculation start(Executor workers, List<LocalDate> days, Function<LocalDate, List<MedDispatchRec>> datedRecords,
+                                       List<ServicePoint> servicePts,
+                                       Map<Integer, DroneForServicePoint> spMapDrone,
+                                       Map<String, Drone> droneById,
+                                       List<List<Coordinate>> restrictedPolys, List<BoundBox> boxes,
+                                       boolean keepPaths, boolean nearestFirst, CancellationToken parent) {
+        DaySpeculation ahead = new DaySpeculation(parent);
+        // The caller goes on sorting its list while the days are planned
+        List<ServicePoint> sps = List.copyOf(servicePts);
+        for (LocalDate day : days) {
+            List<MedDispatchRec> today = datedRecords.apply(day);
+            ahead.days.put(day, SharedTask.submit(workers, () -> ahead.planDay(day, today, sps, spMapDrone, droneById,
+                    restrictedPolys, boxes, keepPaths, nearestFirst)));
+        }
+        return ahead;
+    }
+
+    private DayPlan planDay(LocalDate day, List<MedDispatchRec> today, List<ServicePoint> servicePts,
+                            Map<Integer, DroneForServicePoint> spMapDrone, Map<String, Drone> droneById,
+                            List<List<Coordinate>> restrictedPolys, List<BoundBox> boxes, boolean keepPaths,
+                            boolean nearestFirst) {
+        // Own copy: openNewFlight sorts it in place
+        List<ServicePoint> sps = new ArrayList<>(servicePts);
+        List<FlightBuilder> active = new ArrayList<>();
+        List<FlightBuilder> finished = new ArrayList<>();
+        for (MedDispatchRec r : today) {
+            if (!DeliveryPlanner.tryAssignOrStartFlight(sps, spMapDrone, droneById, restrictedPolys, boxes,
+                    r, day, active, finished, keepPaths, token, null, nearestFirst))
+                return new DayPlan(List.of(), true);
+        }
+        return new DayPlan(active, false);
+    }
+
+    // The day's plan, planning it here if no worker has started it and otherwise waiting for it
+    // until the plan's deadline; null if the day was not planned ahead
+    public DayPlan take(LocalDate day) {
+        SharedTask<DayPlan> task = days.remove(day);
+        if (task == null) return null;
+        try {
+            return task.join(parent);
+        } catch (ExecutionException e) {
+            // Aborted with the plan itself: report the plan's reason
+            parent.throwIfCancelled();
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Stop planning the days not taken yet: drop those not started, stop the others
+    public void abandon() {
+        token.cancel(CancellationToken.REASON_UNUSED);
+        for (SharedTask<DayPlan> task : days.values()) task.cancel();
+        days.clear();
+    }
+}
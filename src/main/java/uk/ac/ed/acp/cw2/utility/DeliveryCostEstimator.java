@@ -0,0 +1,137 @@
+package uk.ac.ed.acp.cw2.utility;
+
+import uk.ac.ed.acp.cw2.data.*;
+import uk.ac.ed.acp.cw2.data.response.DeliveryCostEstimateResponse;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+// Quick per-dispatch feasibility and cost estimates without running the planner.
+// Each dispatch is treated as its own flight (out, hover, back along the same path) from the
+// nearest service point that has a drone passing QueryDroneHelper.droneMeetsRec, as
+// DeliveryPlanner.openNewFlight would choose, but with the leg length estimated instead of searched:
+// - lower bound: the larger of the straight-line bound and the service point's distance field
+//   (DistanceFieldCache), so it always holds;
+// - estimate: the larger of the lower bound and the Manhattan distance in steps. On open ground
+//   a leg found by pathBetween is never longer than the Manhattan distance and at most 2 moves
+//   shorter (checked by DroneServiceImplEstimateTest). Detours around restricted areas are only
+//   included as far as the distance field sees them, so the estimate can be low there.
+// A dispatch is only reported TOO_FAR when even the lower bounds exceed every suitable drone's
+// max moves or the max cost; the estimate only picks the drone and fills the estimated fields.
+// The full plan may combine deliveries in one flight, so its cost per delivery can be lower.
+public class DeliveryCostEstimator {
+
+    public static final String ERROR_BOUNDS = "movesLowerBound and costLowerBound always hold for a single-delivery "
+            + "flight from the given service point. On open ground each leg of the planned flight is at most "
+            + "2 moves shorter than the estimate and never longer; around restricted areas the estimate can be low. "
+            + "The full plan may share flights between deliveries, lowering the cost per delivery.";
+
+    public static final String NO_LOCATION = "no delivery location";
+    public static final String NO_DRONE = "no drone meets the requirements";
+    public static final String RESTRICTED = "delivery is in a restricted area";
+    public static final String UNREACHABLE = "delivery is unreachable";
+    public static final String TOO_FAR = "exceeds every suitable drone's max moves or the max cost";
+
+    private DeliveryCostEstimator() {
+    }
+
+    public static DeliveryCostEstimateResponse estimate(List<MedDispatchRec> recs,
+                                                        List<ServicePoint> servicePts,
+                                                        Map<Integer, DroneForServicePoint> spMapDrone,
+                                                        Map<String, Drone> droneById,
+                                                        List<List<Coordinate>> restrictedPolys,
+                                                        List<BoundBox> boxes,
+                                                        CancellationToken token) {
+        List<DeliveryCostEstimateResponse.DispatchEstimate> estimates = new ArrayList<>();
+        if (recs != null) {
+            for (MedDispatchRec rec : recs) {
+                token.throwIfCancelled();
+                if (rec != null)
+                    estimates.add(estimateOne(rec, servicePts, spMapDrone, droneById, restrictedPolys, boxes, token));
+            }
+        }
+        DeliveryCostEstimateResponse response = new DeliveryCostEstimateResponse();
+        response.setEstimates(estimates);
+        response.setErrorBounds(ERROR_BOUNDS);
+        return response;
+    }
+
+    private static DeliveryCostEstimateResponse.DispatchEstimate estimateOne(
+            MedDispatchRec rec, List<ServicePoint> servicePts,
+            Map<Integer, DroneForServicePoint> spMapDrone, Map<String, Drone> droneById,
+            List<List<Coordinate>> restrictedPolys, List<BoundBox> boxes, CancellationToken token) {
+        Coordinate target = rec.getDelivery();
+        if (target == null || rec.getRequirements() == null) return infeasible(rec, NO_LOCATION);
+        for (List<Coordinate> poly : restrictedPolys) {
+            if (GeoUtilities.isPointInRegion(target, poly)) return infeasible(rec, RESTRICTED);
+        }
+
+        List<ServicePoint> byDistance = new ArrayList<>(servicePts);
+        byDistance.sort(Comparator.comparingDouble(
+                sp -> GeoUtilities.distanceBetween(sp.getLocation(), target)));
+        String reason = NO_DRONE;
+        for (ServicePoint sp : byDistance) {
+            List<String> ids = QueryDroneHelper.feasibleDroneIdsAtSP(
+                    spMapDrone.get(sp.getId()), droneById, rec, rec.getDate());
+            if (ids.isEmpty()) continue;
+            int fieldBound = DistanceFieldCache.movesLowerBound(sp.getLocation(), target,
+                    restrictedPolys, boxes, token);
+            if (fieldBound == WavefrontDistanceField.UNREACHABLE) {
+                if (reason.equals(NO_DRONE)) reason = UNREACHABLE;
+                continue;
+            }
+
+            Coordinate from = sp.getLocation();
+            double straight = GeoUtilities.distanceBetween(from, target) / GeoUtilities.STEP;
+            double manhattan = (Math.abs(target.getLng() - from.getLng())
+                    + Math.abs(target.getLat() - from.getLat())) / GeoUtilities.STEP;
+            // A leg ends within STEP of the target, and no move is longer than STEP
+            int legLower = Math.max(fieldBound, Math.max(0, (int) Math.ceil(straight) - 1));
+            int legEstimate = Math.max(legLower, (int) Math.round(manhattan));
+            int movesLower = 2 * legLower + 1;
+            int movesEstimate = 2 * legEstimate + 1;
+
+            Double maxCost = rec.getRequirements().getMaxCost();
+            Drone best = null;
+            double bestCost = Double.MAX_VALUE;
+            for (String id : ids) {
+                var cap = droneById.get(id).getCapability();
+                // Out of reach only if no flight could make it (the planner needs cost < maxCost)
+                if (movesLower > cap.getMaxMoves()) continue;
+                double lower = cap.getCostInitial() + cap.getCostFinal() + cap.getCostPerMove() * movesLower;
+                if (maxCost != null && lower >= maxCost) continue;
+                double est = cap.getCostInitial() + cap.getCostFinal() + cap.getCostPerMove() * movesEstimate;
+                if (est < bestCost) {
+                    bestCost = est;
+                    best = droneById.get(id);
+                }
+            }
+            if (best == null) {
+                reason = TOO_FAR;
+                continue;
+            }
+            var cap = best.getCapability();
+            DeliveryCostEstimateResponse.DispatchEstimate e = new DeliveryCostEstimateResponse.DispatchEstimate();
+            e.setDeliveryId(rec.getId());
+            e.setFeasible(true);
+            e.setDroneId(best.getId());
+            e.setServicePointId(sp.getId());
+            e.setMovesLowerBound(movesLower);
+            e.setEstimatedMoves(movesEstimate);
+            e.setCostLowerBound(cap.getCostInitial() + cap.getCostFinal() + cap.getCostPerMove() * movesLower);
+            e.setEstimatedCost(bestCost);
+            return e;
+        }
+        return infeasible(rec, reason);
+    }
+
+    private static DeliveryCostEstimateResponse.DispatchEstimate infeasible(MedDispatchRec rec, String reason) {
+        DeliveryCostEstimateResponse.DispatchEstimate e = new DeliveryCostEstimateResponse.DispatchEstimate();
+        e.setDeliveryId(rec.getId());
+        e.setFeasible(false);
+        e.setReason(reason);
+        return e;
+    }
+}
@@ -50,10 +50,7 @@ public class DeliveryPlanHelper {
         for (FlightBuilder fb : finishedFlights) {
             if (fb == null) continue;
 
-            double cpm = fb.getCostPerMove();
-            double ci  = fb.getCostInitial();
-            double cf  = fb.getCostFinal();
-            double flightCost = ci + cf + fb.getStepsUsed() * cpm;
+            double flightCost = fb.getCost();
 
             totalCost += flightCost;
             totalMoves += fb.getStepsUsed();
@@ -67,9 +64,9 @@ public class DeliveryPlanHelper {
                     if (seg == null) continue;
                     CalcDeliveryPathResponse.DeliverySegment out = new CalcDeliveryPathResponse.DeliverySegment();
                     out.setDeliveryId(seg.getDeliveryId());
-                    out.setFlightPath(seg.getFlightPath() == null
+                    out.setFlightPath(seg.getPath() == null
                             ? new ArrayList<>()
-                            : new ArrayList<>(seg.getFlightPath()));
+                            : seg.getPath().toCoordinates());
                     deliveriesList.add(out);
                 }
             }
@@ -84,9 +81,48 @@ public class DeliveryPlanHelper {
         return response;
     }
 
+    // Aggregate finished flights into a summary (no paths); totals match buildDeliveryResponse
+    public static DeliveryPlanSummaryResponse buildSummaryResponse(List<FlightBuilder> finishedFlights) {
+        DeliveryPlanSummaryResponse response = new DeliveryPlanSummaryResponse();
+        List<DeliveryPlanSummaryResponse.FlightSummary> flights = new ArrayList<>();
+        double totalCost = 0.0;
+        int totalMoves = 0;
+        if (finishedFlights != null) {
+            for (FlightBuilder fb : finishedFlights) {
+                if (fb == null) continue;
+                double cost = fb.getCost();
+                totalCost += cost;
+                totalMoves += fb.getStepsUsed();
+
+                DeliveryPlanSummaryResponse.FlightSummary fs = new DeliveryPlanSummaryResponse.FlightSummary();
+                fs.setDroneId(fb.getDroneId());
+                fs.setServicePointId(fb.getServicePoint().getId());
+                List<Integer> ids = new ArrayList<>();
+                for (FlightBuilder.Segment seg : fb.getSegments())
+                    if (seg != null && seg.getDeliveryId() != null) ids.add(seg.getDeliveryId());
+                fs.setDeliveryIds(ids);
+                fs.setMoves(fb.getStepsUsed());
+                fs.setCost(cost);
+                flights.add(fs);
+            }
+        }
+        response.setTotalCost(totalCost);
+        response.setTotalMoves(totalMoves);
+        response.setFlights(flights);
+        return response;
+    }
+
     // Build a GeoJSON FeatureCollection from CalcDeliveryPathResponse.
     public static GeoJsonResponseCollection buildGeoJsonResponseCollection(
             CalcDeliveryPathResponse resp) {
+        return buildGeoJsonResponseCollection(resp, null, List.of(), List.of());
+    }
+
+    // As above, but with each drone's line simplified to the given tolerance (degrees) when it
+    // is not null, keeping clear of the restricted areas; properties report pointsRemoved.
+    public static GeoJsonResponseCollection buildGeoJsonResponseCollection(
+            CalcDeliveryPathResponse resp, Double tolerance,
+            List<List<Coordinate>> restrictedPolys, List<BoundBox> rectBoxes) {
 
         GeoJsonResponseCollection collection = new GeoJsonResponseCollection();
         List<GeoJsonResponse> features = new ArrayList<>();
@@ -114,8 +150,8 @@ public class DeliveryPlanHelper {
                 // Cross-segment dedupe: remove the first coordinate iff equal to previous segment’s last
                 if (lastPrevCoord != null) {
                     Coordinate first = raw.get(0);
-                    if (first.getLat() == lastPrevCoord.getLat() &&
-                            first.getLng() == lastPrevCoord.getLng()) {
+                    if (first.getLat().equals(lastPrevCoord.getLat()) &&
+                            first.getLng().equals(lastPrevCoord.getLng())) {
                         cleaned = raw.subList(1, raw.size());
                     } else {
                         cleaned = raw;
@@ -130,14 +166,21 @@ public class DeliveryPlanHelper {
                 lastPrevCoord = raw.get(raw.size() - 1);
             }
 
+            GeoJsonResponse.Properties props = new GeoJsonResponse.Properties();
+            props.setDroneId(dp.getDroneId());
+            if (tolerance != null) {
+                List<Coordinate> simplified =
+                        PolylineSimplifier.simplify(merged, tolerance, restrictedPolys, rectBoxes);
+                props.setPointsRemoved(merged.size() - simplified.size());
+                merged = simplified;
+            }
+
             // Convert to [[lng, lat]] list
             List<List<Double>> coords = toLngLat(merged);
 
             // Build Feature for this drone
             GeoJsonResponse feature = new GeoJsonResponse();
 
-            GeoJsonResponse.Properties props = new GeoJsonResponse.Properties();
-            props.setDroneId(dp.getDroneId());
             feature.setProperties(props);
 
             GeoJsonResponse.Geometry geom = new GeoJsonResponse.Geometry();
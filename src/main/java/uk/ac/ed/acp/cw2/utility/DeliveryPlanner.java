@@ -18,16 +18,57 @@ public class DeliveryPlanner {
             MedDispatchRec r,
             LocalDate day,
             List<FlightBuilder> active,
-            List<FlightBuilder> finished) {
+            List<FlightBuilder> finished,
+            boolean keepPaths,
+            CancellationToken token) {
+        return tryAssignOrStartFlight(servicePts, spMapDrone, droneById, restrictedPolys, boxes, r, day,
+                active, finished, keepPaths, token, null);
+    }
+
+    // With a memo (records retried on later days), outbound searches and hopeless service points
+    // found by earlier attempts are reused
+    public static boolean tryAssignOrStartFlight(
+            List<ServicePoint> servicePts,
+            Map<Integer, DroneForServicePoint> spMapDrone,
+            Map<String, Drone> droneById,
+            List<List<Coordinate>> restrictedPolys,
+            List<BoundBox> boxes,
+            MedDispatchRec r,
+            LocalDate day,
+            List<FlightBuilder> active,
+            List<FlightBuilder> finished,
+            boolean keepPaths,
+            CancellationToken token,
+            RetryMemo memo) {
+        return tryAssignOrStartFlight(servicePts, spMapDrone, droneById, restrictedPolys, boxes, r, day,
+                active, finished, keepPaths, token, memo, false);
+    }
 
+    // With nearestFirst, merges try the flights closest to the delivery first (see DispatchClusters)
+    public static boolean tryAssignOrStartFlight(
+            List<ServicePoint> servicePts,
+            Map<Integer, DroneForServicePoint> spMapDrone,
+            Map<String, Drone> droneById,
+            List<List<Coordinate>> restrictedPolys,
+            List<BoundBox> boxes,
+            MedDispatchRec r,
+            LocalDate day,
+            List<FlightBuilder> active,
+            List<FlightBuilder> finished,
+            boolean keepPaths,
+            CancellationToken token,
+            RetryMemo memo,
+            boolean nearestFirst) {
+
+        token.throwIfCancelled();
         if (!active.isEmpty()) {
             boolean merged = tryMergeFlight(r, active, finished,
-                    droneById, spMapDrone, restrictedPolys, boxes, day);
+                    droneById, spMapDrone, restrictedPolys, boxes, day, token, nearestFirst);
             if (merged) return true;
         }
 
         FlightBuilder fb = openNewFlight(servicePts, droneById, spMapDrone, r,
-                restrictedPolys, boxes, day);
+                restrictedPolys, boxes, day, keepPaths, token, memo);
         if (fb != null) {
             active.add(fb);
             return true;
@@ -40,19 +81,35 @@ public class DeliveryPlanner {
             Map<String, Drone> droneById,
             Map<Integer, DroneForServicePoint> spMapDrone,
             MedDispatchRec rec, List<List<Coordinate>> restrictedPolys,
-            List<BoundBox> boxes, LocalDate day) {
+            List<BoundBox> boxes, LocalDate day, boolean keepPaths, CancellationToken token) {
+        return openNewFlight(spCandidates, droneById, spMapDrone, rec, restrictedPolys, boxes, day,
+                keepPaths, token, null);
+    }
+
+    public static FlightBuilder openNewFlight(
+            List<ServicePoint> spCandidates,
+            Map<String, Drone> droneById,
+            Map<Integer, DroneForServicePoint> spMapDrone,
+            MedDispatchRec rec, List<List<Coordinate>> restrictedPolys,
+            List<BoundBox> boxes, LocalDate day, boolean keepPaths, CancellationToken token,
+            RetryMemo memo) {
         Coordinate target = rec.getDelivery();
         if (target == null) return null;
         spCandidates.sort(Comparator.comparingDouble(
                 sp -> GeoUtilities.distanceBetween(sp.getLocation(), target)));
         for (ServicePoint sp : spCandidates) {
+            // Known from an earlier day to fail whatever drones are available
+            if (memo != null && memo.hopeless(rec, sp, spMapDrone, droneById) != null)
+                continue;
             List<String> availableDroneIds = QueryDroneHelper.
                     feasibleDroneIdsAtSP(spMapDrone.get(sp.getId()),
                             droneById, rec, day);
             if (availableDroneIds.isEmpty())
                 continue;
-            List<Coordinate> forward = GeoUtilities.pathBetween(
-                    sp.getLocation(), target, restrictedPolys, boxes);
+            List<Coordinate> forward = (memo == null)
+                    ? outbound(sp, target, restrictedPolys, boxes, token)
+                    : memo.forward(rec, sp, () -> outbound(sp, target, restrictedPolys, boxes, token),
+                            spMapDrone, droneById);
             if (forward.isEmpty()) continue;
             int fSteps = forward.size() - 1;
             List<Coordinate> forwardWithHover = new ArrayList<Coordinate>(forward);
@@ -85,6 +142,7 @@ public class DeliveryPlanner {
                     cap.getMaxMoves(),
                     cap.getCostPerMove(),
                     cap.getCostInitial(), cap.getCostFinal(), rec);
+            fb.setKeepPaths(keepPaths);
             fb.addSegment(
                     rec.getId(),
                     forwardWithHover,
@@ -99,25 +157,64 @@ public class DeliveryPlanner {
         return null;
     }
 
+    // Path from the service point to the target, or empty if there is none
+    private static List<Coordinate> outbound(ServicePoint sp, Coordinate target,
+                                             List<List<Coordinate>> restrictedPolys, List<BoundBox> boxes,
+                                             CancellationToken token) {
+        // Skip the A* search when the service point's distance field shows the target is walled off
+        if (DistanceFieldCache.provesUnreachable(sp.getLocation(), target, restrictedPolys, boxes, token))
+            return List.of();
+        return GeoUtilities.pathBetween(sp.getLocation(), target, restrictedPolys, boxes, token);
+    }
+
+    public static boolean tryMergeFlight(MedDispatchRec rec,
+                                  List<FlightBuilder> actives, List<FlightBuilder> finished,
+                                  Map<String, Drone> droneById,
+                                  Map<Integer, DroneForServicePoint> spMapDrone,
+                                  List<List<Coordinate>> restrictedPolys,
+                                  List<BoundBox> boxes,
+                                  LocalDate day,
+                                  CancellationToken token) {
+        return tryMergeFlight(rec, actives, finished, droneById, spMapDrone, restrictedPolys, boxes, day,
+                token, false);
+    }
+
     public static boolean tryMergeFlight(MedDispatchRec rec,
                                   List<FlightBuilder> actives, List<FlightBuilder> finished,
                                   Map<String, Drone> droneById,
                                   Map<Integer, DroneForServicePoint> spMapDrone,
                                   List<List<Coordinate>> restrictedPolys,
                                   List<BoundBox> boxes,
-                                  LocalDate day) {
+                                  LocalDate day,
+                                  CancellationToken token,
+                                  boolean nearestFirst) {
 
         if (actives == null || actives.isEmpty()) {
             return false;
         }
-        ListIterator<FlightBuilder> it = actives.listIterator();
+        List<FlightBuilder> candidates = actives;
+        if (nearestFirst) {
+            // Flights of other days are closed up front, in order, before the candidates are reordered
+            for (Iterator<FlightBuilder> stale = actives.iterator(); stale.hasNext(); ) {
+                FlightBuilder fb = stale.next();
+                LocalDate fd = fb.getFlightDate();
+                if (fd == null || fd.equals(day)) continue;
+                stale.remove();
+                closeFlight(fb, finished, restrictedPolys, boxes, token);
+            }
+            candidates = DispatchClusters.nearestFirst(rec.getDelivery(), actives);
+        }
+        // Return leg lengths from this delivery, by service point id; flights from the same
+        // service point share one search
+        Map<Integer, Integer> backSteps = new HashMap<>();
+        Iterator<FlightBuilder> it = candidates.iterator();
         while (it.hasNext()) {
             // Time availability Check
             FlightBuilder fb = it.next();
             LocalDate fd = fb.getFlightDate();
             if (fd != null && !fd.equals(day)) {
                 it.remove();
-                closeFlight(fb, finished, restrictedPolys, boxes);
+                closeFlight(fb, finished, restrictedPolys, boxes, token);
                 continue;
             }
             // Time availability check and cooling/heating functionality check
@@ -130,22 +227,25 @@ public class DeliveryPlanner {
             // Capacity check
             if (rec.getRequirements().getCapacity() + fb.getCurrentLoad() > fb.getCapacity())
                 continue;
+            // Too far to go there and back even in a straight line: skip the searches
+            if (fb.getStepsUsed() + minMoves(fb.getEnd(), rec.getDelivery())
+                    + minMoves(rec.getDelivery(), fb.getServicePoint().getLocation()) > fb.getMaxMoves())
+                continue;
             // Max Step Check
-            List<Coordinate> forward = GeoUtilities.pathBetween(fb.getEnd(), rec.getDelivery(),
-                    restrictedPolys, boxes);
-            if (forward.isEmpty()) continue;
-            List<Coordinate> forwardWithHover = new ArrayList<Coordinate>(forward);
-            forwardWithHover.add(forward.getLast());
-            int fSteps = forwardWithHover.size() - 1;
+            Node forwardEnd = GeoUtilities.searchEnd(fb.getEnd(), rec.getDelivery(), restrictedPolys, boxes, token);
+            if (forwardEnd == null) continue;
+            // +1 for hover
+            int fSteps = forwardEnd.getG() + 1;
             // Early termination
             if (fSteps + fb.getStepsUsed() > fb.getMaxMoves()) {
                 continue;
             }
             // PreCheck return step and cost
-            List<Coordinate> back = GeoUtilities.pathBetween(rec.getDelivery(),
-                    fb.getServicePoint().getLocation(), restrictedPolys, boxes);
-            if (back.isEmpty()) continue;
-            int bSteps = back.size() - 1;
+            // Only the length of the return leg matters here
+            ServicePoint sp = fb.getServicePoint();
+            int bSteps = backSteps.computeIfAbsent(sp.getId(), id -> GeoUtilities.stepsBetween(
+                    rec.getDelivery(), sp.getLocation(), restrictedPolys, boxes, token));
+            if (bSteps < 0) continue;
             if (fSteps + bSteps + fb.getStepsUsed() > fb.getMaxMoves()) {
                 continue;
             }
@@ -159,6 +259,14 @@ public class DeliveryPlanner {
                 if (!DeliveryPlanHelper.withinAllMaxCosts(estForEachDelivery, existingMaxCost, 1e-12))
                     continue;
             }
+            // Summary plans only keep the end of the leg, so its points are not rebuilt
+            List<Coordinate> forwardWithHover;
+            if (fb.isKeepPaths()) {
+                forwardWithHover = PathFindingHelper.reconstruct(forwardEnd);
+                forwardWithHover.add(forwardEnd.getP());
+            } else {
+                forwardWithHover = List.of(forwardEnd.getP());
+            }
             var req = rec.getRequirements();
             fb.addSegment(rec.getId(), forwardWithHover, fSteps, req.getCapacity(),
                     req.getMaxCost(), req.isCooling(), req.isHeating());
@@ -167,22 +275,41 @@ public class DeliveryPlanner {
         return false;
     }
 
+    // Lower bound on the moves of a path between the points: each move covers STEP and a path
+    // stops within STEP of its goal (one move spare for rounding)
+    private static int minMoves(Coordinate from, Coordinate to) {
+        return Math.max(0, (int) Math.floor(GeoUtilities.distanceBetween(from, to) / GeoUtilities.STEP) - 1);
+    }
+
     public static void closeFlight(FlightBuilder fb, List<FlightBuilder> finished,
-                            List<List<Coordinate>> restrictedPolys, List<BoundBox> boxes) {
+                            List<List<Coordinate>> restrictedPolys, List<BoundBox> boxes,
+                            CancellationToken token) {
+        Coordinate home = fb.getServicePoint().getLocation();
         // Same path to return if only one delivery
         // remove reversed first for hover
         if (fb.getDeliveryCount() == 1) {
-            List<Coordinate> forwardWithHover = fb.getSegments().getFirst().getFlightPath();
-            List<Coordinate> back = new ArrayList<Coordinate>(forwardWithHover);
-            back.removeLast();
-            back = back.reversed();
-            fb.addReturn(back, (back.size() - 1));
-            finished.add(fb);
-        } else {
-            List<Coordinate> back = GeoUtilities.pathBetween(fb.getEnd(),
-                    fb.getServicePoint().getLocation(), restrictedPolys, boxes);
-            fb.addReturn(back, (back.size() - 1));
+            if (fb.isKeepPaths()) {
+                CompactPath forwardWithHover = fb.getSegments().getFirst().getPath();
+                CompactPath back = forwardWithHover.prefix(forwardWithHover.size() - 1).reversed();
+                fb.addReturn(back, home, back.moves());
+            } else {
+                // Outbound steps without the hover
+                fb.addReturn(home, fb.getStepsUsed() - 1);
+            }
             finished.add(fb);
+            return;
+        }
+        // Summary plans only need the length of the return leg
+        if (!fb.isKeepPaths()) {
+            int steps = GeoUtilities.stepsBetween(fb.getEnd(), home, restrictedPolys, boxes, token);
+            if (steps >= 0) {
+                fb.addReturn(home, steps);
+                finished.add(fb);
+                return;
+            }
         }
+        List<Coordinate> back = GeoUtilities.pathBetween(fb.getEnd(), home, restrictedPolys, boxes, token);
+        fb.addReturn(back, (back.size() - 1));
+        finished.add(fb);
     }
-}
\ No newline at end of file
+}
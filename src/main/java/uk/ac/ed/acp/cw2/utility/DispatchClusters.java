@@ -0,0 +1,72 @@
+package uk.ac.ed.acp.cw2.utility;
+
+import uk.ac.ed.acp.cw2.data.Coordinate;
+import uk.ac.ed.acp.cw2.data.FlightBuilder;
+import uk.ac.ed.acp.cw2.data.MedDispatchRec;
+import uk.ac.ed.acp.cw2.data.ServicePoint;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Spatial grouping of dispatches before they are assigned, so that consecutive records tend to
+// land in the same flight:
+//   - records are grouped by their nearest service point (in service point order)
+//   - within a group, by grid bucket of CELL degrees, rows bottom to top, alternating direction
+//     so that consecutive buckets are neighbours
+//   - within a bucket, in the original order
+// Merges then try the active flights whose current end is closest to the delivery first.
+public class DispatchClusters {
+
+    // About 13 moves across
+    static final double CELL = 0.002;
+
+    private DispatchClusters() {
+    }
+
+    // The records in cluster order; records without a delivery point keep their order at the end
+    public static List<MedDispatchRec> order(List<MedDispatchRec> recs, List<ServicePoint> servicePts) {
+        if (recs.size() < 2) return recs;
+        List<Keyed> keyed = new ArrayList<>(recs.size());
+        for (MedDispatchRec rec : recs) keyed.add(key(rec, servicePts));
+        // Stable: ties keep the original order
+        keyed.sort(Comparator.comparingInt(Keyed::group)
+                .thenComparingLong(Keyed::row)
+                .thenComparingLong(Keyed::column));
+        List<MedDispatchRec> out = new ArrayList<>(recs.size());
+        for (Keyed k : keyed) out.add(k.rec());
+        return out;
+    }
+
+    // The flights in the order merges should try them: closest end to the delivery first
+    public static List<FlightBuilder> nearestFirst(Coordinate delivery, List<FlightBuilder> flights) {
+        if (flights.size() < 2 || delivery == null) return flights;
+        List<FlightBuilder> out = new ArrayList<>(flights);
+        out.sort(Comparator.comparingDouble(fb -> GeoUtilities.distanceBetween(fb.getEnd(), delivery)));
+        return out;
+    }
+
+    private record Keyed(MedDispatchRec rec, int group, long row, long column) {
+    }
+
+    private static Keyed key(MedDispatchRec rec, List<ServicePoint> servicePts) {
+        Coordinate target = rec.getDelivery();
+        if (target == null) return new Keyed(rec, Integer.MAX_VALUE, 0, 0);
+        int group = servicePts.size();
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < servicePts.size(); i++) {
+            Coordinate loc = servicePts.get(i).getLocation();
+            if (loc == null) continue;
+            double d = GeoUtilities.distanceBetween(loc, target);
+            if (d < best) {
+                best = d;
+                group = i;
+            }
+        }
+        long row = (long) Math.floor(target.getLat() / CELL);
+        long column = (long) Math.floor(target.getLng() / CELL);
+        // Odd rows right to left
+        if (Math.floorMod(row, 2) == 1) column = -column;
+        return new Keyed(rec, group, row, column);
+    }
+}
@@ -0,0 +1,140 @@
+package uk.ac.ed.acp.cw2.utility;
+
+import uk.ac.ed.acp.cw2.data.Coordinate;
+import uk.ac.ed.acp.cw2.data.Drone;
+import uk.ac.ed.acp.cw2.data.MedDispatchRec;
+import uk.ac.ed.acp.cw2.data.ServicePoint;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// What queryAvailableDrones needs from a dispatch list, worked out once per request instead of
+// once per drone: total and largest load, cooling/heating, the tightest maxCost, the dates and
+// times to be available at, and per home point the round-trip moves of the max-cost estimate.
+// Gives the same answers as the per-drone checks of QueryDroneHelper.canHandleAll.
+// Safe to share between threads evaluating different drones.
+public class DispatchSummary {
+
+    private final List<MedDispatchRec> dispatches;
+    private final double total;
+    private final double largest;
+    private final boolean needCooling;
+    private final boolean needHeating;
+    private final Double tightestMaxCost;       // null if no record has a max cost
+    private final boolean missingTarget;        // a record without a delivery point
+    private final Set<LocalDate> dateOnly;
+    private final Set<DateTime> timed;
+    private final Map<ServicePoint, Double> roundTrips = new ConcurrentHashMap<>();
+
+    // A date and a time a drone must be available at
+    record DateTime(LocalDate date, LocalTime time) {
+    }
+
+    private DispatchSummary(List<MedDispatchRec> dispatches, double total, double largest,
+                            boolean needCooling, boolean needHeating, Double tightestMaxCost,
+                            boolean missingTarget, Set<LocalDate> dateOnly, Set<DateTime> timed) {
+        this.dispatches = dispatches;
+        this.total = total;
+        this.largest = largest;
+        this.needCooling = needCooling;
+        this.needHeating = needHeating;
+        this.tightestMaxCost = tightestMaxCost;
+        this.missingTarget = missingTarget;
+        this.dateOnly = dateOnly;
+        this.timed = timed;
+    }
+
+    // Summary of a non-empty dispatch list, or null if no drone can handle it
+    // (a record without a required capacity, or with a time but no date)
+    public static DispatchSummary of(List<MedDispatchRec> dispatches) {
+        double total = 0.0;
+        double largest = Double.NEGATIVE_INFINITY;
+        boolean needCooling = false, needHeating = false, missingTarget = false;
+        Double tightest = null;
+        // Distinct (date, time) pairs; only timed ones need the exact window check
+        Set<LocalDate> dateOnly = new HashSet<>();
+        Set<DateTime> timed = new LinkedHashSet<>();
+        for (MedDispatchRec rec : dispatches) {
+            var req = rec.getRequirements();
+            if (req == null || req.getCapacity() == null) return null;
+            total += req.getCapacity();
+            largest = Math.max(largest, req.getCapacity());
+            needCooling |= req.isCooling();
+            needHeating |= req.isHeating();
+            if (req.getMaxCost() != null && (tightest == null || req.getMaxCost() < tightest))
+                tightest = req.getMaxCost();
+            missingTarget |= rec.getDelivery() == null;
+            LocalDate date = rec.getDate();
+            LocalTime time = rec.getTime();
+            if (date == null && time == null) continue;
+            // A time without a date is never available
+            if (date == null) return null;
+            if (time == null) dateOnly.add(date);
+            else timed.add(new DateTime(date, time));
+        }
+        return new DispatchSummary(dispatches, total, largest, needCooling, needHeating, tightest,
+                missingTarget, dateOnly, timed);
+    }
+
+    // Capacity a drone needs for the whole list
+    public double requiredCapacity() {
+        return Math.max(largest, total);
+    }
+
+    public boolean needsCooling() {
+        return needCooling;
+    }
+
+    public boolean needsHeating() {
+        return needHeating;
+    }
+
+    public Set<LocalDate> dateOnly() {
+        return dateOnly;
+    }
+
+    Set<DateTime> timed() {
+        return timed;
+    }
+
+    // Whether the drone is available at every timed record
+    public boolean withinWindows(AvailabilityCalendar calendar) {
+        for (DateTime dt : timed) {
+            if (!calendar.isAvailableAt(dt.date(), dt.time())) return false;
+        }
+        return true;
+    }
+
+    // QueryDroneHelper.respectsMaxCost, with the base-to-target distances summed once per home point
+    public boolean respectsMaxCost(Drone.DroneCapability cap, List<ServicePoint> homePoints) {
+        if (tightestMaxCost == null) return true;
+        double bestMovesUpperBound = Double.POSITIVE_INFINITY;
+        for (ServicePoint sp : homePoints) {
+            if (sp == null || sp.getLocation() == null) continue;
+            if (missingTarget) return false;
+            double moves = roundTrips.computeIfAbsent(sp, this::roundTripMoves);
+            if (moves < bestMovesUpperBound) bestMovesUpperBound = moves;
+        }
+        if (bestMovesUpperBound == Double.POSITIVE_INFINITY) return false;
+        double fixed = cap.getCostInitial() + cap.getCostFinal();
+        double moveCount = Math.floor(bestMovesUpperBound);
+        double totalCostApprox = fixed + moveCount * cap.getCostPerMove();
+        double avgCostPerDelivery = totalCostApprox / dispatches.size();
+        return !(avgCostPerDelivery > tightestMaxCost);
+    }
+
+    // Base -> target -> base for every record, summed in record order as respectsMaxCost does
+    private double roundTripMoves(ServicePoint sp) {
+        Coordinate base = sp.getLocation();
+        double moves = 0.0;
+        for (MedDispatchRec rec : dispatches) {
+            double dist = GeoUtilities.distanceBetween(base, rec.getDelivery());
+            double roundTripMoves = 2.0 * (dist / GeoUtilities.STEP);
+            roundTripMoves += 1.0;
+            moves += roundTripMoves;
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,89 @@
+package uk.ac.ed.acp.cw2.utility;
+
+import uk.ac.ed.acp.cw2.data.BoundBox;
+import uk.ac.ed.acp.cw2.data.Coordinate;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Wavefront distance fields from fixed sources (service points), shared across plans
+// over the same restricted areas. Each field covers the A* search box of its source,
+// so it can prove a target unreachable before a full A* search is spent on it.
+public class DistanceFieldCache {
+
+    // movesLowerBound result when the field gives no bound
+    public static final int UNKNOWN = -2;
+
+    // Total grid cells kept across all cached fields (~4 bytes each)
+    private static final long MAX_CELLS = 4_000_000L;
+
+    private static final Map<String, WavefrontDistanceField> CACHE =
+            new LinkedHashMap<>(16, 0.75f, true);
+    private static long cachedCells;
+
+    private DistanceFieldCache() {
+    }
+
+    // Field flooded from the source over its search box, or null if it is too large to keep
+    public static WavefrontDistanceField fieldFrom(Coordinate source,
+                                                   List<List<Coordinate>> rects,
+                                                   List<BoundBox> boxes,
+                                                   CancellationToken token) {
+        String key = PathFindingHelper.geometryKey(rects) + "|"
+                + source.getLng() + "," + source.getLat();
+        synchronized (CACHE) {
+            WavefrontDistanceField hit = CACHE.get(key);
+            if (hit != null) return hit;
+        }
+        BoundBox bounds = PathFindingHelper.computeGlobalBoundBox(source, source, boxes);
+        if (cellsOf(bounds) > MAX_CELLS / 4) return null;
+        WavefrontDistanceField field = WavefrontDistanceField.flood(source, bounds, rects, token);
+        synchronized (CACHE) {
+            if (CACHE.put(key, field) == null) cachedCells += field.cellCount();
+            Iterator<WavefrontDistanceField> it = CACHE.values().iterator();
+            while (cachedCells > MAX_CELLS && it.hasNext()) {
+                cachedCells -= it.next().cellCount();
+                it.remove();
+            }
+        }
+        return field;
+    }
+
+    // True only if pathBetween(source, target, ...) is certain to find no path:
+    // the target lies in the same search box and no cell near it is reachable.
+    public static boolean provesUnreachable(Coordinate source, Coordinate target,
+                                            List<List<Coordinate>> rects,
+                                            List<BoundBox> boxes,
+                                            CancellationToken token) {
+        return movesLowerBound(source, target, rects, boxes, token) == WavefrontDistanceField.UNREACHABLE;
+    }
+
+    // Lower bound on the moves pathBetween(source, target, ...) needs, read from the source's field:
+    // UNREACHABLE if it is certain to find no path, UNKNOWN if the field cannot tell
+    // (no restricted areas, target outside the source's search box, or field too large).
+    public static int movesLowerBound(Coordinate source, Coordinate target,
+                                      List<List<Coordinate>> rects,
+                                      List<BoundBox> boxes,
+                                      CancellationToken token) {
+        // pathBetween only treats polygons as obstacles when their boxes are given
+        if (rects == null || rects.isEmpty() || boxes == null || boxes.size() != rects.size())
+            return UNKNOWN;
+        BoundBox own = PathFindingHelper.computeGlobalBoundBox(source, source, boxes);
+        BoundBox search = PathFindingHelper.computeGlobalBoundBox(source, target, boxes);
+        if (!sameBox(own, search)) return UNKNOWN;
+        WavefrontDistanceField field = fieldFrom(source, rects, boxes, token);
+        return field == null ? UNKNOWN : field.lowerBound(target);
+    }
+
+    private static boolean sameBox(BoundBox a, BoundBox b) {
+        return a.getMin().getLng().equals(b.getMin().getLng()) && a.getMin().getLat().equals(b.getMin().getLat())
+                && a.getMax().getLng().equals(b.getMax().getLng()) && a.getMax().getLat().equals(b.getMax().getLat());
+    }
+
+    private static double cellsOf(BoundBox b) {
+        return ((b.getMax().getLng() - b.getMin().getLng()) / GeoUtilities.STEP + 1)
+                * ((b.getMax().getLat() - b.getMin().getLat()) / GeoUtilities.STEP + 1);
+    }
+}
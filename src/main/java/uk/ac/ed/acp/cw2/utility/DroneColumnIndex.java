@@ -0,0 +1,248 @@
+package uk.ac.ed.acp.cw2.utility;
+
+import uk.ac.ed.acp.cw2.data.Drone;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToDoubleFunction;
+
+// Column index over one drone snapshot for the query endpoints. Drones are identified by their
+// position in the fetched list; every selection is a sorted array of positions, so results come
+// out in list order (as the old stream filters did).
+//   - one sorted primitive column per capability attribute: ranges and equality by binary search
+//   - hash indexes for id and name (case-insensitive)
+// The last index is kept and reused while the fetched drones are unchanged; each rebuild gets a
+// new version number, which identifies the snapshot. The drones are fetched anew for every
+// request and there is no cheaper identity for a fetch, so telling whether they changed is a
+// field-by-field pass over the fleet: a request still costs time linear in the fleet size. What
+// the index saves is the repeated work per condition, and the rebuild (sorting every column).
+public class DroneColumnIndex {
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+    private static volatile DroneColumnIndex last;
+
+    private static final int[] NONE = new int[0];
+
+    // Capability attributes; flags are stored as 1 / 0
+    public enum Column {
+        COOLING(c -> c.isCooling() ? 1 : 0),
+        HEATING(c -> c.isHeating() ? 1 : 0),
+        CAPACITY(Drone.DroneCapability::getCapacity),
+        MAXMOVES(Drone.DroneCapability::getMaxMoves),
+        COSTPERMOVE(Drone.DroneCapability::getCostPerMove),
+        COSTINITIAL(Drone.DroneCapability::getCostInitial),
+        COSTFINAL(Drone.DroneCapability::getCostFinal);
+
+        private final ToDoubleFunction<Drone.DroneCapability> accessor;
+
+        Column(ToDoubleFunction<Drone.DroneCapability> accessor) {
+            this.accessor = accessor;
+        }
+
+        public double value(Drone.DroneCapability c) {
+            return accessor.applyAsDouble(c);
+        }
+    }
+
+    private final long version;
+    private final int size;
+    private final String[] ids;                 // per position
+    private final String[] names;               // per position
+    private final double[][] raw;               // per column, per position (NaN without capability)
+    private final double[][] sorted;            // per column, ascending, drones without a value left out
+    private final int[][] order;                // per column, the positions of sorted
+    private final Map<String, int[]> byId = new HashMap<>();
+    private final Map<String, int[]> byName = new HashMap<>();
+
+    private DroneColumnIndex(List<Drone> drones, long version) {
+        this.version = version;
+        this.size = drones.size();
+        this.ids = new String[size];
+        this.names = new String[size];
+        Column[] columns = Column.values();
+        this.raw = new double[columns.length][size];
+        this.sorted = new double[columns.length][];
+        this.order = new int[columns.length][];
+
+        Map<String, List<Integer>> idLists = new HashMap<>();
+        Map<String, List<Integer>> nameLists = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            Drone d = drones.get(i);
+            Drone.DroneCapability cap = d == null ? null : d.getCapability();
+            for (Column c : columns) raw[c.ordinal()][i] = cap == null ? Double.NaN : c.value(cap);
+            if (d == null) continue;
+            ids[i] = d.getId();
+            names[i] = d.getName();
+            if (d.getId() != null) idLists.computeIfAbsent(d.getId(), k -> new ArrayList<>()).add(i);
+            if (d.getName() != null) nameLists.computeIfAbsent(foldCase(d.getName()), k -> new ArrayList<>()).add(i);
+        }
+        idLists.forEach((k, v) -> byId.put(k, v.stream().mapToInt(Integer::intValue).toArray()));
+        nameLists.forEach((k, v) -> byName.put(k, v.stream().mapToInt(Integer::intValue).toArray()));
+
+        // NaN never compares true, so those drones are left out of the sorted columns
+        for (Column c : columns) {
+            double[] values = raw[c.ordinal()];
+            int[] pos = new int[size];
+            int n = 0;
+            for (int i = 0; i < size; i++) if (!Double.isNaN(values[i])) pos[n++] = i;
+            int[] ord = Arrays.stream(pos, 0, n).boxed()
+                    .sorted(Comparator.comparingDouble(i -> values[i]))
+                    .mapToInt(Integer::intValue).toArray();
+            double[] col = new double[n];
+            for (int k = 0; k < n; k++) col[k] = values[ord[k]];
+            sorted[c.ordinal()] = col;
+            order[c.ordinal()] = ord;
+        }
+    }
+
+    // Index of the given snapshot; the previous one if the drones have not changed (one pass to compare)
+    public static DroneColumnIndex of(List<Drone> drones) {
+        List<Drone> list = drones == null ? List.of() : drones;
+        DroneColumnIndex cached = last;
+        if (cached != null && cached.sameDrones(list)) return cached;
+        DroneColumnIndex built = new DroneColumnIndex(list, VERSIONS.incrementAndGet());
+        last = built;
+        return built;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String idAt(int position) {
+        return ids[position];
+    }
+
+    // Every position
+    public int[] all() {
+        int[] out = new int[size];
+        for (int i = 0; i < size; i++) out[i] = i;
+        return out;
+    }
+
+    // Positions of the drones with this id
+    public int[] withId(String id) {
+        return byId.getOrDefault(id, NONE);
+    }
+
+    // Positions of the drones whose name equals this one ignoring case
+    public int[] withName(String name) {
+        int[] candidates = byName.getOrDefault(foldCase(name), NONE);
+        int[] out = new int[candidates.length];
+        int n = 0;
+        for (int p : candidates) if (names[p].equalsIgnoreCase(name)) out[n++] = p;
+        return n == out.length ? candidates : Arrays.copyOf(out, n);
+    }
+
+    // Positions whose column value is below (op '<'), above ('>') or equal to ('=') the value
+    public int[] range(Column column, char op, double value) {
+        if (Double.isNaN(value)) return NONE;
+        double[] col = sorted[column.ordinal()];
+        int from, to;
+        switch (op) {
+            case '<' -> {
+                from = 0;
+                to = firstNotBelow(col, value);
+            }
+            case '>' -> {
+                from = firstAbove(col, value);
+                to = col.length;
+            }
+            default -> {
+                from = firstNotBelow(col, value);
+                to = firstAbove(col, value);
+            }
+        }
+        if (from >= to) return NONE;
+        int[] out = Arrays.copyOfRange(order[column.ordinal()], from, to);
+        Arrays.sort(out);
+        return out;
+    }
+
+    // Positions not in the sorted selection
+    public int[] complement(int[] selection) {
+        int[] out = new int[size - selection.length];
+        int n = 0, k = 0;
+        for (int i = 0; i < size; i++) {
+            if (k < selection.length && selection[k] == i) k++;
+            else out[n++] = i;
+        }
+        return out;
+    }
+
+    // Positions in all of the sorted selections, smallest first so the work shrinks early
+    public static int[] intersect(List<int[]> selections) {
+        List<int[]> bySize = new ArrayList<>(selections);
+        bySize.sort(Comparator.comparingInt(s -> s.length));
+        int[] acc = bySize.getFirst();
+        for (int s = 1; s < bySize.size() && acc.length > 0; s++) {
+            int[] other = bySize.get(s);
+            int[] out = new int[acc.length];
+            int n = 0, i = 0, j = 0;
+            while (i < acc.length && j < other.length) {
+                if (acc[i] < other[j]) i++;
+                else if (acc[i] > other[j]) j++;
+                else {
+                    out[n++] = acc[i];
+                    i++;
+                    j++;
+                }
+            }
+            acc = Arrays.copyOf(out, n);
+        }
+        return acc;
+    }
+
+    // First index whose value is not below v (plain < so that -0.0 and 0.0 are equal)
+    private static int firstNotBelow(double[] col, double v) {
+        int lo = 0, hi = col.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (col[mid] < v) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // First index whose value is above v
+    private static int firstAbove(double[] col, double v) {
+        int lo = 0, hi = col.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (col[mid] <= v) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // Whether the drones hold exactly the values this index was built from, in the same order
+    private boolean sameDrones(List<Drone> drones) {
+        if (drones.size() != size) return false;
+        Column[] columns = Column.values();
+        for (int i = 0; i < size; i++) {
+            Drone d = drones.get(i);
+            if (d == null) {
+                if (ids[i] != null || names[i] != null || !Double.isNaN(raw[0][i])) return false;
+                continue;
+            }
+            if (!Objects.equals(d.getId(), ids[i]) || !Objects.equals(d.getName(), names[i])) return false;
+            Drone.DroneCapability cap = d.getCapability();
+            for (Column c : columns) {
+                double v = cap == null ? Double.NaN : c.value(cap);
+                if (Double.doubleToLongBits(v) != Double.doubleToLongBits(raw[c.ordinal()][i])) return false;
+            }
+        }
+        return true;
+    }
+
+    // Key under which names equal ignoring case collide (equalsIgnoreCase compares upper, then lower case)
+    private static String foldCase(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        s.codePoints().forEach(cp -> sb.appendCodePoint(Character.toLowerCase(Character.toUpperCase(cp))));
+        return sb.toString();
+    }
+}
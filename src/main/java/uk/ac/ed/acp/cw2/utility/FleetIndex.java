@@ -0,0 +1,115 @@
+package uk.ac.ed.acp.cw2.utility;
+
+import uk.ac.ed.acp.cw2.data.*;
+
+import java.time.LocalDate;
+import java.util.*;
+
+// Bitsets over the fleet for queryAvailableDrones, one bit per drone (its position in the list):
+// cooling, heating, each weekday with a window, and each 30-minute bucket of the week that a
+// window touches, plus the drones ordered by capacity. A dispatch list's requirements are
+// intersected first; only the drones left get the exact checks (time windows, max cost),
+// against a DispatchSummary built once per call.
+// Gives the same drones as QueryDroneHelper.canHandleAll.
+public class FleetIndex {
+
+    private static final long BUCKET_NANOS = 30L * 60 * 1_000_000_000L;
+    private static final int BUCKETS_PER_DAY = 48;
+
+    private final List<Drone> drones;
+    private final List<List<ServicePoint>> homePoints;   // per drone
+    private final AvailabilityCalendar[] calendars;      // per drone, windows of all its service points
+    private final BitSet usable = new BitSet();          // has a capability and a service point
+    private final BitSet cooling = new BitSet();
+    private final BitSet heating = new BitSet();
+    private final BitSet[] days = new BitSet[7];
+    private final BitSet[] buckets = new BitSet[7 * BUCKETS_PER_DAY];
+    private final int[] byCapacity;                      // usable drones, ascending capacity
+    private final double[] capacities;                   // their capacities, same order
+
+    private FleetIndex(List<Drone> drones, Map<String, List<DroneForServicePoint.Availability>> availability,
+                       Map<String, List<ServicePoint>> homePointIndex) {
+        this.drones = drones;
+        int n = drones.size();
+        this.homePoints = new ArrayList<>(n);
+        this.calendars = new AvailabilityCalendar[n];
+        for (int d = 0; d < 7; d++) days[d] = new BitSet(n);
+        for (int b = 0; b < buckets.length; b++) buckets[b] = new BitSet(n);
+
+        for (int i = 0; i < n; i++) {
+            Drone drone = drones.get(i);
+            String id = drone == null ? null : drone.getId();
+            List<ServicePoint> homes = homePointIndex.getOrDefault(id, Collections.emptyList());
+            homePoints.add(homes);
+            AvailabilityCalendar cal = AvailabilityCalendar.compile(
+                    availability.getOrDefault(id, Collections.emptyList()));
+            calendars[i] = cal;
+            if (drone == null || drone.getCapability() == null || homes.isEmpty()) continue;
+            usable.set(i);
+            if (drone.getCapability().isCooling()) cooling.set(i);
+            if (drone.getCapability().isHeating()) heating.set(i);
+            for (int d = 0; d < 7; d++) {
+                if (!cal.hasDay(d)) continue;
+                days[d].set(i);
+                long[] w = cal.windows(d);
+                for (int k = 0; k < w.length; k += 2) {
+                    int first = (int) (w[k] / BUCKET_NANOS);
+                    int last = (int) (w[k + 1] / BUCKET_NANOS);
+                    for (int b = first; b <= last; b++) buckets[d * BUCKETS_PER_DAY + b].set(i);
+                }
+            }
+        }
+
+        this.byCapacity = usable.stream().boxed()
+                .sorted(Comparator.comparingDouble(i -> drones.get(i).getCapability().getCapacity()))
+                .mapToInt(Integer::intValue).toArray();
+        this.capacities = new double[byCapacity.length];
+        for (int k = 0; k < byCapacity.length; k++)
+            capacities[k] = drones.get(byCapacity[k]).getCapability().getCapacity();
+    }
+
+    public static FleetIndex build(List<Drone> drones, List<DroneForServicePoint> dfsp,
+                                   List<ServicePoint> servicePoints) {
+        return new FleetIndex(drones == null ? List.of() : drones,
+                QueryDroneHelper.buildAvailabilityIndex(dfsp),
+                QueryDroneHelper.buildHomePointIndex(dfsp, servicePoints));
+    }
+
+    // Ids of the drones that can handle every dispatch, sorted
+    public List<String> availableFor(List<MedDispatchRec> dispatches) {
+        DispatchSummary summary = DispatchSummary.of(dispatches);
+        if (summary == null) return List.of();
+
+        BitSet cand = atLeastCapacity(summary.requiredCapacity());
+        if (summary.needsCooling()) cand.and(cooling);
+        if (summary.needsHeating()) cand.and(heating);
+        for (LocalDate date : summary.dateOnly()) cand.and(days[date.getDayOfWeek().ordinal()]);
+        for (DispatchSummary.DateTime dt : summary.timed()) {
+            int b = (int) (dt.time().toNanoOfDay() / BUCKET_NANOS);
+            cand.and(buckets[dt.date().getDayOfWeek().ordinal() * BUCKETS_PER_DAY + b]);
+        }
+
+        // Exact checks (time windows, max cost) for the candidates left
+        List<String> out = new ArrayList<>();
+        for (int i = cand.nextSetBit(0); i >= 0; i = cand.nextSetBit(i + 1)) {
+            if (summary.withinWindows(calendars[i])
+                    && summary.respectsMaxCost(drones.get(i).getCapability(), homePoints.get(i)))
+                out.add(drones.get(i).getId());
+        }
+        out.sort(Comparator.nullsFirst(Comparator.naturalOrder()));
+        return out;
+    }
+
+    // Usable drones whose capacity is at least the given amount
+    private BitSet atLeastCapacity(double amount) {
+        int lo = 0, hi = capacities.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (capacities[mid] < amount) lo = mid + 1;
+            else hi = mid;
+        }
+        BitSet out = new BitSet(drones.size());
+        for (int k = lo; k < byCapacity.length; k++) out.set(byCapacity[k]);
+        return out;
+    }
+}
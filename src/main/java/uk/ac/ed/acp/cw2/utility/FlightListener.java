@@ -0,0 +1,10 @@
+package uk.ac.ed.acp.cw2.utility;
+
+import uk.ac.ed.acp.cw2.data.FlightBuilder;
+
+// Receives each flight once it is closed (return leg added); the flight does not change after.
+// Called on the planning thread, so a slow listener holds up planning.
+@FunctionalInterface
+public interface FlightListener {
+    void flightClosed(FlightBuilder fb);
+}
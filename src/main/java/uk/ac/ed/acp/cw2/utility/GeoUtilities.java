@@ -8,21 +8,23 @@ import java.util.*;
 
 public class GeoUtilities {
 
-    private static final double STEP = 0.00015;
+    // Length of one move in degrees; shared by the planner's other grid code
+    static final double STEP = 0.00015;
 
     // Numerical epsilon for floating-point comparisons only.
     private static final double EPSILON = 1e-12;
 
     // Prevent memory explosion and infinite expansion in A* search
-    private static final int EXPANSION_CAP = 1_000_000;
+    static final int EXPANSION_CAP = 1_000_000;
 
     // 16 directions
     private static final double[] ANGLES =
             java.util.stream.IntStream.range(0, 16)
                     .mapToDouble(i -> i * 22.5)
                     .toArray();
-    private static final double[] DX = new double[16];
-    private static final double[] DY = new double[16];
+    // Step offsets per direction (shared with the other search engines in this package)
+    static final double[] DX = new double[16];
+    static final double[] DY = new double[16];
 
     static {
         for (int i = 0; i < 16; i++) {
@@ -98,17 +100,66 @@ public class GeoUtilities {
     public static List<Coordinate> pathBetween(
             Coordinate start, Coordinate goal,
             List<List<Coordinate>> rects, List<BoundBox> rectBoxes) {
+        return pathBetween(start, goal, rects, rectBoxes, CancellationToken.none());
+    }
+
+    // Same as above, polling the token every few expansions so the search
+    // stops promptly when the request deadline passes or it is cancelled.
+    public static List<Coordinate> pathBetween(
+            Coordinate start, Coordinate goal,
+            List<List<Coordinate>> rects, List<BoundBox> rectBoxes,
+            CancellationToken token) {
+        Node end = searchEnd(start, goal, rects, rectBoxes, token);
+        return end == null ? List.of() : PathFindingHelper.reconstruct(end);
+    }
+
+    // Number of steps on the path pathBetween would return, or -1 if there is none.
+    // The path itself is not rebuilt, for callers that only need its length.
+    public static int stepsBetween(
+            Coordinate start, Coordinate goal,
+            List<List<Coordinate>> rects, List<BoundBox> rectBoxes,
+            CancellationToken token) {
+        Node end = searchEnd(start, goal, rects, rectBoxes, token);
+        return end == null ? -1 : end.getG();
+    }
+
+    // Last node of the path pathBetween would return (its steps in getG, parents back to start),
+    // or null if there is none; for callers that need the end point but not always the path.
+    public static Node searchEnd(
+            Coordinate start, Coordinate goal,
+            List<List<Coordinate>> rects, List<BoundBox> rectBoxes,
+            CancellationToken token) {
         //start = PathFindingHelper.normalize(start);
         //goal  = PathFindingHelper.normalize(goal);
         // Early exit if start or goal lies within any restricted area
         if (rects != null && !rects.isEmpty()){
             for(List<Coordinate> poly: rects){
                 if(isPointInRegion(start, poly) || isPointInRegion(goal, poly))
-                    return List.of();
+                    return null;
             }
         }
         // Compute global search bound
         BoundBox global = PathFindingHelper.computeGlobalBoundBox(start, goal, rectBoxes);
+        // Very large obstacle-heavy searches are spread over several cores
+        if (ParallelPathSearch.worthParallel(global, rects))
+            return ParallelPathSearch.searchEnd(start, goal, rects, rectBoxes, global, token);
+        return sequentialSearch(start, goal, rects, rectBoxes, global, token);
+    }
+
+    // Single-threaded A* within the given search bound
+    static List<Coordinate> sequentialPath(
+            Coordinate start, Coordinate goal,
+            List<List<Coordinate>> rects, List<BoundBox> rectBoxes,
+            BoundBox global, CancellationToken token) {
+        Node end = sequentialSearch(start, goal, rects, rectBoxes, global, token);
+        return end == null ? List.of() : PathFindingHelper.reconstruct(end);
+    }
+
+    // The node at which the search reaches the goal, or null
+    private static Node sequentialSearch(
+            Coordinate start, Coordinate goal,
+            List<List<Coordinate>> rects, List<BoundBox> rectBoxes,
+            BoundBox global, CancellationToken token) {
 
         Map<String, Integer> bestG = new HashMap<>();
         PriorityQueue<Node> open = new PriorityQueue<>(Comparator.comparingInt(Node::getF));
@@ -126,13 +177,14 @@ public class GeoUtilities {
             if (best != null && best < cur.getG()) continue;
 
             if (isNear(cur.getP(), goal))
-                return PathFindingHelper.reconstruct(cur);
+                return cur;
 
             // Exit if explored too many node;
             expansions++;
             if (expansions > EXPANSION_CAP) {
-                return List.of();
+                return null;
             }
+            token.poll(expansions);
 
             for (int dir = 0; dir < DX.length; dir++) {
                 Coordinate p0 = cur.getP();
@@ -155,7 +207,118 @@ public class GeoUtilities {
                 open.add(nn);
             }
         }
-        return List.of();
+        return null;
+    }
+
+    // One-to-many A*: a single search from start that keeps going until every goal is reached
+    // or the expansion budget runs out. The heuristic is the smallest one over the goals not
+    // reached yet; the open list is re-ranked whenever a goal is reached.
+    // Each goal has its own budget: the count restarts whenever a goal is reached, so a goal
+    // found late is not starved by the expansions spent on the earlier ones.
+    //
+    // With one goal the result is exactly pathBetween. With several, a leg can differ from the
+    // goal's own pathBetween: the search box is the union of the goals' boxes (room for a shorter
+    // detour), and the first arrival kept per grid cell depends on the order the other goals
+    // make the search reach cells in (a step more or less either way).
+    public static SourcePaths pathsFrom(
+            Coordinate start, List<Coordinate> goals,
+            List<List<Coordinate>> rects, List<BoundBox> rectBoxes,
+            int budget, CancellationToken token) {
+        SourcePaths result = new SourcePaths(start, goals);
+        // Goals inside restricted areas are never reached (as in pathBetween)
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < goals.size(); i++) {
+            if (!insideAny(start, rects) && !insideAny(goals.get(i), rects)) pending.add(i);
+        }
+        if (pending.isEmpty()) return result;
+
+        // Search bound covering every goal's own pathBetween bound
+        BoundBox global = PathFindingHelper.computeGlobalBoundBox(start, start, rectBoxes);
+        for (int i : pending) {
+            BoundBox b = PathFindingHelper.computeGlobalBoundBox(start, goals.get(i), rectBoxes);
+            global = new BoundBox(
+                    new Coordinate(Math.max(global.getMax().getLng(), b.getMax().getLng()),
+                            Math.max(global.getMax().getLat(), b.getMax().getLat())),
+                    new Coordinate(Math.min(global.getMin().getLng(), b.getMin().getLng()),
+                            Math.min(global.getMin().getLat(), b.getMin().getLat())));
+        }
+
+        Map<String, Integer> bestG = new HashMap<>();
+        PriorityQueue<Node> open = new PriorityQueue<>(Comparator.comparingInt(Node::getF));
+        Node s = new Node(start, 0, minHeuristic(start, goals, pending), null);
+        open.add(s);
+        bestG.put(PathFindingHelper.keyOf(start), 0);
+
+        int cap = Math.min(budget, EXPANSION_CAP);
+        int expansions = 0;
+        // Expansions since the last goal was reached
+        int spent = 0;
+        while (!open.isEmpty()) {
+            Node cur = open.poll();
+            Integer best = bestG.get(PathFindingHelper.keyOf(cur.getP()));
+            if (best != null && best < cur.getG()) continue;
+
+            boolean settled = false;
+            for (Iterator<Integer> it = pending.iterator(); it.hasNext(); ) {
+                int i = it.next();
+                if (isNear(cur.getP(), goals.get(i))) {
+                    result.settle(i, cur);
+                    it.remove();
+                    settled = true;
+                }
+            }
+            if (pending.isEmpty()) break;
+            if (settled) {
+                open = rerank(open, bestG, goals, pending);
+                spent = 0;
+            }
+
+            expansions++;
+            if (++spent > cap) break;
+            token.poll(expansions);
+
+            Coordinate p0 = cur.getP();
+            for (int dir = 0; dir < DX.length; dir++) {
+                Coordinate nxt = new Coordinate(p0.getLng() + DX[dir], p0.getLat() + DY[dir]);
+                if (!PathFindingHelper.insideBox(nxt, global)) continue;
+                if (PathFindingHelper.stepBlocked(p0, nxt, rects, rectBoxes)) continue;
+                int ng = cur.getG() + 1;
+                String k = PathFindingHelper.keyOf(nxt);
+                Integer old = bestG.get(k);
+                if (old != null && old <= ng) continue;
+                Node nn = new Node(nxt, ng, ng + minHeuristic(nxt, goals, pending), cur);
+                bestG.put(k, ng);
+                open.add(nn);
+            }
+        }
+        return result;
+    }
+
+    private static boolean insideAny(Coordinate p, List<List<Coordinate>> rects) {
+        if (rects == null) return false;
+        for (List<Coordinate> poly : rects) {
+            if (isPointInRegion(p, poly)) return true;
+        }
+        return false;
+    }
+
+    private static int minHeuristic(Coordinate p, List<Coordinate> goals, List<Integer> pending) {
+        int h = Integer.MAX_VALUE;
+        for (int i : pending) h = Math.min(h, PathFindingHelper.heuristic(p, goals.get(i)));
+        return h;
+    }
+
+    // Rebuild the open list with the heuristic of the goals still pending
+    private static PriorityQueue<Node> rerank(PriorityQueue<Node> open, Map<String, Integer> bestG,
+                                              List<Coordinate> goals, List<Integer> pending) {
+        PriorityQueue<Node> next = new PriorityQueue<>(Math.max(1, open.size()),
+                Comparator.comparingInt(Node::getF));
+        for (Node n : open) {
+            if (bestG.get(PathFindingHelper.keyOf(n.getP())) < n.getG()) continue;
+            n.setF(n.getG() + minHeuristic(n.getP(), goals, pending));
+            next.add(n);
+        }
+        return next;
     }
 
     // Compute the orientation of the ordered triplet (a, b, c)
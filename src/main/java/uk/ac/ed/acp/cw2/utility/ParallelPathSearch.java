@@ -0,0 +1,336 @@
+package uk.ac.ed.acp.cw2.utility;
+
+import uk.ac.ed.acp.cw2.data.BoundBox;
+import uk.ac.ed.acp.cw2.data.Coordinate;
+import uk.ac.ed.acp.cw2.data.Node;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Hash-distributed parallel A* (HDA*) for single very long searches.
+// Every STEP-grid cell belongs to one of PARTITIONS partitions (hash of its grid key). A partition
+// keeps its own open list and best-node table and sends generated nodes it does not own to their
+// owner. It keeps the rule of the sequential A* in GeoUtilities.pathBetween: a node is dropped
+// when its cell was already reached with the same or fewer steps (first arrival wins).
+//
+// The search advances in rounds, one (f, g) bucket per round: all nodes of the current minimum
+// bucket are expanded, then the nodes sent between partitions are delivered (in partition order)
+// and the next bucket is agreed on. It terminates at the first bucket holding a goal node or
+// when no open node is left.
+//
+// Arrivals are ordered by partition rather than by one global queue, so ties between equally
+// short paths can be broken differently than in the sequential search. The partitions are fixed
+// and the threads only pick up whole partitions, so the path depends on the input alone, never on
+// how many threads were free to run the search.
+public class ParallelPathSearch {
+
+    // Size of the search box (in STEP cells) from which a search runs in parallel
+    public static final long PARALLEL_THRESHOLD = 1_000_000L;
+
+    // Number of cell partitions; also the most threads one search can use
+    static final int PARTITIONS = 8;
+
+    // Order of a partition's open list: (f, g) buckets, then position so that expansion order is fixed
+    private static final Comparator<Node> BUCKET_ORDER = Comparator
+            .comparingInt(Node::getF)
+            .thenComparingInt(Node::getG)
+            .thenComparingDouble(n -> n.getP().getLng())
+            .thenComparingDouble(n -> n.getP().getLat());
+
+    // Threads lent to searches (PlanExecutors); without them the calling thread runs every partition
+    private static volatile Executor helpers;
+
+    public static void useExecutor(Executor executor) {
+        helpers = executor;
+    }
+
+    // Whether a search over the given box is large enough to be worth running in parallel.
+    // Obstacle-free searches stay sequential since the heuristic already leads straight to the goal.
+    public static boolean worthParallel(BoundBox global, List<List<Coordinate>> rects) {
+        if (rects == null || rects.isEmpty()) return false;
+        double cols = (global.getMax().getLng() - global.getMin().getLng()) / GeoUtilities.STEP;
+        double rows = (global.getMax().getLat() - global.getMin().getLat()) / GeoUtilities.STEP;
+        return cols * rows >= PARALLEL_THRESHOLD;
+    }
+
+    // Run the search, borrowing free threads from the search executor
+    public static List<Coordinate> search(Coordinate start, Coordinate goal,
+                                          List<List<Coordinate>> rects, List<BoundBox> rectBoxes,
+                                          BoundBox global, CancellationToken token) {
+        return search(start, goal, rects, rectBoxes, global, token, helpers, PARTITIONS - 1);
+    }
+
+    // Last node of the path search would return, or null if there is none
+    static Node searchEnd(Coordinate start, Coordinate goal,
+                          List<List<Coordinate>> rects, List<BoundBox> rectBoxes,
+                          BoundBox global, CancellationToken token) {
+        return searchEnd(start, goal, rects, rectBoxes, global, token, helpers, PARTITIONS - 1);
+    }
+
+    // Run the search on the calling thread plus up to maxHelpers threads of the executor
+    // (those it rejects are done without). The result does not depend on the threads used.
+    public static List<Coordinate> search(Coordinate start, Coordinate goal,
+                                          List<List<Coordinate>> rects, List<BoundBox> rectBoxes,
+                                          BoundBox global, CancellationToken token,
+                                          Executor executor, int maxHelpers) {
+        Node end = searchEnd(start, goal, rects, rectBoxes, global, token, executor, maxHelpers);
+        return end == null ? List.of() : PathFindingHelper.reconstruct(end);
+    }
+
+    private static Node searchEnd(Coordinate start, Coordinate goal,
+                                  List<List<Coordinate>> rects, List<BoundBox> rectBoxes,
+                                  BoundBox global, CancellationToken token,
+                                  Executor executor, int maxHelpers) {
+        Search search = new Search(start, goal, rects, rectBoxes, global, token);
+        CountDownLatch ready = new CountDownLatch(1);
+        List<CountDownLatch> exits = new ArrayList<>();
+        if (executor != null) {
+            for (int i = 0; i < Math.min(maxHelpers, PARTITIONS - 1); i++) {
+                CountDownLatch exit = new CountDownLatch(1);
+                try {
+                    executor.execute(() -> {
+                        try {
+                            ready.await();
+                            search.run();
+                        } catch (InterruptedException e) {
+                            // Interrupted before joining (e.g. executor shut down): this thread will
+                            // never arrive at the barrier, so the others must not wait for it
+                            Thread.currentThread().interrupt();
+                            search.fail(new IllegalStateException(e));
+                            SpinBarrier barrier = search.barrier;
+                            if (barrier != null) barrier.abort();
+                        } finally {
+                            exit.countDown();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    break;
+                }
+                exits.add(exit);
+            }
+        }
+        search.barrier = new SpinBarrier(1 + exits.size(), search);
+        // A helper that failed before the barrier existed could not abort it
+        if (search.failure != null) search.barrier.abort();
+        ready.countDown();
+        search.run();
+        try {
+            for (CountDownLatch exit : exits) exit.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            token.cancel(CancellationToken.REASON_DISCONNECT);
+            throw new PlanAbortedException(CancellationToken.REASON_DISCONNECT);
+        }
+        if (search.failure != null) throw search.failure;
+        return search.result;
+    }
+
+    // Partition owning the grid cell of a coordinate
+    private static int ownerOf(Coordinate c) {
+        long h = PathFindingHelper.gx(c) * 0x9E3779B97F4A7C15L + PathFindingHelper.gy(c);
+        return Math.floorMod(Long.hashCode(h ^ (h >>> 29)), PARTITIONS);
+    }
+
+    // State shared by the threads of one search
+    private static class Search {
+        final Coordinate goal;
+        final List<List<Coordinate>> rects;
+        final List<BoundBox> rectBoxes;
+        final BoundBox global;
+        final CancellationToken token;
+        final Partition[] partitions = new Partition[PARTITIONS];
+        // Next partition to hand out in the current phase
+        final AtomicInteger claims = new AtomicInteger();
+        // Set before any thread starts searching
+        volatile SpinBarrier barrier;
+
+        // Written by the last thread to reach the barrier, read by all after it
+        Node bucket;
+        boolean done;
+        Node result;
+        int expansions;
+        volatile RuntimeException failure;
+
+        Search(Coordinate start, Coordinate goal, List<List<Coordinate>> rects,
+               List<BoundBox> rectBoxes, BoundBox global, CancellationToken token) {
+            this.goal = goal;
+            this.rects = rects;
+            this.rectBoxes = rectBoxes;
+            this.global = global;
+            this.token = token;
+            for (int i = 0; i < PARTITIONS; i++) partitions[i] = new Partition(this, i);
+
+            Node s = new Node(start, 0, PathFindingHelper.heuristic(start, goal), null);
+            partitions[ownerOf(start)].offer(s);
+            this.bucket = s;
+        }
+
+        void fail(RuntimeException e) {
+            if (failure == null) failure = e;
+        }
+
+        // One thread's share of the search: take partitions until none is left in each phase
+        void run() {
+            try {
+                while (!barrier.aborted()) {
+                    Node current = bucket;
+                    drain(p -> p.expandBucket(current));
+                    if (!barrier.await(() -> claims.set(0))) return;
+                    drain(Partition::receive);
+                    if (!barrier.await(this::nextBucket)) return;
+                    if (done) return;
+                }
+            } catch (RuntimeException e) {
+                fail(e);
+                barrier.abort();
+            }
+        }
+
+        private void drain(Consumer<Partition> phase) {
+            int i;
+            while ((i = claims.getAndIncrement()) < PARTITIONS) phase.accept(partitions[i]);
+        }
+
+        // Runs alone between two rounds: stop at a goal bucket, else pick the next bucket
+        void nextBucket() {
+            claims.set(0);
+            Node goalNode = null;
+            Node min = null;
+            for (Partition p : partitions) {
+                expansions += p.expanded;
+                p.expanded = 0;
+                if (p.goalNode != null && (goalNode == null || BUCKET_ORDER.compare(p.goalNode, goalNode) < 0))
+                    goalNode = p.goalNode;
+                Node top = p.open.peek();
+                if (top != null && (min == null || BUCKET_ORDER.compare(top, min) < 0))
+                    min = top;
+            }
+            if (goalNode != null) {
+                result = goalNode;
+                done = true;
+            } else if (min == null || expansions > GeoUtilities.EXPANSION_CAP) {
+                done = true;
+            } else if (token.isCancelled()) {
+                fail(new PlanAbortedException(token.getReason()));
+                done = true;
+            }
+            bucket = min;
+        }
+    }
+
+    // Open list and best-node table for the cells of one partition
+    private static class Partition {
+        final Search search;
+        final int id;
+        final PriorityQueue<Node> open = new PriorityQueue<>(BUCKET_ORDER);
+        final Map<String, Node> best = new HashMap<>();
+        // Nodes generated for the cells of each other partition during the current round
+        final List<List<Node>> outbox = new ArrayList<>(PARTITIONS);
+        Node goalNode;
+        int expanded;
+
+        Partition(Search search, int id) {
+            this.search = search;
+            this.id = id;
+            for (int i = 0; i < PARTITIONS; i++) outbox.add(new ArrayList<>());
+        }
+
+        // Keep a node unless its cell was already reached with the same or fewer steps
+        void offer(Node n) {
+            String k = PathFindingHelper.keyOf(n.getP());
+            Node old = best.get(k);
+            if (old != null && old.getG() <= n.getG()) return;
+            best.put(k, n);
+            open.add(n);
+        }
+
+        // Expand every own node of the current (f, g) bucket
+        void expandBucket(Node bucket) {
+            Node top;
+            while ((top = open.peek()) != null
+                    && top.getF() == bucket.getF() && top.getG() == bucket.getG()) {
+                Node cur = open.poll();
+                if (best.get(PathFindingHelper.keyOf(cur.getP())) != cur) continue;
+                if (GeoUtilities.isNear(cur.getP(), search.goal)) {
+                    if (goalNode == null || BUCKET_ORDER.compare(cur, goalNode) < 0)
+                        goalNode = cur;
+                    continue;
+                }
+                expanded++;
+
+                Coordinate p0 = cur.getP();
+                for (int dir = 0; dir < GeoUtilities.DX.length; dir++) {
+                    Coordinate nxt = new Coordinate(
+                            p0.getLng() + GeoUtilities.DX[dir],
+                            p0.getLat() + GeoUtilities.DY[dir]
+                    );
+                    if (!PathFindingHelper.insideBox(nxt, search.global)) continue;
+                    if (PathFindingHelper.stepBlocked(p0, nxt, search.rects, search.rectBoxes)) continue;
+                    int ng = cur.getG() + 1;
+                    Node nn = new Node(nxt, ng, ng + PathFindingHelper.heuristic(nxt, search.goal), cur);
+                    int owner = ownerOf(nxt);
+                    if (owner == id) offer(nn);
+                    else outbox.get(owner).add(nn);
+                }
+            }
+        }
+
+        // Take the nodes the other partitions generated for our cells and drop stale heads
+        void receive() {
+            for (Partition from : search.partitions) {
+                List<Node> in = from.outbox.get(id);
+                for (Node n : in) offer(n);
+                in.clear();
+            }
+            Node top;
+            while ((top = open.peek()) != null && best.get(PathFindingHelper.keyOf(top.getP())) != top)
+                open.poll();
+        }
+    }
+
+    // Low-latency barrier for the short rounds of a search; the last thread to
+    // arrive runs the action before the others are released.
+    private static class SpinBarrier {
+        private final int parties;
+        private final Search search;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private volatile int generation;
+        private volatile boolean aborted;
+
+        SpinBarrier(int parties, Search search) {
+            this.parties = parties;
+            this.search = search;
+        }
+
+        boolean aborted() {
+            return aborted;
+        }
+
+        void abort() {
+            aborted = true;
+        }
+
+        // Returns false if the search was aborted while waiting
+        boolean await(Runnable action) {
+            int gen = generation;
+            if (waiting.incrementAndGet() == parties) {
+                waiting.set(0);
+                if (action != null) action.run();
+                if (search.failure != null) aborted = true;
+                generation = gen + 1;
+                return !aborted;
+            }
+            int spins = 0;
+            while (generation == gen) {
+                if (aborted) return false;
+                if (++spins < 2_000) Thread.onSpinWait();
+                else Thread.yield();
+            }
+            return !aborted;
+        }
+    }
+}
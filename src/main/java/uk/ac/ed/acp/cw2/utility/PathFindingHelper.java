@@ -11,8 +11,6 @@ import java.util.List;
 
 // Helper utilities used by the path finding logic.
 public class PathFindingHelper {
-    private static final double STEP = 0.00015;
-
     // Tolerance for floating-point comparisons
     private static final double EPSILON = 1e-12;
 
@@ -33,17 +31,17 @@ public class PathFindingHelper {
     // Admissible heuristic: optimistic step count = floor(distance / STEP)
     public static int heuristic(Coordinate a, Coordinate b){
         double d = GeoUtilities.distanceBetween(a,b);
-        return (int) Math.floor(d / STEP);
+        return (int) Math.floor(d / GeoUtilities.STEP);
     }
 
     // Quantize longitude to a long integer by divide it with STEP
     public static long gx(Coordinate c) {
-        return Math.round(c.getLng() / STEP);
+        return Math.round(c.getLng() / GeoUtilities.STEP);
     }
 
     // Quantize latitude to a long integer by divide it with STEP
     public static long gy(Coordinate c) {
-        return Math.round(c.getLat() / STEP);
+        return Math.round(c.getLat() / GeoUtilities.STEP);
     }
 
 //    // Generate a unique key string for a coordinate based on quantized values.
@@ -75,6 +73,21 @@ public class PathFindingHelper {
 //    }
 
 
+    // Fingerprint of a set of restricted polygons, used to key data derived from the geometry
+    public static long geometryKey(List<List<Coordinate>> rects) {
+        long h = 1125899906842597L;
+        if (rects == null) return h;
+        for (List<Coordinate> poly : rects) {
+            h = h * 31 + (poly == null ? 0 : poly.size());
+            if (poly == null) continue;
+            for (Coordinate v : poly) {
+                h = h * 31 + Double.doubleToLongBits(v.getLng());
+                h = h * 31 + Double.doubleToLongBits(v.getLat());
+            }
+        }
+        return h;
+    }
+
     // Helper to check whether a value line between higher and lower bound
     public static boolean axisHits(double val, double low, double high) {
         return (val >= low - EPSILON) && (val <= high + EPSILON);
@@ -118,7 +131,7 @@ public class PathFindingHelper {
         }
 
         // Add a modest margin to allow small detours outside strict hull.
-        double margin = 40 * STEP; // 40 steps ~ 0.006 degrees
+        double margin = 40 * GeoUtilities.STEP; // 40 steps ~ 0.006 degrees
 
         return new BoundBox(
                 new Coordinate(maxX + margin, maxY + margin),
@@ -161,6 +174,35 @@ public class PathFindingHelper {
         return false;
     }
 
+    // Determine if a straight segment of any length touches a restricted polygon.
+    // Unlike stepBlocked there is no near-vertex shortcut, so long segments are safe to test.
+    public static boolean segmentBlocked(Coordinate from, Coordinate to,
+                                         List<List<Coordinate>> rects, List<BoundBox> rectBoxes) {
+        if (rects == null || rects.isEmpty())
+            return false;
+        for (int k = 0; k < rects.size(); k++) {
+            var poly = rects.get(k);
+            var box = rectBoxes == null || k >= rectBoxes.size() ? null : rectBoxes.get(k);
+            if (box != null && !overlapsBox(from, to, box)) continue;
+
+            if (GeoUtilities.isPointInRegion(from, poly) || GeoUtilities.isPointInRegion(to, poly))
+                return true;
+            for (int i = 0; i < poly.size() - 1; i++) {
+                if (GeoUtilities.segmentsIntersect(from, to, poly.get(i), poly.get(i + 1)))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    // Whether the bounding box of segment (a,b) overlaps the box (with EPSILON slack)
+    private static boolean overlapsBox(Coordinate a, Coordinate b, BoundBox box) {
+        return Math.max(a.getLng(), b.getLng()) >= box.getMin().getLng() - EPSILON
+                && Math.min(a.getLng(), b.getLng()) <= box.getMax().getLng() + EPSILON
+                && Math.max(a.getLat(), b.getLat()) >= box.getMin().getLat() - EPSILON
+                && Math.min(a.getLat(), b.getLat()) <= box.getMax().getLat() + EPSILON;
+    }
+
     private static boolean nearAnyVertex(Coordinate from, Coordinate to,
             List<Coordinate> poly) {
         for (int i = 0; i < poly.size() - 1; i++) {
@@ -0,0 +1,18 @@
+package uk.ac.ed.acp.cw2.utility;
+
+// Thrown when a planning request is aborted before completion,
+// either because its deadline passed or because it was cancelled.
+public class PlanAbortedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final String reason;
+
+    public PlanAbortedException(String reason) {
+        super("Delivery planning aborted: " + reason);
+        this.reason = reason;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,113 @@
+package uk.ac.ed.acp.cw2.utility;
+
+import uk.ac.ed.acp.cw2.data.Coordinate;
+import uk.ac.ed.acp.cw2.data.response.CalcDeliveryPathResponse;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Reference decoder for the PlanBinaryWriter format. Replays each segment with the step
+// table from the header, so the result serialises to the same JSON as the plan it encodes.
+public class PlanBinaryReader {
+
+    private PlanBinaryReader() {
+    }
+
+    public static CalcDeliveryPathResponse read(InputStream source) throws IOException {
+        DataInputStream in = new DataInputStream(source);
+        byte[] magic = new byte[PlanBinaryWriter.MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, PlanBinaryWriter.MAGIC)) throw new IOException("Not an ILP plan");
+        int version = in.readUnsignedByte();
+        if (version != PlanBinaryWriter.VERSION) throw new IOException("Unsupported plan version " + version);
+        double[] dx = new double[16];
+        double[] dy = new double[16];
+        for (int i = 0; i < 16; i++) dx[i] = in.readDouble();
+        for (int i = 0; i < 16; i++) dy[i] = in.readDouble();
+
+        CalcDeliveryPathResponse response = new CalcDeliveryPathResponse();
+        response.setTotalCost(in.readDouble());
+        response.setTotalMoves(readVarint(in));
+        int drones = readVarint(in);
+        List<CalcDeliveryPathResponse.DronePath> dronePaths = new ArrayList<>(drones);
+        for (int d = 0; d < drones; d++) {
+            CalcDeliveryPathResponse.DronePath dp = new CalcDeliveryPathResponse.DronePath();
+            int idLength = readVarint(in);
+            if (idLength > 0) {
+                byte[] id = new byte[idLength - 1];
+                in.readFully(id);
+                dp.setDroneId(new String(id, StandardCharsets.UTF_8));
+            }
+            int segments = readVarint(in);
+            List<CalcDeliveryPathResponse.DeliverySegment> deliveries = new ArrayList<>(segments);
+            for (int s = 0; s < segments; s++) {
+                CalcDeliveryPathResponse.DeliverySegment seg = new CalcDeliveryPathResponse.DeliverySegment();
+                int id = readVarint(in);
+                seg.setDeliveryId(id == 0 ? null : ((id - 1) >>> 1) ^ -((id - 1) & 1));
+                seg.setFlightPath(readPath(in, dx, dy));
+                deliveries.add(seg);
+            }
+            dp.setDeliveries(deliveries);
+            dronePaths.add(dp);
+        }
+        response.setDronePaths(dronePaths);
+        return response;
+    }
+
+    private static List<Coordinate> readPath(DataInputStream in, double[] dx, double[] dy) throws IOException {
+        boolean reversed = (in.readUnsignedByte() & 1) != 0;
+        int points = readVarint(in);
+        List<Coordinate> path = new ArrayList<>(points);
+        if (points == 0) return path;
+        double lng = in.readDouble(), lat = in.readDouble();
+        int moves = points - 1;
+
+        int[] hovers = new int[readVarint(in)];
+        for (int i = 0, prev = 0; i < hovers.length; i++) hovers[i] = prev += readVarint(in);
+        int na = readVarint(in);
+        int[] anchors = new int[na];
+        double[] anchorPoints = new double[2 * na];
+        for (int i = 0, prev = 0; i < na; i++) {
+            anchors[i] = prev += readVarint(in);
+            anchorPoints[2 * i] = in.readDouble();
+            anchorPoints[2 * i + 1] = in.readDouble();
+        }
+        byte[] codes = new byte[(moves + 1) / 2];
+        in.readFully(codes);
+
+        path.add(new Coordinate(lng, lat));
+        int h = 0, a = 0;
+        for (int m = 0; m < moves; m++) {
+            if (h < hovers.length && hovers[h] == m) {
+                h++;
+            } else if (a < na && anchors[a] == m) {
+                lng = anchorPoints[2 * a];
+                lat = anchorPoints[2 * a + 1];
+                a++;
+            } else {
+                int dir = (codes[m >> 1] >> ((m & 1) << 2)) & 0xF;
+                lng = lng + dx[dir];
+                lat = lat + dy[dir];
+            }
+            path.add(new Coordinate(lng, lat));
+        }
+        if (reversed) Collections.reverse(path);
+        return path;
+    }
+
+    static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+}
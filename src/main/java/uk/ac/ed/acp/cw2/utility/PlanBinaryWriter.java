@@ -0,0 +1,139 @@
+package uk.ac.ed.acp.cw2.utility;
+
+import org.springframework.http.MediaType;
+import uk.ac.ed.acp.cw2.data.FlightBuilder;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Compact binary encoding of a plan, served instead of JSON when a client asks for it.
+// Paths are written as direction codes against the step table in the header, so a decoder
+// replays the exact coordinates of the JSON response (PlanBinaryReader is the reference).
+//
+// Layout (numbers big-endian, varints unsigned LEB128):
+//   "ILPP", u8 version, 16 x f64 DX, 16 x f64 DY,
+//   f64 totalCost, varint totalMoves, varint drones, then per drone:
+//     string droneId (varint byte length + 1, 0 for null), varint segments, then per segment:
+//       varint deliveryId (0 for null, else zigzag + 1), u8 flags (1 = reversed), varint points,
+//       and if points > 0: f64 startLng, f64 startLat,
+//         varint hovers, delta-coded move indices,
+//         varint anchors, per anchor: delta-coded move index, f64 lng, f64 lat,
+//         packed 4-bit direction codes, two moves per byte, low nibble first.
+// A reversed segment lists its points in the opposite order of the replay.
+public class PlanBinaryWriter {
+
+    public static final String MEDIA_TYPE_VALUE = "application/vnd.ilp.plan";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    static final byte[] MAGIC = {'I', 'L', 'P', 'P'};
+    static final int VERSION = 1;
+
+    private PlanBinaryWriter() {
+    }
+
+    // Whether the Accept header prefers the binary format over JSON
+    public static boolean isPreferred(String accept) {
+        return AcceptNegotiation.prefers(accept, MEDIA_TYPE, MediaType.APPLICATION_JSON);
+    }
+
+    // Encode the finished flights; an empty list is the empty plan
+    public static void write(List<FlightBuilder> finishedFlights, OutputStream target) throws IOException {
+        DataOutputStream out = new DataOutputStream(target);
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        for (double dx : GeoUtilities.DX) out.writeDouble(dx);
+        for (double dy : GeoUtilities.DY) out.writeDouble(dy);
+
+        double totalCost = 0.0;
+        int totalMoves = 0;
+        int drones = 0;
+        if (finishedFlights != null) {
+            for (FlightBuilder fb : finishedFlights) {
+                if (fb == null) continue;
+                totalCost += fb.getCost();
+                totalMoves += fb.getStepsUsed();
+                drones++;
+            }
+        }
+        out.writeDouble(totalCost);
+        writeVarint(out, totalMoves);
+        writeVarint(out, drones);
+        if (finishedFlights != null) {
+            for (FlightBuilder fb : finishedFlights) {
+                if (fb == null) continue;
+                writeDrone(out, fb);
+            }
+        }
+        out.flush();
+    }
+
+    private static void writeDrone(DataOutputStream out, FlightBuilder fb) throws IOException {
+        if (fb.getDroneId() == null) {
+            writeVarint(out, 0);
+        } else {
+            byte[] id = fb.getDroneId().getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, id.length + 1);
+            out.write(id);
+        }
+        List<FlightBuilder.Segment> segments = fb.getSegments() == null ? List.of() : fb.getSegments();
+        int count = 0;
+        for (FlightBuilder.Segment seg : segments) if (seg != null) count++;
+        writeVarint(out, count);
+        for (FlightBuilder.Segment seg : segments) {
+            if (seg == null) continue;
+            Integer id = seg.getDeliveryId();
+            writeVarint(out, id == null ? 0 : ((id << 1) ^ (id >> 31)) + 1);
+            writePath(out, seg.getPath());
+        }
+    }
+
+    private static void writePath(DataOutputStream out, CompactPath path) throws IOException {
+        if (path == null || path.isEmpty()) {
+            out.writeByte(0);
+            writeVarint(out, 0);
+            return;
+        }
+        int moves = path.moves();
+        out.writeByte(path.isReversed() ? 1 : 0);
+        writeVarint(out, path.size());
+        out.writeDouble(path.startLng());
+        out.writeDouble(path.startLat());
+
+        // Only the moves inside this view (a prefix shares its parent's arrays)
+        int[] hovers = path.hovers();
+        int nh = 0;
+        while (nh < hovers.length && hovers[nh] < moves) nh++;
+        writeVarint(out, nh);
+        for (int i = 0, prev = 0; i < nh; i++) {
+            writeVarint(out, hovers[i] - prev);
+            prev = hovers[i];
+        }
+        int[] anchors = path.anchors();
+        double[] points = path.anchorPoints();
+        int na = 0;
+        while (na < anchors.length && anchors[na] < moves) na++;
+        writeVarint(out, na);
+        for (int i = 0, prev = 0; i < na; i++) {
+            writeVarint(out, anchors[i] - prev);
+            prev = anchors[i];
+            out.writeDouble(points[2 * i]);
+            out.writeDouble(points[2 * i + 1]);
+        }
+        for (int m = 0; m < moves; m += 2) {
+            int lo = path.code(m);
+            int hi = m + 1 < moves ? path.code(m + 1) : 0;
+            out.writeByte(lo | (hi << 4));
+        }
+    }
+
+    static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+}
@@ -0,0 +1,201 @@
+package uk.ac.ed.acp.cw2.utility;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import uk.ac.ed.acp.cw2.data.BoundBox;
+import uk.ac.ed.acp.cw2.data.Coordinate;
+import uk.ac.ed.acp.cw2.data.FlightBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Writes planned flights straight to a JsonGenerator, without building the response DTOs.
+// The output is byte-for-byte what Jackson writes for the equivalent
+// CalcDeliveryPathResponse or GeoJsonResponseCollection (see DeliveryPlanHelper).
+public class PlanJsonWriter {
+
+    private PlanJsonWriter() {
+    }
+
+    // Same JSON as buildDeliveryResponse(finishedFlights); an empty list is the empty plan
+    public static void writeDeliveryPath(List<FlightBuilder> finishedFlights, JsonGenerator gen)
+            throws IOException {
+        double totalCost = 0.0;
+        int totalMoves = 0;
+        if (finishedFlights != null) {
+            for (FlightBuilder fb : finishedFlights) {
+                if (fb == null) continue;
+                totalCost += fb.getCost();
+                totalMoves += fb.getStepsUsed();
+            }
+        }
+
+        gen.writeStartObject();
+        gen.writeNumberField("totalCost", totalCost);
+        gen.writeNumberField("totalMoves", totalMoves);
+        gen.writeArrayFieldStart("dronePaths");
+        if (finishedFlights != null) {
+            for (FlightBuilder fb : finishedFlights) {
+                if (fb == null) continue;
+                writeDronePath(fb, gen);
+            }
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+        gen.flush();
+    }
+
+    // Same JSON as buildGeoJsonResponseCollection(buildDeliveryResponse(finishedFlights)):
+    // one LineString per drone, consecutive segments joined without repeating the shared point.
+    public static void writeGeoJson(List<FlightBuilder> finishedFlights, JsonGenerator gen)
+            throws IOException {
+        writeGeoJson(finishedFlights, null, gen);
+    }
+
+    // Same JSON as buildGeoJsonResponseCollection(buildDeliveryResponse(finishedFlights), tolerance,
+    // restrictedPolys, rectBoxes): each line simplified (PolylineSimplifier) and its pointsRemoved.
+    // Only one drone's line is held as coordinates at a time.
+    public static void writeGeoJson(List<FlightBuilder> finishedFlights, double tolerance,
+                                    List<List<Coordinate>> restrictedPolys, List<BoundBox> rectBoxes,
+                                    JsonGenerator gen) throws IOException {
+        writeGeoJson(finishedFlights, new Simplification(tolerance, restrictedPolys, rectBoxes), gen);
+    }
+
+    private record Simplification(double tolerance, List<List<Coordinate>> rects, List<BoundBox> rectBoxes) {
+    }
+
+    private static void writeGeoJson(List<FlightBuilder> finishedFlights, Simplification simplify,
+                                     JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("type", "FeatureCollection");
+        gen.writeArrayFieldStart("features");
+        if (finishedFlights != null) {
+            for (FlightBuilder fb : finishedFlights) {
+                if (fb == null || fb.getSegments() == null || fb.getSegments().isEmpty()) continue;
+                gen.writeStartObject();
+                gen.writeStringField("type", "Feature");
+                gen.writeObjectFieldStart("properties");
+                if (fb.getDroneId() == null) gen.writeNullField("droneId");
+                else gen.writeStringField("droneId", fb.getDroneId());
+                List<Coordinate> simplified = null;
+                if (simplify != null) {
+                    List<Coordinate> merged = mergedLine(fb.getSegments());
+                    simplified = PolylineSimplifier.simplify(merged, simplify.tolerance(),
+                            simplify.rects(), simplify.rectBoxes());
+                    gen.writeNumberField("pointsRemoved", merged.size() - simplified.size());
+                }
+                gen.writeEndObject();
+                gen.writeObjectFieldStart("geometry");
+                gen.writeStringField("type", "LineString");
+                gen.writeArrayFieldStart("coordinates");
+                if (simplified == null) writeLineString(fb.getSegments(), gen);
+                else {
+                    for (Coordinate p : simplified) {
+                        gen.writeStartArray();
+                        gen.writeNumber(p.getLng());
+                        gen.writeNumber(p.getLat());
+                        gen.writeEndArray();
+                    }
+                }
+                gen.writeEndArray();
+                gen.writeEndObject();
+                gen.writeEndObject();
+            }
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+        gen.flush();
+    }
+
+    // Points of all segments as [lng, lat]; a segment's first point is dropped
+    // when it repeats the last point of the previous (non-empty) segment.
+    private static void writeLineString(List<FlightBuilder.Segment> segments, JsonGenerator gen)
+            throws IOException {
+        long[] last = null;   // bits of the previous segment's last point
+        for (FlightBuilder.Segment seg : segments) {
+            if (seg == null || seg.getPath() == null || seg.getPath().isEmpty()) continue;
+            long[] prev = last;
+            long[] cur = new long[2];
+            int[] index = {0};
+            try {
+                seg.getPath().forEach((lng, lat) -> {
+                    cur[0] = Double.doubleToLongBits(lng);
+                    cur[1] = Double.doubleToLongBits(lat);
+                    boolean repeat = index[0]++ == 0 && prev != null && prev[0] == cur[0] && prev[1] == cur[1];
+                    if (repeat) return;
+                    try {
+                        gen.writeStartArray();
+                        gen.writeNumber(lng);
+                        gen.writeNumber(lat);
+                        gen.writeEndArray();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            last = cur;
+        }
+    }
+
+    // The points writeLineString writes, as coordinates
+    private static List<Coordinate> mergedLine(List<FlightBuilder.Segment> segments) {
+        List<Coordinate> merged = new ArrayList<>();
+        long[] last = null;
+        for (FlightBuilder.Segment seg : segments) {
+            if (seg == null || seg.getPath() == null || seg.getPath().isEmpty()) continue;
+            long[] prev = last;
+            long[] cur = new long[2];
+            int[] index = {0};
+            seg.getPath().forEach((lng, lat) -> {
+                cur[0] = Double.doubleToLongBits(lng);
+                cur[1] = Double.doubleToLongBits(lat);
+                boolean repeat = index[0]++ == 0 && prev != null && prev[0] == cur[0] && prev[1] == cur[1];
+                if (!repeat) merged.add(new Coordinate(lng, lat));
+            });
+            last = cur;
+        }
+        return merged;
+    }
+
+    // One flight as a dronePaths entry of the delivery path response
+    public static void writeDronePath(FlightBuilder fb, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("droneId", fb.getDroneId());
+        gen.writeArrayFieldStart("deliveries");
+        if (fb.getSegments() != null) {
+            for (FlightBuilder.Segment seg : fb.getSegments()) {
+                if (seg == null) continue;
+                gen.writeStartObject();
+                if (seg.getDeliveryId() == null) gen.writeNullField("deliveryId");
+                else gen.writeNumberField("deliveryId", seg.getDeliveryId());
+                gen.writeArrayFieldStart("flightPath");
+                if (seg.getPath() != null) writeCoordinates(seg.getPath(), gen);
+                gen.writeEndArray();
+                gen.writeEndObject();
+            }
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+
+    // Each point as {"lng":..,"lat":..}, as Coordinate is serialised
+    private static void writeCoordinates(CompactPath path, JsonGenerator gen) throws IOException {
+        try {
+            path.forEach((lng, lat) -> {
+                try {
+                    gen.writeStartObject();
+                    gen.writeNumberField("lng", lng);
+                    gen.writeNumberField("lat", lat);
+                    gen.writeEndObject();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
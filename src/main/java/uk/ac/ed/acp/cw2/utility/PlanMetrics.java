@@ -0,0 +1,15 @@
+package uk.ac.ed.acp.cw2.utility;
+
+import io.micrometer.core.instrument.Metrics;
+
+// Planner metrics published through the global Micrometer registry
+// (exposed by actuator under /actuator/metrics).
+public class PlanMetrics {
+
+    private static final String ABORTED = "ilp.plan.aborted";
+
+    // Count a planning request aborted for the given reason (deadline / disconnect)
+    public static void recordAborted(String reason) {
+        Metrics.counter(ABORTED, "reason", reason).increment();
+    }
+}
@@ -0,0 +1,12 @@
+package uk.ac.ed.acp.cw2.utility;
+
+// Receives planning progress: dispatch records assigned to a flight so far, out of the total.
+// Called on the planning thread, once before the first record and after each assignment.
+@FunctionalInterface
+public interface PlanProgress {
+
+    PlanProgress NONE = (assigned, total) -> {
+    };
+
+    void update(int assigned, int total);
+}
@@ -0,0 +1,110 @@
+package uk.ac.ed.acp.cw2.utility;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.http.MediaType;
+import uk.ac.ed.acp.cw2.data.FlightBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Writes a plan as it is planned: one frame per closed flight, then a summary frame.
+// Frames are NDJSON lines or server-sent events and each is flushed when written, so a client
+// that reads slowly holds up the planner (blocking writes) instead of frames piling up.
+//
+//   NDJSON: {"flight":{droneId, deliveries}} per flight, then {"summary":{...}}
+//   SSE:    "event: flight" with the dronePaths entry as data, then "event: summary"
+//   summary: status, totalCost, totalMoves, flights, and reason when aborted.
+//     ok      - the flights sent are the plan
+//     empty   - the list cannot be planned; flights sent before are void (calcDeliveryPath
+//               returns the empty plan), totals are zero
+//     aborted - the deadline passed; the flights sent so far are not a complete plan
+public class PlanStreamWriter implements FlightListener {
+
+    public static final String STATUS_OK = "ok";
+    public static final String STATUS_EMPTY = "empty";
+    public static final String STATUS_ABORTED = "aborted";
+
+    private final OutputStream out;
+    private final JsonFactory factory;
+    private final boolean eventStream;
+
+    private double totalCost;
+    private int totalMoves;
+    private int flights;
+
+    public PlanStreamWriter(OutputStream out, JsonFactory factory, boolean eventStream) {
+        this.out = out;
+        this.factory = factory;
+        this.eventStream = eventStream;
+    }
+
+    // Whether the Accept header prefers server-sent events over NDJSON
+    public static boolean prefersEventStream(String accept) {
+        return AcceptNegotiation.prefers(accept, MediaType.TEXT_EVENT_STREAM, MediaType.APPLICATION_NDJSON);
+    }
+
+    // Write failures surface as UncheckedIOException, which also stops the planner
+    @Override
+    public void flightClosed(FlightBuilder fb) {
+        totalCost += fb.getCost();
+        totalMoves += fb.getStepsUsed();
+        flights++;
+        try {
+            frame("flight", gen -> PlanJsonWriter.writeDronePath(fb, gen));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Final frame once planning has finished; planned is false if the list could not be planned
+    public void finish(boolean planned) throws IOException {
+        if (planned) summary(STATUS_OK, null);
+        else {
+            totalCost = 0.0;
+            totalMoves = 0;
+            flights = 0;
+            summary(STATUS_EMPTY, null);
+        }
+    }
+
+    // Final frame when planning was aborted
+    public void aborted(String reason) throws IOException {
+        summary(STATUS_ABORTED, reason);
+    }
+
+    private void summary(String status, String reason) throws IOException {
+        frame("summary", gen -> {
+            gen.writeStartObject();
+            gen.writeStringField("status", status);
+            gen.writeNumberField("totalCost", totalCost);
+            gen.writeNumberField("totalMoves", totalMoves);
+            gen.writeNumberField("flights", flights);
+            if (reason != null) gen.writeStringField("reason", reason);
+            gen.writeEndObject();
+        });
+    }
+
+    private interface FrameBody {
+        void writeTo(JsonGenerator gen) throws IOException;
+    }
+
+    private void frame(String name, FrameBody body) throws IOException {
+        if (eventStream) out.write(("event: " + name + "\ndata: ").getBytes(StandardCharsets.UTF_8));
+        // Compact JSON has no line breaks, so it fits on one NDJSON line or SSE data line
+        try (JsonGenerator gen = factory.createGenerator(out)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            if (!eventStream) {
+                gen.writeStartObject();
+                gen.writeFieldName(name);
+            }
+            body.writeTo(gen);
+            if (!eventStream) gen.writeEndObject();
+        }
+        out.write(eventStream ? new byte[]{'\n', '\n'} : new byte[]{'\n'});
+        out.flush();
+    }
+}
@@ -0,0 +1,106 @@
+package uk.ac.ed.acp.cw2.utility;
+
+import uk.ac.ed.acp.cw2.data.BoundBox;
+import uk.ac.ed.acp.cw2.data.Coordinate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+// Reduces a drawn flight line to fewer points for GeoJSON output.
+// First repeated points (hovers) and straight runs of steps are collapsed, which leaves the
+// drawn line unchanged; then Douglas-Peucker drops points within the tolerance (degrees).
+// A shortcut is only taken if its straight segment stays clear of every restricted area.
+public class PolylineSimplifier {
+
+    // Relative tolerance when deciding whether three points lie on one straight run
+    private static final double COLLINEAR_EPS = 1e-9;
+
+    private PolylineSimplifier() {
+    }
+
+    // Simplified copy of the line; endpoints are always kept
+    public static List<Coordinate> simplify(List<Coordinate> line, double tolerance,
+                                            List<List<Coordinate>> rects, List<BoundBox> rectBoxes) {
+        List<Coordinate> collapsed = collapseRuns(line);
+        if (tolerance <= 0 || collapsed.size() <= 2) return collapsed;
+        return douglasPeucker(collapsed, tolerance, rects, rectBoxes);
+    }
+
+    // Drop repeated points and the inner points of straight runs
+    static List<Coordinate> collapseRuns(List<Coordinate> line) {
+        List<Coordinate> out = new ArrayList<>(line.size());
+        for (Coordinate p : line) {
+            int n = out.size();
+            if (n > 0 && samePoint(out.get(n - 1), p)) continue;
+            if (n >= 2 && sameDirection(out.get(n - 2), out.get(n - 1), p)) {
+                out.set(n - 1, p);
+            } else {
+                out.add(p);
+            }
+        }
+        // A LineString needs two positions, even for a flight that only hovers
+        if (out.size() == 1 && line.size() > 1) out.add(line.getLast());
+        return out;
+    }
+
+    private static List<Coordinate> douglasPeucker(List<Coordinate> line, double tolerance,
+                                                   List<List<Coordinate>> rects, List<BoundBox> rectBoxes) {
+        int n = line.size();
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+
+        ArrayDeque<int[]> ranges = new ArrayDeque<>();
+        ranges.push(new int[]{0, n - 1});
+        while (!ranges.isEmpty()) {
+            int[] r = ranges.pop();
+            int i = r[0], j = r[1];
+            if (j - i < 2) continue;
+
+            int farthest = i + 1;
+            double maxDist = -1;
+            for (int k = i + 1; k < j; k++) {
+                double d = distanceToSegment(line.get(k), line.get(i), line.get(j));
+                if (d > maxDist) {
+                    maxDist = d;
+                    farthest = k;
+                }
+            }
+            if (maxDist <= tolerance
+                    && !PathFindingHelper.segmentBlocked(line.get(i), line.get(j), rects, rectBoxes))
+                continue;
+
+            keep[farthest] = true;
+            ranges.push(new int[]{i, farthest});
+            ranges.push(new int[]{farthest, j});
+        }
+
+        List<Coordinate> out = new ArrayList<>();
+        for (int k = 0; k < n; k++) if (keep[k]) out.add(line.get(k));
+        return out;
+    }
+
+    // Euclidean distance in degrees from p to segment (a,b)
+    static double distanceToSegment(Coordinate p, Coordinate a, Coordinate b) {
+        double ax = a.getLng(), ay = a.getLat();
+        double dx = b.getLng() - ax, dy = b.getLat() - ay;
+        double px = p.getLng() - ax, py = p.getLat() - ay;
+        double len2 = dx * dx + dy * dy;
+        double t = len2 == 0 ? 0 : Math.max(0, Math.min(1, (px * dx + py * dy) / len2));
+        return Math.hypot(px - t * dx, py - t * dy);
+    }
+
+    // Whether b lies on the straight continuation from a to c
+    private static boolean sameDirection(Coordinate a, Coordinate b, Coordinate c) {
+        double ux = b.getLng() - a.getLng(), uy = b.getLat() - a.getLat();
+        double vx = c.getLng() - b.getLng(), vy = c.getLat() - b.getLat();
+        double cross = ux * vy - uy * vx;
+        double dot = ux * vx + uy * vy;
+        return dot > 0 && Math.abs(cross) <= COLLINEAR_EPS * Math.hypot(ux, uy) * Math.hypot(vx, vy);
+    }
+
+    private static boolean samePoint(Coordinate a, Coordinate b) {
+        return a.getLng().equals(b.getLng()) && a.getLat().equals(b.getLat());
+    }
+}
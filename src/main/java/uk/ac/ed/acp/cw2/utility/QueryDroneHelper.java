@@ -10,8 +10,6 @@ import java.util.*;
 
 public class QueryDroneHelper {
 
-    private static final double STEP = 0.00015;
-
     // Helper method to match a drone against a specific attribute and value
     public static boolean matches(Drone d, String attr, String val) {
         try {
@@ -218,6 +216,15 @@ public class QueryDroneHelper {
             MedDispatchRec rec,
             LocalDate day
     ) {
+        if (!meetsCapability(drone, rec)) return false;
+
+        // Compiled windows: no string parsing on the planner's hot path
+        AvailabilityCalendar calendar = (atSP == null) ? AvailabilityCalendar.NONE : atSP.getCalendar();
+        return calendar.isAvailableAt(day, rec.getTime());
+    }
+
+    // Whether the drone has the capacity, cooling and heating a dispatch needs (any day)
+    public static boolean meetsCapability(Drone drone, MedDispatchRec rec) {
         if (drone == null || drone.getCapability() == null || rec == null || rec.getRequirements() == null)
             return false;
 
@@ -225,17 +232,11 @@ public class QueryDroneHelper {
         var req = rec.getRequirements();
         if (req.isCooling() && !cap.isCooling()) return false;
         if (req.isHeating() && !cap.isHeating()) return false;
-        if (req.getCapacity() > cap.getCapacity()) return false;
-
-        LocalTime t = rec.getTime();
-        List<DroneForServicePoint.Availability> windows =
-                (atSP == null) ? null : atSP.getAvailability();
-
-        return QueryDroneHelper.isAvailableAt(windows,day,t);
+        return !(req.getCapacity() > cap.getCapacity());
     }
 
     // Helper function : conservative max-cost check
-    private static boolean respectsMaxCost(Drone.DroneCapability cap,
+    static boolean respectsMaxCost(Drone.DroneCapability cap,
                                            List<ServicePoint> homePoints,
                                            List<MedDispatchRec> dispatches,
                                            int numOfDeliveries) {
@@ -258,7 +259,7 @@ public class QueryDroneHelper {
                 if (target == null) return false;
                 double dist = GeoUtilities.distanceBetween(base, target);
                 //   base -> target -> base  (two legs)
-                double roundTripMoves = 2.0 * (dist / STEP);
+                double roundTripMoves = 2.0 * (dist / GeoUtilities.STEP);
                 roundTripMoves += 1.0;
                 movesForThisBase += roundTripMoves;
             }
@@ -0,0 +1,68 @@
+package uk.ac.ed.acp.cw2.utility;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Serialised answers of the drone query endpoints (dronesWithCooling, queryAsPath, query),
+// keyed by compiled query text and valid for one drone snapshot (DroneColumnIndex version).
+// A newer snapshot drops every entry; answers computed on an older one are returned but not kept.
+// Returned arrays are shared and must not be modified.
+public class QueryResultCache {
+
+    private static final int MAX_ENTRIES = 512;
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private static final Map<String, byte[]> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+    private static long version = -1;
+
+    private QueryResultCache() {
+    }
+
+    // Cached bytes for the key on this snapshot, or the computed ones
+    public static byte[] get(long snapshotVersion, String key, Supplier<byte[]> compute) {
+        synchronized (CACHE) {
+            if (snapshotVersion == version) {
+                byte[] hit = CACHE.get(key);
+                if (hit != null) return hit;
+            }
+        }
+        byte[] bytes = compute.get();
+        synchronized (CACHE) {
+            if (snapshotVersion > version) {
+                CACHE.clear();
+                version = snapshotVersion;
+            }
+            if (snapshotVersion == version) {
+                CACHE.put(key, bytes);
+                Iterator<byte[]> it = CACHE.values().iterator();
+                while (CACHE.size() > MAX_ENTRIES && it.hasNext()) {
+                    it.next();
+                    it.remove();
+                }
+            }
+        }
+        return bytes;
+    }
+
+    // Ids as a JSON array, as Jackson writes a List<String>
+    public static byte[] idsJson(List<String> ids) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + 8 * ids.size());
+        try (JsonGenerator gen = JSON.createGenerator(out)) {
+            gen.writeStartArray();
+            for (String id : ids) gen.writeString(id);
+            gen.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,92 @@
+package uk.ac.ed.acp.cw2.utility;
+
+import uk.ac.ed.acp.cw2.data.*;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// What earlier attempts to open a flight for a record found out, kept for one plan so that
+// "anytime" records retried on every day do not repeat it. Per record and service point:
+//   - the outbound search (it does not depend on the day)
+//   - whether the service point can never serve the record, and why: no drone there has the
+//     capacity / cooling / heating, the target is unreachable, or every drone that has them
+//     would exceed its max moves or the record's max cost on the outbound and return leg.
+// A hopeless service point is skipped, which is the outcome openNewFlight would reach anyway.
+public class RetryMemo {
+
+    // Why a service point can never open a flight for a record
+    public enum Reason { NO_CAPABLE_DRONE, UNREACHABLE, TOO_FAR_OR_COSTLY }
+
+    private static final class Leg {
+        List<Coordinate> forward;   // outbound path, null until searched
+        Reason hopeless;            // null while some day may still succeed
+        boolean capabilityChecked;
+    }
+
+    private final Map<MedDispatchRec, Map<Integer, Leg>> legs = new IdentityHashMap<>();
+
+    // The reason the service point can never serve the record, or null.
+    // The capability part is decided on first use; the rest once the leg has been searched.
+    public Reason hopeless(MedDispatchRec rec, ServicePoint sp,
+                           Map<Integer, DroneForServicePoint> spMapDrone, Map<String, Drone> droneById) {
+        Leg leg = leg(rec, sp);
+        if (!leg.capabilityChecked) {
+            leg.capabilityChecked = true;
+            if (leg.hopeless == null && capableDrones(rec, spMapDrone.get(sp.getId()), droneById).isEmpty())
+                leg.hopeless = Reason.NO_CAPABLE_DRONE;
+        }
+        return leg.hopeless;
+    }
+
+    // Outbound path from the service point, searched on first use
+    public List<Coordinate> forward(MedDispatchRec rec, ServicePoint sp, Supplier<List<Coordinate>> search,
+                                    Map<Integer, DroneForServicePoint> spMapDrone, Map<String, Drone> droneById) {
+        Leg leg = leg(rec, sp);
+        if (leg.forward != null) return leg.forward;
+        leg.forward = search.get();
+        if (leg.forward.isEmpty()) {
+            leg.hopeless = Reason.UNREACHABLE;
+        } else if (leg.hopeless == null && !anyDroneFits(rec, leg.forward.size() - 1,
+                capableDrones(rec, spMapDrone.get(sp.getId()), droneById))) {
+            leg.hopeless = Reason.TOO_FAR_OR_COSTLY;
+        }
+        return leg.forward;
+    }
+
+    // The record has been assigned; its legs are no longer needed
+    public void forget(MedDispatchRec rec) {
+        legs.remove(rec);
+    }
+
+    private Leg leg(MedDispatchRec rec, ServicePoint sp) {
+        return legs.computeIfAbsent(rec, k -> new HashMap<>()).computeIfAbsent(sp.getId(), k -> new Leg());
+    }
+
+    // Drones at the service point that meet the record on some day
+    private static List<Drone> capableDrones(MedDispatchRec rec, DroneForServicePoint spEntry,
+                                             Map<String, Drone> droneById) {
+        if (spEntry == null || spEntry.getDrones() == null) return List.of();
+        return spEntry.getDrones().stream()
+                .filter(item -> item != null)
+                .map(item -> droneById.get(item.getId()))
+                .filter(d -> QueryDroneHelper.meetsCapability(d, rec))
+                .toList();
+    }
+
+    // Same selection as openNewFlight: within max moves and strictly below the record's max cost
+    private static boolean anyDroneFits(MedDispatchRec rec, int fSteps, List<Drone> drones) {
+        int neededSteps = fSteps + fSteps + 1;
+        Double maxCost = rec.getRequirements().getMaxCost();
+        double bound = maxCost == null ? Double.MAX_VALUE : maxCost;
+        for (Drone d : drones) {
+            var cap = d.getCapability();
+            if (neededSteps > cap.getMaxMoves()) continue;
+            double est = cap.getCostInitial() + cap.getCostFinal() + cap.getCostPerMove() * neededSteps;
+            if (est < bound) return true;
+        }
+        return false;
+    }
+}
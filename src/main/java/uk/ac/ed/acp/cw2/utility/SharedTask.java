@@ -0,0 +1,77 @@
+package uk.ac.ed.acp.cw2.utility;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Work handed to the shared plan workers (PlanExecutors) that the caller can also do itself.
+// Whoever claims the task first runs it: a worker, or the caller once it needs the result and no
+// worker has started it yet. A task the executor rejects, or submitted without one, is therefore
+// simply run by the caller. Waiting only ever happens on started tasks, so tasks that submit
+// tasks of their own to the same workers cannot deadlock.
+public class SharedTask<T> {
+
+    private final Callable<T> work;
+    private final AtomicBoolean claimed = new AtomicBoolean();
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+
+    private SharedTask(Callable<T> work) {
+        this.work = work;
+    }
+
+    // Offer the work to the executor (null: run by the caller)
+    public static <T> SharedTask<T> submit(Executor executor, Callable<T> work) {
+        SharedTask<T> task = new SharedTask<>(work);
+        if (executor != null) {
+            try {
+                executor.execute(task::run);
+            } catch (RejectedExecutionException e) {
+                // Busy: the caller runs it
+            }
+        }
+        return task;
+    }
+
+    // Task whose result is already known
+    public static <T> SharedTask<T> completed(T value) {
+        SharedTask<T> task = new SharedTask<>(() -> value);
+        task.run();
+        return task;
+    }
+
+    private void run() {
+        if (!claimed.compareAndSet(false, true)) return;
+        try {
+            result.complete(work.call());
+        } catch (Throwable t) {
+            result.completeExceptionally(t);
+        }
+    }
+
+    // The result, running the task here if no worker has started it. Waits at most until the
+    // token's deadline; throws PlanAbortedException once the token is cancelled or the task was,
+    // and ExecutionException if the work itself failed.
+    public T join(CancellationToken token) throws ExecutionException {
+        run();
+        try {
+            while (true) {
+                try {
+                    return result.get(token.remainingNanos(), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    token.throwIfCancelled();
+                }
+            }
+        } catch (CancellationException e) {
+            token.throwIfCancelled();
+            throw new PlanAbortedException(CancellationToken.REASON_UNUSED);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            token.cancel(CancellationToken.REASON_DISCONNECT);
+            throw new PlanAbortedException(CancellationToken.REASON_DISCONNECT);
+        }
+    }
+
+    // Drop the task if no one has started it; started work stops through its own token
+    public void cancel() {
+        if (claimed.compareAndSet(false, true)) result.cancel(false);
+    }
+}
@@ -0,0 +1,46 @@
+package uk.ac.ed.acp.cw2.utility;
+
+import uk.ac.ed.acp.cw2.data.Coordinate;
+import uk.ac.ed.acp.cw2.data.Node;
+
+import java.util.List;
+
+// Result of a one-to-many search (GeoUtilities.pathsFrom): for every goal, the search node
+// it was reached at. Paths are only rebuilt from the parent links when asked for.
+public class SourcePaths {
+    private final Coordinate source;
+    private final List<Coordinate> goals;
+    private final Node[] reached;
+
+    SourcePaths(Coordinate source, List<Coordinate> goals) {
+        this.source = source;
+        this.goals = goals;
+        this.reached = new Node[goals.size()];
+    }
+
+    void settle(int goal, Node at) {
+        reached[goal] = at;
+    }
+
+    public Coordinate getSource() {
+        return source;
+    }
+
+    public List<Coordinate> getGoals() {
+        return goals;
+    }
+
+    public boolean isReached(int goal) {
+        return reached[goal] != null;
+    }
+
+    // Steps to the goal, or -1 if it was not reached
+    public int steps(int goal) {
+        return reached[goal] == null ? -1 : reached[goal].getG();
+    }
+
+    // Path from the source to the goal (same form as pathBetween), empty if not reached
+    public List<Coordinate> path(int goal) {
+        return reached[goal] == null ? List.of() : PathFindingHelper.reconstruct(reached[goal]);
+    }
+}
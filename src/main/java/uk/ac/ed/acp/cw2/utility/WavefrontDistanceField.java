@@ -0,0 +1,268 @@
+package uk.ac.ed.acp.cw2.utility;
+
+import uk.ac.ed.acp.cw2.data.BoundBox;
+import uk.ac.ed.acp.cw2.data.Coordinate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Breadth-first distance field over the STEP grid, expanded one whole wavefront at a time.
+// Each grid row is packed into 64-bit words; a wave ORs the frontier shifted by every move
+// offset and masks the result with the free-cell raster, so open areas flood at the speed
+// of a few word operations per 64 cells.
+//
+// At STEP resolution the 16 headings round onto the 8 king-move offsets, and a real move
+// changes each grid index by at most one. A cell is only blocked when it lies entirely
+// inside a restricted area, so the hop count of a cell is a lower bound on the moves a drone
+// needs to reach it, and an unreachable cell cannot be reached by the A* search either.
+public class WavefrontDistanceField {
+
+    public static final int UNREACHABLE = -1;
+
+    // Distinct grid offsets of the 16 headings at STEP resolution
+    private static final int[][] OFFSETS = moveOffsets();
+
+    private final long x0, y0;      // grid index of column 0 / row 0
+    private final int cols, rows;
+    private final int[] dist;       // hop count per cell, UNREACHABLE if never reached
+    private int waves;
+
+    private WavefrontDistanceField(long x0, long y0, int cols, int rows) {
+        this.x0 = x0;
+        this.y0 = y0;
+        this.cols = cols;
+        this.rows = rows;
+        this.dist = new int[cols * rows];
+        Arrays.fill(dist, UNREACHABLE);
+    }
+
+    // Flood the grid cells inside bounds from the source, treating restricted areas as walls.
+    public static WavefrontDistanceField flood(Coordinate source, BoundBox bounds,
+                                               List<List<Coordinate>> rects,
+                                               CancellationToken token) {
+        long x0 = Math.round(bounds.getMin().getLng() / GeoUtilities.STEP);
+        long y0 = Math.round(bounds.getMin().getLat() / GeoUtilities.STEP);
+        int cols = (int) (Math.round(bounds.getMax().getLng() / GeoUtilities.STEP) - x0 + 1);
+        int rows = (int) (Math.round(bounds.getMax().getLat() / GeoUtilities.STEP) - y0 + 1);
+        WavefrontDistanceField field = new WavefrontDistanceField(x0, y0, cols, rows);
+
+        int words = (cols + 63) >>> 6;
+        long[] free = field.freeRaster(rects, words);
+        int si = (int) (PathFindingHelper.gx(source) - x0);
+        int sj = (int) (PathFindingHelper.gy(source) - y0);
+        if (!field.inGrid(si, sj) || !testBit(free, bitIndex(sj, si, words))) return field;
+
+        long[] visited = new long[rows * words];
+        long[] frontier = new long[rows * words];
+        long[] next = new long[rows * words];
+        setBit(visited, bitIndex(sj, si, words));
+        setBit(frontier, bitIndex(sj, si, words));
+        field.dist[sj * cols + si] = 0;
+        int lo = sj, hi = sj;   // rows the frontier occupies
+
+        for (int wave = 1; lo <= hi; wave++) {
+            if ((wave & 63) == 0) token.throwIfCancelled();
+            int nlo = Math.max(0, lo - 1), nhi = Math.min(rows - 1, hi + 1);
+            for (int j = nlo; j <= nhi; j++) {
+                int row = j * words;
+                for (int[] off : OFFSETS) {
+                    int src = j - off[1];
+                    if (src < lo || src > hi) continue;
+                    shiftOr(frontier, src * words, next, row, words, off[0]);
+                }
+            }
+            // Mask with free cells not reached yet, record the new wave
+            int newLo = Integer.MAX_VALUE, newHi = -1;
+            for (int j = nlo; j <= nhi; j++) {
+                int row = j * words;
+                boolean any = false;
+                for (int w = 0; w < words; w++) {
+                    long bits = next[row + w] & free[row + w] & ~visited[row + w];
+                    next[row + w] = 0L;
+                    frontier[row + w] = bits;
+                    if (bits == 0L) continue;
+                    any = true;
+                    visited[row + w] |= bits;
+                    while (bits != 0L) {
+                        int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+                        field.dist[j * cols + i] = wave;
+                        bits &= bits - 1;
+                    }
+                }
+                if (any) {
+                    newLo = Math.min(newLo, j);
+                    newHi = j;
+                }
+            }
+            // Clear frontier rows that were not rewritten above
+            for (int j = lo; j <= hi; j++) {
+                if (j >= nlo && j <= nhi) continue;
+                Arrays.fill(frontier, j * words, (j + 1) * words, 0L);
+            }
+            if (newHi < 0) break;
+            field.waves = wave;
+            lo = newLo;
+            hi = newHi;
+        }
+        return field;
+    }
+
+    // Lower bound on the moves needed to get within STEP of the target,
+    // or UNREACHABLE if no cell near it can be reached.
+    public int lowerBound(Coordinate target) {
+        int ti = (int) (PathFindingHelper.gx(target) - x0);
+        int tj = (int) (PathFindingHelper.gy(target) - y0);
+        int best = UNREACHABLE;
+        for (int dj = -1; dj <= 1; dj++) {
+            for (int di = -1; di <= 1; di++) {
+                int d = stepsToCell(ti + di, tj + dj);
+                if (d != UNREACHABLE && (best == UNREACHABLE || d < best)) best = d;
+            }
+        }
+        return best;
+    }
+
+    // Hop count of the cell containing the coordinate, UNREACHABLE if outside or unreached
+    public int stepsTo(Coordinate c) {
+        return stepsToCell((int) (PathFindingHelper.gx(c) - x0), (int) (PathFindingHelper.gy(c) - y0));
+    }
+
+    // Whether the coordinate lies within the flooded grid
+    public boolean covers(Coordinate c) {
+        return inGrid((int) (PathFindingHelper.gx(c) - x0), (int) (PathFindingHelper.gy(c) - y0));
+    }
+
+    // Number of waves the flood ran (largest finite distance)
+    public int getWaves() {
+        return waves;
+    }
+
+    public int cellCount() {
+        return cols * rows;
+    }
+
+    private int stepsToCell(int i, int j) {
+        return inGrid(i, j) ? dist[j * cols + i] : UNREACHABLE;
+    }
+
+    private boolean inGrid(int i, int j) {
+        return i >= 0 && i < cols && j >= 0 && j < rows;
+    }
+
+    // Raster of free cells: every cell is free unless it lies entirely inside one polygon.
+    private long[] freeRaster(List<List<Coordinate>> rects, int words) {
+        long[] free = new long[rows * words];
+        for (int j = 0; j < rows; j++) {
+            for (int i = 0; i < cols; i++) setBit(free, bitIndex(j, i, words));
+        }
+        if (rects == null) return free;
+        double half = GeoUtilities.STEP / 2;
+        for (List<Coordinate> poly : rects) {
+            if (poly == null || poly.size() < 4) continue;
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+            for (Coordinate v : poly) {
+                minX = Math.min(minX, v.getLng());
+                maxX = Math.max(maxX, v.getLng());
+                minY = Math.min(minY, v.getLat());
+                maxY = Math.max(maxY, v.getLat());
+            }
+            int i0 = Math.max(0, (int) (Math.ceil((minX + half) / GeoUtilities.STEP) - x0));
+            int i1 = Math.min(cols - 1, (int) (Math.floor((maxX - half) / GeoUtilities.STEP) - x0));
+            int j0 = Math.max(0, (int) (Math.ceil((minY + half) / GeoUtilities.STEP) - y0));
+            int j1 = Math.min(rows - 1, (int) (Math.floor((maxY - half) / GeoUtilities.STEP) - y0));
+            if (i0 > i1 || j0 > j1) continue;
+
+            // Corner (i, j) is the lower-left corner of cell (i0 + i, j0 + j)
+            int ci = i1 - i0 + 2, cj = j1 - j0 + 2;
+            boolean[] cornerInside = new boolean[ci * cj];
+            for (int j = 0; j < cj; j++) {
+                for (int i = 0; i < ci; i++) {
+                    Coordinate corner = new Coordinate((x0 + i0 + i) * GeoUtilities.STEP - half, (y0 + j0 + j) * GeoUtilities.STEP - half);
+                    cornerInside[j * ci + i] = GeoUtilities.isPointInRegion(corner, poly);
+                }
+            }
+            for (int j = j0; j <= j1; j++) {
+                for (int i = i0; i <= i1; i++) {
+                    int c = (j - j0) * ci + (i - i0);
+                    if (!cornerInside[c] || !cornerInside[c + 1]
+                            || !cornerInside[c + ci] || !cornerInside[c + ci + 1]) continue;
+                    double cx = (x0 + i) * GeoUtilities.STEP, cy = (y0 + j) * GeoUtilities.STEP;
+                    if (boundaryTouchesCell(poly, cx - half, cy - half, cx + half, cy + half)) continue;
+                    clearBit(free, bitIndex(j, i, words));
+                }
+            }
+        }
+        return free;
+    }
+
+    // Whether any polygon vertex lies in the cell or any edge crosses one of its sides
+    private static boolean boundaryTouchesCell(List<Coordinate> poly,
+                                               double x0, double y0, double x1, double y1) {
+        Coordinate a = new Coordinate(x0, y0), b = new Coordinate(x1, y0);
+        Coordinate c = new Coordinate(x1, y1), d = new Coordinate(x0, y1);
+        for (int k = 0; k < poly.size() - 1; k++) {
+            Coordinate p = poly.get(k), q = poly.get(k + 1);
+            if (Math.max(p.getLng(), q.getLng()) < x0 || Math.min(p.getLng(), q.getLng()) > x1
+                    || Math.max(p.getLat(), q.getLat()) < y0 || Math.min(p.getLat(), q.getLat()) > y1)
+                continue;
+            if (p.getLng() >= x0 && p.getLng() <= x1 && p.getLat() >= y0 && p.getLat() <= y1) return true;
+            if (GeoUtilities.segmentsIntersect(p, q, a, b) || GeoUtilities.segmentsIntersect(p, q, b, c)
+                    || GeoUtilities.segmentsIntersect(p, q, c, d) || GeoUtilities.segmentsIntersect(p, q, d, a))
+                return true;
+        }
+        return false;
+    }
+
+    // OR the source row, shifted dx cells along x, into the target row
+    private static void shiftOr(long[] src, int srcRow, long[] dst, int dstRow, int words, int dx) {
+        if (dx == 0) {
+            for (int w = 0; w < words; w++) dst[dstRow + w] |= src[srcRow + w];
+        } else if (dx > 0) {
+            long carry = 0L;
+            for (int w = 0; w < words; w++) {
+                long v = src[srcRow + w];
+                dst[dstRow + w] |= (v << 1) | carry;
+                carry = v >>> 63;
+            }
+        } else {
+            long carry = 0L;
+            for (int w = words - 1; w >= 0; w--) {
+                long v = src[srcRow + w];
+                dst[dstRow + w] |= (v >>> 1) | carry;
+                carry = v << 63;
+            }
+        }
+    }
+
+    private static int[][] moveOffsets() {
+        List<int[]> offsets = new ArrayList<>();
+        for (int dir = 0; dir < 16; dir++) {
+            double rad = Math.toRadians(dir * 22.5);
+            int dx = (int) Math.round(Math.cos(rad));
+            int dy = (int) Math.round(Math.sin(rad));
+            boolean seen = false;
+            for (int[] o : offsets) seen |= (o[0] == dx && o[1] == dy);
+            if (!seen) offsets.add(new int[]{dx, dy});
+        }
+        return offsets.toArray(new int[0][]);
+    }
+
+    // Bit of cell (i, j) in a raster whose rows are words 64-bit words long
+    private static int bitIndex(int j, int i, int words) {
+        return ((j * words) << 6) + i;
+    }
+
+    private static boolean testBit(long[] bits, int idx) {
+        return (bits[idx >>> 6] & (1L << (idx & 63))) != 0L;
+    }
+
+    private static void setBit(long[] bits, int idx) {
+        bits[idx >>> 6] |= 1L << (idx & 63);
+    }
+
+    private static void clearBit(long[] bits, int idx) {
+        bits[idx >>> 6] &= ~(1L << (idx & 63));
+    }
+}
@@ -0,0 +1,129 @@
+package uk.ac.ed.acp.cw2.system;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.data.Coordinate;
+import uk.ac.ed.acp.cw2.data.MedDispatchRec;
+import uk.ac.ed.acp.cw2.data.response.BatchPlanResult;
+import uk.ac.ed.acp.cw2.external.DroneServiceImpl;
+import uk.ac.ed.acp.cw2.external.IlpClientComponent;
+import uk.ac.ed.acp.cw2.utility.CancellationToken;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static uk.ac.ed.acp.cw2.system.PlanFixtures.*;
+
+/**
+ * calcDeliveryPathBatch: each group is planned as calcDeliveryPath would plan it on its own,
+ * the ILP data is fetched once per batch, and a failing group does not affect the others.
+ */
+class DroneServiceImplBatchTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    // D1 and D2 (D1 cheaper per move) at SP-1, with RA-1
+    private static IlpClientComponent ilp() {
+        return PlanFixtures.ilp(
+                List.of(drone("D1", 4.0, 2000, 1.0, 1.0, 0.02), drone("D2", 4.0, 2000, 1.0, 1.0, 0.03)),
+                List.of(servicePoint(1, SP1)),
+                List.of(station(1, List.of("D1", "D2"))),
+                List.of(ra1()));
+    }
+
+    private static MedDispatchRec dispatch(int id, Coordinate delivery) {
+        MedDispatchRec r = PlanFixtures.dispatch(id, LocalDate.of(2025, 12, 22), 0.0, 0.0);
+        r.setDelivery(delivery);
+        return r;
+    }
+
+    @Test
+    @DisplayName("calcDeliveryPathBatch: results follow group order and match single plans, one ILP fetch")
+    void batch_matchesSinglePlans() throws Exception {
+        List<List<MedDispatchRec>> groups = List.of(
+                List.of(dispatch(1, c(-3.1840, 55.9446)), dispatch(2, c(-3.1845, 55.9470))),
+                List.of(),
+                List.of(dispatch(3, c(-3.1950, 55.9420))));
+        IlpClientComponent ilp = ilp();
+
+        List<BatchPlanResult> results = new DroneServiceImpl(ilp)
+                .calcDeliveryPathBatch(groups, CancellationToken.none());
+
+        assertEquals(3, results.size());
+        for (int i = 0; i < groups.size(); i++) {
+            BatchPlanResult r = results.get(i);
+            assertEquals(i, r.getIndex());
+            assertEquals(BatchPlanResult.OK, r.getStatus());
+            assertNull(r.getError());
+            assertEquals(mapper.writeValueAsString(new DroneServiceImpl(ilp()).calcDeliveryPath(new ArrayList<>(groups.get(i)))),
+                    mapper.writeValueAsString(r.getPlan()), "group " + i);
+        }
+        verify(ilp, times(1)).getAllDrones();
+        verify(ilp, times(1)).getServicePoints();
+        verify(ilp, times(1)).getRestrictedAreas();
+        verify(ilp, times(1)).getDronesForServicePoints();
+    }
+
+    @Test
+    @DisplayName("calcDeliveryPathBatch: on shared workers, groups still match single plans")
+    void batch_onWorkers_matchesSinglePlans() throws Exception {
+        List<List<MedDispatchRec>> groups = List.of(
+                List.of(dispatch(1, c(-3.1840, 55.9446)), dispatch(2, c(-3.1845, 55.9470))),
+                List.of(dispatch(3, c(-3.1950, 55.9420))),
+                List.of(dispatch(4, c(-3.1930, 55.9480))));
+        // Fewer workers and queue slots than groups: the rest is planned by the caller
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1));
+        try {
+            List<BatchPlanResult> results = new DroneServiceImpl(ilp(), workers, true, true)
+                    .calcDeliveryPathBatch(groups, CancellationToken.none());
+            for (int i = 0; i < groups.size(); i++) {
+                assertEquals(BatchPlanResult.OK, results.get(i).getStatus());
+                assertEquals(mapper.writeValueAsString(new DroneServiceImpl(ilp()).calcDeliveryPath(new ArrayList<>(groups.get(i)))),
+                        mapper.writeValueAsString(results.get(i).getPlan()), "group " + i);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("calcDeliveryPathBatch: a group that fails reports an error without affecting the others")
+    void batch_isolatesFailures() {
+        // A delivery without a longitude passes validation but cannot be planned
+        List<List<MedDispatchRec>> groups = List.of(
+                List.of(dispatch(1, c(-3.1950, 55.9420))),
+                List.of(dispatch(2, new Coordinate(null, 55.9420))),
+                List.of(dispatch(3, c(-3.1930, 55.9480))));
+
+        List<BatchPlanResult> results = new DroneServiceImpl(ilp())
+                .calcDeliveryPathBatch(groups, CancellationToken.none());
+
+        assertEquals(BatchPlanResult.OK, results.get(0).getStatus());
+        assertEquals(BatchPlanResult.ERROR, results.get(1).getStatus());
+        assertNotNull(results.get(1).getError());
+        assertNull(results.get(1).getPlan());
+        assertEquals(BatchPlanResult.OK, results.get(2).getStatus());
+        assertEquals(1, results.get(2).getPlan().getDronePaths().size());
+    }
+
+    @Test
+    @DisplayName("calcDeliveryPathBatch: groups left when the token is cancelled are reported as aborted")
+    void batch_cancelledIsAborted() {
+        List<List<MedDispatchRec>> groups = List.of(List.of(dispatch(1, c(-3.1950, 55.9420))));
+        CancellationToken cancelled = CancellationToken.withTimeout(java.time.Duration.ofMinutes(1));
+        cancelled.cancel(CancellationToken.REASON_DEADLINE);
+
+        List<BatchPlanResult> results = new DroneServiceImpl(ilp()).calcDeliveryPathBatch(groups, cancelled);
+
+        assertEquals(BatchPlanResult.ABORTED, results.getFirst().getStatus());
+        assertEquals(CancellationToken.REASON_DEADLINE, results.getFirst().getError());
+    }
+}
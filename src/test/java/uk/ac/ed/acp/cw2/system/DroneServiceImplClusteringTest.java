@@ -0,0 +1,84 @@
+package uk.ac.ed.acp.cw2.system;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.data.*;
+import uk.ac.ed.acp.cw2.data.response.CalcDeliveryPathResponse;
+import uk.ac.ed.acp.cw2.external.DroneServiceImpl;
+import uk.ac.ed.acp.cw2.external.IlpClientComponent;
+import uk.ac.ed.acp.cw2.utility.CancellationToken;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static uk.ac.ed.acp.cw2.system.PlanFixtures.*;
+
+/**
+ * Clustered planning must deliver the same records as planning in request order, with fewer moves.
+ */
+class DroneServiceImplClusteringTest {
+
+    // Two drones at each of two service points, on duty every day
+    private static IlpClientComponent ilp() {
+        List<Drone> drones = new ArrayList<>();
+        for (int i = 1; i <= 2; i++) {
+            Drone d = drone("D" + i, 8.0, 2500, 1.0, 1.0, 0.01 * i);
+            d.getCapability().setCooling(true);
+            d.getCapability().setHeating(true);
+            drones.add(d);
+        }
+        return PlanFixtures.ilp(drones,
+                List.of(servicePoint(1, SP1), servicePoint(2, c(-3.1780, 55.9400))),
+                List.of(station(1, List.of("D1", "D2")), station(2, List.of("D1", "D2"))),
+                List.of());
+    }
+
+    // Date-only and anytime records scattered over the area, over three days
+    private static List<MedDispatchRec> records(Random rnd, int count) {
+        List<MedDispatchRec> recs = new ArrayList<>();
+        for (int id = 1; id <= count; id++) {
+            MedDispatchRec r = new MedDispatchRec();
+            r.setId(id);
+            if (rnd.nextInt(4) > 0) r.setDate(LocalDate.of(2025, 12, 22).plusDays(rnd.nextInt(3)));
+            r.setDelivery(c(-3.1960 + rnd.nextDouble() * 0.0240, 55.9360 + rnd.nextDouble() * 0.0120));
+            MedDispatchRec.Requirement req = new MedDispatchRec.Requirement();
+            req.setCapacity(0.5 + rnd.nextInt(3));
+            r.setRequirements(req);
+            recs.add(r);
+        }
+        return recs;
+    }
+
+    private static Set<Integer> deliveredIds(CalcDeliveryPathResponse plan) {
+        Set<Integer> ids = new TreeSet<>();
+        for (var path : plan.getDronePaths())
+            for (var seg : path.getDeliveries())
+                if (seg.getDeliveryId() != null) ids.add(seg.getDeliveryId());
+        return ids;
+    }
+
+    @Test
+    @DisplayName("calcDeliveryPath: clustering delivers every record with fewer moves than request order")
+    void clustering_fewerMovesSameDeliveries() {
+        Random rnd = new Random(50);
+        long inOrderMoves = 0, clusteredMoves = 0;
+        for (int round = 0; round < 3; round++) {
+            List<MedDispatchRec> recs = records(rnd, 40);
+            CalcDeliveryPathResponse inOrder = new DroneServiceImpl(ilp(), true, false)
+                    .calcDeliveryPath(new ArrayList<>(recs), CancellationToken.none());
+            CalcDeliveryPathResponse clustered = new DroneServiceImpl(ilp(), true, true)
+                    .calcDeliveryPath(new ArrayList<>(recs), CancellationToken.none());
+
+            assertEquals(40, deliveredIds(inOrder).size(), "round " + round);
+            assertEquals(deliveredIds(inOrder), deliveredIds(clustered), "round " + round);
+            inOrderMoves += inOrder.getTotalMoves();
+            clusteredMoves += clustered.getTotalMoves();
+        }
+        assertTrue(clusteredMoves < inOrderMoves, clusteredMoves + " vs " + inOrderMoves);
+    }
+}
@@ -0,0 +1,199 @@
+package uk.ac.ed.acp.cw2.system;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.data.Coordinate;
+import uk.ac.ed.acp.cw2.data.Drone;
+import uk.ac.ed.acp.cw2.data.DroneForServicePoint;
+import uk.ac.ed.acp.cw2.data.MedDispatchRec;
+import uk.ac.ed.acp.cw2.data.RestrictedArea;
+import uk.ac.ed.acp.cw2.data.ServicePoint;
+import uk.ac.ed.acp.cw2.data.response.CalcDeliveryPathResponse;
+import uk.ac.ed.acp.cw2.data.response.DeliveryCostEstimateResponse;
+import uk.ac.ed.acp.cw2.external.DroneServiceImpl;
+import uk.ac.ed.acp.cw2.external.IlpClientComponent;
+import uk.ac.ed.acp.cw2.utility.CancellationToken;
+import uk.ac.ed.acp.cw2.utility.DeliveryCostEstimator;
+import uk.ac.ed.acp.cw2.utility.GeoUtilities;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * estimateDeliveryCost must agree with calcDeliveryPath on feasibility and drone choice for a
+ * single dispatch, and its moves must respect the error bounds it states.
+ */
+class DroneServiceImplEstimateTest {
+
+    private static final Coordinate SP = c(-3.1900, 55.9445);
+
+    private static Coordinate c(double lng, double lat) {
+        return new Coordinate(lng, lat);
+    }
+
+    private static Drone drone(String id, double capacity, int maxMoves, double costPerMove) {
+        Drone d = new Drone();
+        d.setId(id);
+        Drone.DroneCapability cap = new Drone.DroneCapability();
+        cap.setCapacity(capacity);
+        cap.setMaxMoves(maxMoves);
+        cap.setCostInitial(1.0);
+        cap.setCostFinal(1.0);
+        cap.setCostPerMove(costPerMove);
+        d.setCapability(cap);
+        return d;
+    }
+
+    private static IlpClientComponent ilp(List<Drone> drones) {
+        ServicePoint sp = new ServicePoint();
+        sp.setId(1);
+        sp.setName("SP-1");
+        sp.setLocation(SP);
+
+        DroneForServicePoint dfsp = new DroneForServicePoint();
+        dfsp.setServicePointId(1);
+        List<DroneForServicePoint.Item> items = new ArrayList<>();
+        for (Drone d : drones) {
+            DroneForServicePoint.Item item = new DroneForServicePoint.Item();
+            item.setId(d.getId());
+            List<DroneForServicePoint.Availability> always = new ArrayList<>();
+            for (String day : List.of("MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY", "SATURDAY", "SUNDAY"))
+                always.add(new DroneForServicePoint.Availability(day, "00:00:00", "23:59:59"));
+            item.setAvailability(always);
+            items.add(item);
+        }
+        dfsp.setDrones(items);
+
+        RestrictedArea ra = new RestrictedArea();
+        ra.setId(1);
+        ra.setName("RA-1");
+        ra.setVertices(List.of(c(-3.1880, 55.9430), c(-3.1860, 55.9430), c(-3.1860, 55.9460),
+                c(-3.1880, 55.9460), c(-3.1880, 55.9430)));
+
+        IlpClientComponent ilp = mock(IlpClientComponent.class);
+        when(ilp.getAllDrones()).thenReturn(new ArrayList<>(drones));
+        when(ilp.getServicePoints()).thenReturn(new ArrayList<>(List.of(sp)));
+        when(ilp.getRestrictedAreas()).thenReturn(new ArrayList<>(List.of(ra)));
+        when(ilp.getDronesForServicePoints()).thenReturn(new ArrayList<>(List.of(dfsp)));
+        return ilp;
+    }
+
+    private static MedDispatchRec dispatch(int id, Coordinate delivery, double capacity) {
+        MedDispatchRec r = new MedDispatchRec();
+        r.setId(id);
+        r.setDate(LocalDate.of(2025, 12, 22));
+        r.setDelivery(delivery);
+        MedDispatchRec.Requirement req = new MedDispatchRec.Requirement();
+        req.setCapacity(capacity);
+        r.setRequirements(req);
+        return r;
+    }
+
+    private static int plannedMoves(IlpClientComponent ilp, MedDispatchRec rec) {
+        CalcDeliveryPathResponse plan = new DroneServiceImpl(ilp).calcDeliveryPath(new ArrayList<>(List.of(rec)));
+        return plan.getTotalMoves();
+    }
+
+    @Test
+    @DisplayName("estimateDeliveryCost: open-ground estimates match the plan within the stated bounds")
+    void openGround_withinStatedBounds() {
+        List<Drone> drones = List.of(drone("CHEAP", 4.0, 2000, 0.01), drone("DEAR", 4.0, 2000, 0.05));
+        List<Coordinate> targets = List.of(c(-3.1950, 55.9445), c(-3.1930, 55.9490),
+                c(-3.1960, 55.9400), c(-3.1905, 55.9380), c(-3.1890, 55.9500));
+        List<MedDispatchRec> recs = new ArrayList<>();
+        for (int i = 0; i < targets.size(); i++) recs.add(dispatch(i + 1, targets.get(i), 1.0));
+
+        DeliveryCostEstimateResponse resp = new DroneServiceImpl(ilp(drones))
+                .estimateDeliveryCost(recs, CancellationToken.none());
+
+        assertEquals(DeliveryCostEstimator.ERROR_BOUNDS, resp.getErrorBounds());
+        assertEquals(targets.size(), resp.getEstimates().size());
+        for (int i = 0; i < recs.size(); i++) {
+            DeliveryCostEstimateResponse.DispatchEstimate e = resp.getEstimates().get(i);
+            int actual = plannedMoves(ilp(drones), recs.get(i));
+            assertTrue(e.isFeasible());
+            assertEquals("CHEAP", e.getDroneId());
+            assertEquals(1, e.getServicePointId());
+            assertTrue(e.getMovesLowerBound() <= actual, "lower bound for " + i);
+            // Two legs, each at most 2 moves shorter than the estimate and never longer, plus the hover
+            assertTrue(actual >= e.getEstimatedMoves() - 4 && actual <= e.getEstimatedMoves(),
+                    "dispatch " + i + ": planned " + actual + ", estimated " + e.getEstimatedMoves());
+            assertEquals(1.0 + 1.0 + 0.01 * e.getEstimatedMoves(), e.getEstimatedCost(), 1e-9);
+        }
+    }
+
+    @Test
+    @DisplayName("pathBetween: open-ground legs are at most 2 moves shorter than the Manhattan distance, never longer")
+    void openGround_legsTrackManhattan() {
+        Random rnd = new Random(37);
+        for (int i = 0; i < 300; i++) {
+            double dx = (rnd.nextDouble() * 2 - 1) * 0.02;
+            double dy = (rnd.nextDouble() * 2 - 1) * 0.02;
+            Coordinate to = c(SP.getLng() + dx, SP.getLat() + dy);
+            int steps = GeoUtilities.pathBetween(SP, to, List.of(), List.of()).size() - 1;
+            int manhattan = (int) Math.round((Math.abs(dx) + Math.abs(dy)) / 0.00015);
+            assertTrue(steps <= manhattan && steps >= manhattan - 2,
+                    "leg " + i + ": " + steps + " moves, Manhattan " + manhattan);
+        }
+    }
+
+    @Test
+    @DisplayName("estimateDeliveryCost: feasibility follows the lower bounds, not the estimate")
+    void feasibility_followsLowerBounds() {
+        // A diagonal leg: its estimate is well above its lower bound
+        MedDispatchRec rec = dispatch(1, c(-3.1950, 55.9395), 1.0);
+        DeliveryCostEstimateResponse.DispatchEstimate roomy = new DroneServiceImpl(ilp(List.of(drone("D1", 4.0, 2000, 0.01))))
+                .estimateDeliveryCost(List.of(rec), CancellationToken.none()).getEstimates().getFirst();
+        int lower = roomy.getMovesLowerBound();
+        assertTrue(roomy.getEstimatedMoves() > lower);
+
+        // Max moves between the bound and the estimate: feasible, and the estimate says so
+        List<Drone> tight = List.of(drone("D1", 4.0, lower, 0.01));
+        DeliveryCostEstimateResponse.DispatchEstimate e = new DroneServiceImpl(ilp(tight))
+                .estimateDeliveryCost(List.of(rec), CancellationToken.none()).getEstimates().getFirst();
+        assertTrue(e.isFeasible());
+        assertEquals(lower, e.getMovesLowerBound());
+        assertTrue(e.getEstimatedMoves() > lower);
+
+        // Below the bound: too far
+        List<Drone> tooShort = List.of(drone("D1", 4.0, lower - 1, 0.01));
+        assertEquals(DeliveryCostEstimator.TOO_FAR, new DroneServiceImpl(ilp(tooShort))
+                .estimateDeliveryCost(List.of(rec), CancellationToken.none()).getEstimates().getFirst().getReason());
+    }
+
+    @Test
+    @DisplayName("estimateDeliveryCost: the lower bound holds around a restricted area")
+    void restrictedArea_lowerBoundHolds() {
+        List<Drone> drones = List.of(drone("D1", 4.0, 2000, 0.01));
+        MedDispatchRec rec = dispatch(1, c(-3.1840, 55.9446), 1.0);
+
+        DeliveryCostEstimateResponse.DispatchEstimate e = new DroneServiceImpl(ilp(drones))
+                .estimateDeliveryCost(List.of(rec), CancellationToken.none()).getEstimates().getFirst();
+
+        assertTrue(e.isFeasible());
+        assertTrue(e.getMovesLowerBound() <= plannedMoves(ilp(drones), rec));
+    }
+
+    @Test
+    @DisplayName("estimateDeliveryCost: infeasible dispatches carry the reason")
+    void infeasible_reasons() {
+        List<Drone> drones = List.of(drone("SMALL", 1.0, 2000, 0.01), drone("SHORT", 4.0, 20, 0.01));
+
+        List<DeliveryCostEstimateResponse.DispatchEstimate> es = new DroneServiceImpl(ilp(drones))
+                .estimateDeliveryCost(List.of(
+                        dispatch(1, c(-3.1870, 55.9445), 1.0),
+                        dispatch(2, c(-3.1950, 55.9445), 2.0),
+                        dispatch(3, c(-3.1950, 55.9445), 9.0)), CancellationToken.none()).getEstimates();
+
+        assertEquals(DeliveryCostEstimator.RESTRICTED, es.get(0).getReason());
+        assertEquals(DeliveryCostEstimator.TOO_FAR, es.get(1).getReason());
+        assertEquals(DeliveryCostEstimator.NO_DRONE, es.get(2).getReason());
+        assertFalse(es.get(2).isFeasible());
+        assertNull(es.get(2).getDroneId());
+    }
+}
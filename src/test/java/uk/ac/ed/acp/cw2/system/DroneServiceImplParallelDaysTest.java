@@ -0,0 +1,151 @@
+package uk.ac.ed.acp.cw2.system;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.data.*;
+import uk.ac.ed.acp.cw2.external.DroneServiceImpl;
+import uk.ac.ed.acp.cw2.external.IlpClientComponent;
+import uk.ac.ed.acp.cw2.utility.CancellationToken;
+import uk.ac.ed.acp.cw2.utility.DaySpeculation;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static uk.ac.ed.acp.cw2.system.PlanFixtures.*;
+
+/**
+ * Planning later days ahead in parallel must give exactly the plan of the sequential planner.
+ */
+class DroneServiceImplParallelDaysTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    // Stands in for the plan workers of PlanExecutors
+    private static ExecutorService workers;
+
+    @BeforeAll
+    static void startWorkers() {
+        workers = Executors.newFixedThreadPool(3);
+    }
+
+    @AfterAll
+    static void stopWorkers() {
+        workers.shutdownNow();
+    }
+
+    // Three drones at two service points, on duty every day; one restricted block between them
+    private static IlpClientComponent ilp() {
+        List<Drone> drones = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            Drone d = drone("D" + i, 4.0 * i, 1500 * i, 1.0, 1.5, 0.01 * i);
+            d.getCapability().setCooling(i != 2);
+            d.getCapability().setHeating(i != 1);
+            drones.add(d);
+        }
+        return PlanFixtures.ilp(drones,
+                List.of(servicePoint(1, SP1), servicePoint(2, c(-3.1830, 55.9410))),
+                List.of(station(1, List.of("D1", "D2", "D3")), station(2, List.of("D2", "D3"))),
+                List.of(ra1()));
+    }
+
+    // Dated records over three weeks; anytime records too if asked for
+    private static List<MedDispatchRec> records(Random rnd, int count, boolean withAnytime) {
+        LocalDate monday = LocalDate.of(2025, 12, 22);
+        List<MedDispatchRec> recs = new ArrayList<>();
+        for (int id = 1; id <= count; id++) {
+            MedDispatchRec r = new MedDispatchRec();
+            r.setId(id);
+            int kind = rnd.nextInt(withAnytime ? 5 : 4);
+            if (kind < 4) r.setDate(monday.plusDays(rnd.nextInt(21)));
+            if (kind < 2) r.setTime(LocalTime.of(8 + rnd.nextInt(10), rnd.nextInt(4) * 15));
+            // Keep clear of the restricted block
+            double lng = -3.1950 + rnd.nextDouble() * 0.0070;
+            r.setDelivery(c(lng, 55.9380 + rnd.nextDouble() * 0.0100));
+            MedDispatchRec.Requirement req = new MedDispatchRec.Requirement();
+            req.setCapacity(0.5 + rnd.nextInt(4));
+            int temp = rnd.nextInt(4);
+            req.setCooling(temp == 1);
+            req.setHeating(temp == 2);
+            if (rnd.nextInt(4) == 0) req.setMaxCost(10.0 + rnd.nextInt(20));
+            r.setRequirements(req);
+            recs.add(r);
+        }
+        return recs;
+    }
+
+    private String plan(boolean parallelDays, List<MedDispatchRec> recs) throws Exception {
+        return plan(new DroneServiceImpl(ilp(), workers, parallelDays, true), recs);
+    }
+
+    private String plan(DroneServiceImpl service, List<MedDispatchRec> recs) throws Exception {
+        return mapper.writeValueAsString(service.calcDeliveryPath(new ArrayList<>(recs), CancellationToken.none()));
+    }
+
+    @Test
+    @DisplayName("calcDeliveryPath: dated records planned ahead per day give the sequential plan")
+    void parallelDays_datedRecordsMatchSequential() throws Exception {
+        Random rnd = new Random(49);
+        int nonEmpty = 0;
+        for (int round = 0; round < 4; round++) {
+            List<MedDispatchRec> recs = records(rnd, 40, false);
+            String sequential = plan(false, recs);
+            assertEquals(sequential, plan(true, recs), "round " + round);
+            if (!sequential.contains("\"dronePaths\":[]")) nonEmpty++;
+        }
+        assertTrue(nonEmpty >= 2, "non-empty plans: " + nonEmpty);
+    }
+
+    @Test
+    @DisplayName("calcDeliveryPath: with anytime records the plan is still the sequential one")
+    void parallelDays_anytimeRecordsMatchSequential() throws Exception {
+        Random rnd = new Random(50);
+        int nonEmpty = 0;
+        for (int round = 0; round < 4; round++) {
+            List<MedDispatchRec> recs = records(rnd, 40, true);
+            String sequential = plan(false, recs);
+            assertEquals(sequential, plan(true, recs), "round " + round);
+            if (!sequential.contains("\"dronePaths\":[]")) nonEmpty++;
+        }
+        assertTrue(nonEmpty >= 2, "non-empty plans: " + nonEmpty);
+    }
+
+    @Test
+    @DisplayName("DaySpeculation.worthwhile: not with anytime records, whose first flight drops the days ahead")
+    void worthwhile_notWithAnytimeRecords() {
+        List<ServicePoint> sps = List.of(servicePoint(1, SP1), servicePoint(2, c(-3.1830, 55.9410)));
+        List<LocalDate> days = List.of(LocalDate.of(2025, 12, 22), LocalDate.of(2025, 12, 23));
+        List<MedDispatchRec> dated = List.of(
+                dispatch(1, days.get(0), -3.1890, 55.9440), dispatch(2, days.get(1), -3.1870, 55.9430));
+        assertTrue(DaySpeculation.worthwhile(days, dated, sps));
+
+        List<MedDispatchRec> mixed = new ArrayList<>(dated);
+        mixed.add(dispatch(3, null, -3.1880, 55.9420));
+        assertFalse(DaySpeculation.worthwhile(days, mixed, sps));
+    }
+
+    @Test
+    @DisplayName("calcDeliveryPath: sequential and parallel back to back on warm caches give the same plan")
+    void parallelDays_warmCachesMatchSequential() throws Exception {
+        Random rnd = new Random(51);
+        IlpClientComponent ilp = ilp();
+        DroneServiceImpl sequential = new DroneServiceImpl(ilp, workers, false, true);
+        DroneServiceImpl parallel = new DroneServiceImpl(ilp, workers, true, true);
+        for (int round = 0; round < 3; round++) {
+            List<MedDispatchRec> recs = records(rnd, 40, round == 2);
+            // The first plan warms the shared distance field cache for the three after it
+            String first = plan(sequential, recs);
+            assertEquals(first, plan(parallel, recs), "round " + round + ", parallel after sequential");
+            assertEquals(first, plan(sequential, recs), "round " + round + ", sequential after parallel");
+            assertEquals(first, plan(parallel, recs), "round " + round + ", parallel again");
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package uk.ac.ed.acp.cw2.system;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import uk.ac.ed.acp.cw2.data.Drone;
+import uk.ac.ed.acp.cw2.data.QueryCondition;
+import uk.ac.ed.acp.cw2.external.DroneServiceImpl;
+import uk.ac.ed.acp.cw2.external.IlpClientComponent;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DroneServiceImplQueryCacheTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private static Drone drone(String id, double capacity, boolean cooling) {
+        Drone.DroneCapability cap = new Drone.DroneCapability();
+        cap.setCapacity(capacity);
+        cap.setCooling(cooling);
+        cap.setMaxMoves(1000);
+        Drone d = new Drone();
+        d.setId(id);
+        d.setName("Drone " + id);
+        d.setCapability(cap);
+        return d;
+    }
+
+    private static QueryCondition cond(String attr, String op, String val) {
+        QueryCondition c = new QueryCondition();
+        c.setAttribute(attr);
+        c.setOperator(op);
+        c.setValue(val);
+        return c;
+    }
+
+    @Test
+    @DisplayName("queryJson: same bytes as serialising query, and reused for the same snapshot")
+    void queryJson_cachedPerSnapshot() throws Exception {
+        IlpClientComponent ilp = Mockito.mock(IlpClientComponent.class);
+        when(ilp.getAllDrones()).thenReturn(List.of(drone("1", 4, true), drone("2", 8, false),
+                drone("3", 12, true)));
+        DroneServiceImpl sut = new DroneServiceImpl(ilp);
+        List<QueryCondition> conditions = List.of(cond("capacity", ">", "5"), cond("cooling", "=", "true"));
+
+        byte[] first = sut.queryJson(conditions);
+        assertArrayEquals(mapper.writeValueAsBytes(sut.query(conditions)), first);
+        assertArrayEquals(mapper.writeValueAsBytes(List.of("3")), first);
+
+        // Same query written differently, same drones: the stored bytes come back
+        assertSame(first, sut.queryJson(List.of(cond("COOLING", "=", "true"), cond("Capacity", ">", "5"))));
+        assertArrayEquals(mapper.writeValueAsBytes(List.of("1", "3")), sut.dronesWithCoolingJson(true));
+        assertArrayEquals(mapper.writeValueAsBytes(List.of("2")), sut.queryAsPathJson("capacity", "8"));
+    }
+
+    @Test
+    @DisplayName("queryJson: a changed drone snapshot is not answered from the cache")
+    void queryJson_invalidatedBySnapshotChange() throws Exception {
+        IlpClientComponent ilp = Mockito.mock(IlpClientComponent.class);
+        when(ilp.getAllDrones())
+                .thenReturn(List.of(drone("1", 4, true), drone("2", 8, false)))
+                .thenReturn(List.of(drone("1", 4, true), drone("2", 8, true)));
+        DroneServiceImpl sut = new DroneServiceImpl(ilp);
+
+        assertArrayEquals(mapper.writeValueAsBytes(List.of("1")), sut.dronesWithCoolingJson(true));
+        assertArrayEquals(mapper.writeValueAsBytes(List.of("1", "2")), sut.dronesWithCoolingJson(true));
+    }
+}
@@ -0,0 +1,68 @@
+package uk.ac.ed.acp.cw2.system;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.data.FlightBuilder;
+import uk.ac.ed.acp.cw2.data.MedDispatchRec;
+import uk.ac.ed.acp.cw2.data.response.CalcDeliveryPathResponse;
+import uk.ac.ed.acp.cw2.external.DroneServiceImpl;
+import uk.ac.ed.acp.cw2.utility.CancellationToken;
+import uk.ac.ed.acp.cw2.utility.DeliveryPlanHelper;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static uk.ac.ed.acp.cw2.system.PlanFixtures.*;
+
+/**
+ * Streamed planning (streamFlights) hands over the flights of calcDeliveryPath one at a time,
+ * each day's flights before the next day is planned.
+ */
+class DroneServiceImplStreamTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("streamFlights: the flights streamed are those of calcDeliveryPath, in day order")
+    void stream_matchesFullPlan() throws Exception {
+        LocalDate monday = LocalDate.of(2025, 12, 22);
+        List<MedDispatchRec> recs = List.of(
+                dispatch(1, monday, -3.1840, 55.9446, 1.0),
+                dispatch(2, monday, -3.1845, 55.9470, 1.0),
+                dispatch(3, monday.plusDays(1), -3.1850, 55.9420, 1.0),
+                dispatch(4, monday.plusDays(2), -3.1920, 55.9460, 1.0));
+        CalcDeliveryPathResponse full = new DroneServiceImpl(singleDrone(true)).calcDeliveryPath(new ArrayList<>(recs));
+
+        List<FlightBuilder> streamed = new ArrayList<>();
+        boolean planned = new DroneServiceImpl(singleDrone(true))
+                .streamFlights(new ArrayList<>(recs), CancellationToken.none(), streamed::add);
+
+        assertTrue(planned);
+        assertEquals(3, streamed.size());
+        assertEquals(mapper.writeValueAsString(full),
+                mapper.writeValueAsString(DeliveryPlanHelper.buildDeliveryResponse(streamed)));
+        assertEquals(List.of(monday, monday.plusDays(1), monday.plusDays(2)),
+                streamed.stream().map(FlightBuilder::getFlightDate).toList());
+    }
+
+    @Test
+    @DisplayName("streamFlights: false when a record cannot be assigned, as calcDeliveryPath gives the empty plan")
+    void stream_unplannableList() {
+        LocalDate monday = LocalDate.of(2025, 12, 22);
+        List<MedDispatchRec> recs = List.of(
+                dispatch(1, monday, -3.1840, 55.9446, 1.0),
+                dispatch(2, monday.plusDays(1), -3.1850, 55.9420, 50.0));
+
+        List<FlightBuilder> streamed = new ArrayList<>();
+        boolean planned = new DroneServiceImpl(singleDrone(true))
+                .streamFlights(new ArrayList<>(recs), CancellationToken.none(), streamed::add);
+
+        assertFalse(planned);
+        assertEquals(0, new DroneServiceImpl(singleDrone(true)).calcDeliveryPath(new ArrayList<>(recs)).getTotalMoves());
+        // Monday's flight was already final and streamed before Tuesday failed
+        assertEquals(1, streamed.size());
+    }
+}
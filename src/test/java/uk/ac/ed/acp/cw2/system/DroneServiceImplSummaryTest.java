@@ -0,0 +1,66 @@
+package uk.ac.ed.acp.cw2.system;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.data.MedDispatchRec;
+import uk.ac.ed.acp.cw2.data.response.CalcDeliveryPathResponse;
+import uk.ac.ed.acp.cw2.data.response.DeliveryPlanSummaryResponse;
+import uk.ac.ed.acp.cw2.external.DroneServiceImpl;
+import uk.ac.ed.acp.cw2.utility.CancellationToken;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static uk.ac.ed.acp.cw2.system.PlanFixtures.*;
+
+/**
+ * Summary planning (calcDeliveryPathSummary) must describe the same plan as calcDeliveryPath,
+ * only without the flight paths.
+ */
+class DroneServiceImplSummaryTest {
+
+    @Test
+    @DisplayName("calcDeliveryPathSummary: assignments, moves and costs match the full plan")
+    void summary_matchesFullPlan() {
+        LocalDate monday = LocalDate.of(2025, 12, 22);
+        // Two deliveries past the restricted area share a flight; the next day's is flown alone
+        List<MedDispatchRec> recs = List.of(
+                dispatch(1, monday, -3.1840, 55.9446),
+                dispatch(2, monday, -3.1845, 55.9470),
+                dispatch(3, monday.plusDays(1), -3.1850, 55.9420));
+
+        CalcDeliveryPathResponse full = new DroneServiceImpl(singleDrone(true)).calcDeliveryPath(new ArrayList<>(recs));
+        DeliveryPlanSummaryResponse summary = new DroneServiceImpl(singleDrone(true))
+                .calcDeliveryPathSummary(new ArrayList<>(recs), CancellationToken.none());
+
+        assertEquals(full.getTotalMoves(), summary.getTotalMoves());
+        assertEquals(full.getTotalCost(), summary.getTotalCost());
+        assertEquals(full.getDronePaths().size(), summary.getFlights().size());
+        for (int i = 0; i < summary.getFlights().size(); i++) {
+            CalcDeliveryPathResponse.DronePath dp = full.getDronePaths().get(i);
+            DeliveryPlanSummaryResponse.FlightSummary fs = summary.getFlights().get(i);
+            assertEquals(dp.getDroneId(), fs.getDroneId());
+            assertEquals(1, fs.getServicePointId());
+            assertEquals(dp.getDeliveries().stream().map(CalcDeliveryPathResponse.DeliverySegment::getDeliveryId)
+                    .filter(Objects::nonNull).toList(), fs.getDeliveryIds());
+            int moves = dp.getDeliveries().stream().mapToInt(s -> s.getFlightPath().size() - 1).sum();
+            assertEquals(moves, fs.getMoves(), "flight " + i);
+        }
+        assertEquals(List.of(1, 2), summary.getFlights().getFirst().getDeliveryIds());
+        assertEquals(List.of(3), summary.getFlights().getLast().getDeliveryIds());
+    }
+
+    @Test
+    @DisplayName("calcDeliveryPathSummary: an invalid dispatch list gives the empty summary")
+    void summary_invalidListIsEmpty() {
+        DeliveryPlanSummaryResponse summary =
+                new DroneServiceImpl(singleDrone(true)).calcDeliveryPathSummary(List.of(), CancellationToken.none());
+
+        assertEquals(0, summary.getTotalMoves());
+        assertEquals(0.0, summary.getTotalCost());
+        assertTrue(summary.getFlights().isEmpty());
+    }
+}
@@ -0,0 +1,111 @@
+package uk.ac.ed.acp.cw2.system;
+
+import uk.ac.ed.acp.cw2.data.Coordinate;
+import uk.ac.ed.acp.cw2.data.Drone;
+import uk.ac.ed.acp.cw2.data.DroneForServicePoint;
+import uk.ac.ed.acp.cw2.data.MedDispatchRec;
+import uk.ac.ed.acp.cw2.data.RestrictedArea;
+import uk.ac.ed.acp.cw2.data.ServicePoint;
+import uk.ac.ed.acp.cw2.external.IlpClientComponent;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+// ILP data shared by the planner system tests: drones on duty all week at mocked service points,
+// and the RA-1 block east of SP-1.
+final class PlanFixtures {
+
+    static final Coordinate SP1 = c(-3.1900, 55.9445);
+
+    private PlanFixtures() {
+    }
+
+    static Coordinate c(double lng, double lat) {
+        return new Coordinate(lng, lat);
+    }
+
+    static Drone drone(String id, double capacity, int maxMoves,
+                       double costInitial, double costFinal, double costPerMove) {
+        Drone d = new Drone();
+        d.setId(id);
+        Drone.DroneCapability cap = new Drone.DroneCapability();
+        cap.setCapacity(capacity);
+        cap.setMaxMoves(maxMoves);
+        cap.setCostInitial(costInitial);
+        cap.setCostFinal(costFinal);
+        cap.setCostPerMove(costPerMove);
+        d.setCapability(cap);
+        return d;
+    }
+
+    static ServicePoint servicePoint(int id, Coordinate location) {
+        ServicePoint sp = new ServicePoint();
+        sp.setId(id);
+        sp.setName("SP-" + id);
+        sp.setLocation(location);
+        return sp;
+    }
+
+    // The drones at a service point, available all day every day
+    static DroneForServicePoint station(int servicePointId, List<String> droneIds) {
+        List<DroneForServicePoint.Availability> always = new ArrayList<>();
+        for (String day : List.of("MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY", "SATURDAY", "SUNDAY"))
+            always.add(new DroneForServicePoint.Availability(day, "00:00:00", "23:59:59"));
+        List<DroneForServicePoint.Item> items = new ArrayList<>();
+        for (String id : droneIds) {
+            DroneForServicePoint.Item item = new DroneForServicePoint.Item();
+            item.setId(id);
+            item.setAvailability(always);
+            items.add(item);
+        }
+        DroneForServicePoint dfsp = new DroneForServicePoint();
+        dfsp.setServicePointId(servicePointId);
+        dfsp.setDrones(items);
+        return dfsp;
+    }
+
+    static RestrictedArea ra1() {
+        RestrictedArea ra = new RestrictedArea();
+        ra.setId(1);
+        ra.setName("RA-1");
+        ra.setVertices(List.of(c(-3.1880, 55.9430), c(-3.1860, 55.9430), c(-3.1860, 55.9460),
+                c(-3.1880, 55.9460), c(-3.1880, 55.9430)));
+        return ra;
+    }
+
+    static IlpClientComponent ilp(List<Drone> drones, List<ServicePoint> servicePoints,
+                                  List<DroneForServicePoint> stations, List<RestrictedArea> areas) {
+        IlpClientComponent ilp = mock(IlpClientComponent.class);
+        when(ilp.getAllDrones()).thenReturn(new ArrayList<>(drones));
+        when(ilp.getServicePoints()).thenReturn(new ArrayList<>(servicePoints));
+        when(ilp.getRestrictedAreas()).thenReturn(new ArrayList<>(areas));
+        when(ilp.getDronesForServicePoints()).thenReturn(new ArrayList<>(stations));
+        return ilp;
+    }
+
+    // Drone D1 (capacity 10, 2000 moves) at SP-1, with or without RA-1
+    static IlpClientComponent singleDrone(boolean restricted) {
+        return ilp(List.of(drone("D1", 10.0, 2000, 1.5, 2.5, 0.03)),
+                List.of(servicePoint(1, SP1)),
+                List.of(station(1, List.of("D1"))),
+                restricted ? List.of(ra1()) : List.of());
+    }
+
+    static MedDispatchRec dispatch(int id, LocalDate date, double lng, double lat) {
+        return dispatch(id, date, lng, lat, 1.0);
+    }
+
+    static MedDispatchRec dispatch(int id, LocalDate date, double lng, double lat, double capacity) {
+        MedDispatchRec r = new MedDispatchRec();
+        r.setId(id);
+        r.setDate(date);
+        r.setDelivery(c(lng, lat));
+        MedDispatchRec.Requirement req = new MedDispatchRec.Requirement();
+        req.setCapacity(capacity);
+        r.setRequirements(req);
+        return r;
+    }
+}
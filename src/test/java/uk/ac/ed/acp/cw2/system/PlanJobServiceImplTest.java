@@ -0,0 +1,149 @@
+package uk.ac.ed.acp.cw2.system;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.data.FlightBuilder;
+import uk.ac.ed.acp.cw2.data.MedDispatchRec;
+import uk.ac.ed.acp.cw2.data.response.PlanJobStatusResponse;
+import uk.ac.ed.acp.cw2.external.DroneService;
+import uk.ac.ed.acp.cw2.external.DroneServiceImpl;
+import uk.ac.ed.acp.cw2.service.PlanJobServiceImpl;
+import uk.ac.ed.acp.cw2.utility.CancellationToken;
+import uk.ac.ed.acp.cw2.utility.DeliveryPlanHelper;
+import uk.ac.ed.acp.cw2.utility.PlanAbortedException;
+import uk.ac.ed.acp.cw2.utility.PlanProgress;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static uk.ac.ed.acp.cw2.system.PlanFixtures.*;
+
+/**
+ * Background planning jobs: progress and result of a job, the bounded queue, and eviction
+ * of finished jobs.
+ */
+class PlanJobServiceImplTest {
+
+    private static PlanJobServiceImpl jobs(DroneService droneService, int queue, Duration ttl) {
+        return jobs(droneService, queue, ttl, 256);
+    }
+
+    private static PlanJobServiceImpl jobs(DroneService droneService, int queue, Duration ttl, int maxFinished) {
+        return new PlanJobServiceImpl(droneService, 1, queue, Duration.ofMinutes(1), ttl, maxFinished);
+    }
+
+    private static PlanJobStatusResponse awaitFinished(PlanJobServiceImpl jobs, String id) throws InterruptedException {
+        long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (System.nanoTime() < until) {
+            PlanJobStatusResponse s = jobs.status(id);
+            if (!s.getStatus().equals(PlanJobStatusResponse.QUEUED)
+                    && !s.getStatus().equals(PlanJobStatusResponse.RUNNING)) return s;
+            Thread.sleep(10);
+        }
+        return fail("job did not finish");
+    }
+
+    @Test
+    @DisplayName("submit: the job reports all records assigned and its result is the calcDeliveryPath plan")
+    void job_resultMatchesDirectPlan() throws Exception {
+        LocalDate monday = LocalDate.of(2025, 12, 22);
+        List<MedDispatchRec> recs = List.of(
+                dispatch(1, monday, -3.1880, 55.9450),
+                dispatch(2, monday, -3.1885, 55.9460),
+                dispatch(3, monday.plusDays(1), -3.1920, 55.9430));
+        PlanJobServiceImpl jobs = jobs(new DroneServiceImpl(singleDrone(false)), 4, Duration.ofMinutes(5));
+
+        PlanJobStatusResponse submitted = jobs.submit(new ArrayList<>(recs));
+        assertNotNull(submitted);
+        assertEquals(3, submitted.getTotal());
+        PlanJobStatusResponse done = awaitFinished(jobs, submitted.getJobId());
+
+        assertEquals(PlanJobStatusResponse.DONE, done.getStatus());
+        assertEquals(3, done.getAssigned());
+        assertEquals(3, done.getTotal());
+        assertNull(done.getError());
+        ObjectMapper mapper = new ObjectMapper();
+        assertEquals(mapper.writeValueAsString(new DroneServiceImpl(singleDrone(false)).calcDeliveryPath(new ArrayList<>(recs))),
+                mapper.writeValueAsString(DeliveryPlanHelper.buildDeliveryResponse(jobs.result(submitted.getJobId()))));
+        jobs.shutdown();
+    }
+
+    @Test
+    @DisplayName("submit: refused once the worker is busy and the queue is full")
+    void submit_boundedQueue() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        DroneService slow = mock(DroneService.class);
+        when(slow.planFlights(any(), any(CancellationToken.class), any(PlanProgress.class))).thenAnswer(inv -> {
+            started.countDown();
+            release.await();
+            return List.<FlightBuilder>of();
+        });
+        PlanJobServiceImpl jobs = jobs(slow, 1, Duration.ofMinutes(5));
+
+        PlanJobStatusResponse running = jobs.submit(List.of());
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        PlanJobStatusResponse queued = jobs.submit(List.of());
+
+        assertNotNull(queued);
+        assertEquals(PlanJobStatusResponse.QUEUED, jobs.status(queued.getJobId()).getStatus());
+        assertNull(jobs.submit(List.of()));
+        assertNull(jobs.result(running.getJobId()));
+
+        release.countDown();
+        assertEquals(PlanJobStatusResponse.DONE, awaitFinished(jobs, queued.getJobId()).getStatus());
+        assertNotNull(jobs.submit(List.of()));
+        jobs.shutdown();
+    }
+
+    @Test
+    @DisplayName("evictExpired: finished jobs are dropped after the ttl; an aborted job has no result")
+    void evictExpired_dropsFinishedJobs() throws Exception {
+        DroneService aborting = mock(DroneService.class);
+        when(aborting.planFlights(any(), any(CancellationToken.class), any(PlanProgress.class)))
+                .thenThrow(new PlanAbortedException(CancellationToken.REASON_DEADLINE));
+        PlanJobServiceImpl jobs = jobs(aborting, 4, Duration.ZERO);
+
+        String id = jobs.submit(List.of()).getJobId();
+        PlanJobStatusResponse finished = awaitFinished(jobs, id);
+
+        assertEquals(PlanJobStatusResponse.ABORTED, finished.getStatus());
+        assertEquals(CancellationToken.REASON_DEADLINE, finished.getError());
+        assertNull(jobs.result(id));
+        assertEquals(1, jobs.evictExpired());
+        assertNull(jobs.status(id));
+        jobs.shutdown();
+    }
+
+    @Test
+    @DisplayName("submit: only the last max-finished finished jobs are kept, oldest dropped first")
+    void finishedJobs_bounded() throws Exception {
+        DroneService instant = mock(DroneService.class);
+        when(instant.planFlights(any(), any(CancellationToken.class), any(PlanProgress.class)))
+                .thenReturn(List.of());
+        PlanJobServiceImpl jobs = jobs(instant, 4, Duration.ofMinutes(5), 2);
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            String id = jobs.submit(List.of()).getJobId();
+            awaitFinished(jobs, id);
+            ids.add(id);
+        }
+
+        assertNull(jobs.status(ids.get(0)));
+        assertNull(jobs.status(ids.get(1)));
+        assertEquals(PlanJobStatusResponse.DONE, jobs.status(ids.get(2)).getStatus());
+        assertEquals(PlanJobStatusResponse.DONE, jobs.status(ids.get(3)).getStatus());
+        // Nothing expired yet: the sweep leaves the kept jobs alone
+        assertEquals(0, jobs.evictExpired());
+        jobs.shutdown();
+    }
+}
@@ -0,0 +1,180 @@
+package uk.ac.ed.acp.cw2.system;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.data.MedDispatchRec;
+import uk.ac.ed.acp.cw2.data.response.CalcDeliveryPathResponse;
+import uk.ac.ed.acp.cw2.data.response.PlanSessionResponse;
+import uk.ac.ed.acp.cw2.external.DroneServiceImpl;
+import uk.ac.ed.acp.cw2.external.IlpClientComponent;
+import uk.ac.ed.acp.cw2.service.PlanSessionServiceImpl;
+import uk.ac.ed.acp.cw2.utility.DeliveryPlanHelper;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static uk.ac.ed.acp.cw2.system.PlanFixtures.*;
+
+/**
+ * Plan sessions: after each add or cancel the session's plan has the flights calcDeliveryPath
+ * plans for the same records, while only the days touched are planned again.
+ */
+class PlanSessionServiceImplTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 12, 22);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private static PlanSessionServiceImpl sessions(IlpClientComponent ilp, Duration idle) {
+        return new PlanSessionServiceImpl(new DroneServiceImpl(ilp), ilp, Duration.ofMinutes(1), 4, 10, idle);
+    }
+
+    // The session plan and the full plan of the same records have the same flights and totals
+    private void assertSamePlan(List<MedDispatchRec> recs, PlanSessionServiceImpl sessions, String id)
+            throws Exception {
+        CalcDeliveryPathResponse full = new DroneServiceImpl(singleDrone(true)).calcDeliveryPath(new ArrayList<>(recs));
+        CalcDeliveryPathResponse session = DeliveryPlanHelper.buildDeliveryResponse(sessions.plan(id));
+        assertEquals(full.getTotalMoves(), session.getTotalMoves());
+        assertEquals(full.getTotalCost(), session.getTotalCost(), 1e-9);
+        List<String> expected = new ArrayList<>();
+        for (var dp : full.getDronePaths()) expected.add(mapper.writeValueAsString(dp));
+        List<String> actual = new ArrayList<>();
+        for (var dp : session.getDronePaths()) actual.add(mapper.writeValueAsString(dp));
+        assertEquals(expected.stream().sorted().toList(), actual.stream().sorted().toList());
+    }
+
+    @Test
+    @DisplayName("add/cancel: only the touched day is replanned and the plan matches calcDeliveryPath")
+    void session_replansTouchedDaysOnly() throws Exception {
+        IlpClientComponent ilp = singleDrone(true);
+        PlanSessionServiceImpl sessions = sessions(ilp, Duration.ofMinutes(5));
+        List<MedDispatchRec> recs = new ArrayList<>(List.of(
+                dispatch(1, MONDAY, -3.1840, 55.9446),
+                dispatch(2, MONDAY, -3.1845, 55.9470),
+                dispatch(3, MONDAY.plusDays(1), -3.1850, 55.9420)));
+
+        PlanSessionResponse opened = sessions.open(new ArrayList<>(recs));
+        String id = opened.getSessionId();
+        assertEquals(3, opened.getReplanned());
+        assertTrue(opened.isPlanned());
+        assertSamePlan(recs, sessions, id);
+
+        MedDispatchRec wednesday = dispatch(4, MONDAY.plusDays(2), -3.1920, 55.9460);
+        recs.add(wednesday);
+        PlanSessionResponse added = sessions.add(id, List.of(wednesday));
+        assertEquals(1, added.getReplanned());
+        assertEquals(4, added.getDispatches());
+        assertSamePlan(recs, sessions, id);
+
+        recs.removeIf(r -> r.getId() == 2);
+        PlanSessionResponse cancelled = sessions.cancel(id, 2);
+        assertEquals(1, cancelled.getReplanned());
+        assertEquals(3, cancelled.getFlights());
+        assertSamePlan(recs, sessions, id);
+
+        // The ILP data is fetched once, when the session is opened
+        verify(ilp, times(1)).getAllDrones();
+        verify(ilp, times(1)).getRestrictedAreas();
+    }
+
+    @Test
+    @DisplayName("add: an undated record replans the whole session until it is cancelled")
+    void session_undatedRecordReplansAll() throws Exception {
+        PlanSessionServiceImpl sessions = sessions(singleDrone(true), Duration.ofMinutes(5));
+        List<MedDispatchRec> recs = new ArrayList<>(List.of(
+                dispatch(1, MONDAY, -3.1840, 55.9446),
+                dispatch(2, MONDAY.plusDays(1), -3.1850, 55.9420)));
+        String id = sessions.open(new ArrayList<>(recs)).getSessionId();
+
+        MedDispatchRec anytime = dispatch(3, null, -3.1845, 55.9470);
+        recs.add(anytime);
+        assertEquals(3, sessions.add(id, List.of(anytime)).getReplanned());
+        assertSamePlan(recs, sessions, id);
+
+        recs.remove(anytime);
+        assertEquals(2, sessions.cancel(id, 3).getReplanned());
+        assertSamePlan(recs, sessions, id);
+    }
+
+    @Test
+    @DisplayName("add: rejected records leave the session unchanged; unknown ids give null")
+    void session_rejectsAndUnknowns() throws Exception {
+        PlanSessionServiceImpl sessions = sessions(singleDrone(true), Duration.ofMinutes(5));
+        List<MedDispatchRec> recs = List.of(dispatch(1, MONDAY, -3.1840, 55.9446));
+        String id = sessions.open(new ArrayList<>(recs)).getSessionId();
+
+        assertThrows(IllegalStateException.class,
+                () -> sessions.add(id, List.of(dispatch(1, MONDAY, -3.1850, 55.9420))));
+        MedDispatchRec noRequirements = dispatch(5, MONDAY, -3.1850, 55.9420);
+        noRequirements.setRequirements(null);
+        assertThrows(IllegalArgumentException.class, () -> sessions.add(id, List.of(noRequirements)));
+        List<MedDispatchRec> tooMany = new ArrayList<>();
+        for (int i = 10; i < 20; i++) tooMany.add(dispatch(i, MONDAY, -3.1850, 55.9420));
+        assertThrows(IllegalStateException.class, () -> sessions.add(id, tooMany));
+
+        assertEquals(1, sessions.status(id).getDispatches());
+        assertSamePlan(recs, sessions, id);
+        assertNull(sessions.cancel(id, 99));
+        assertNull(sessions.add("missing", recs));
+        assertNull(sessions.plan("missing"));
+    }
+
+    @Test
+    @DisplayName("open/evictIdle: the session limit holds and idle sessions are dropped")
+    void session_limitAndEviction() {
+        PlanSessionServiceImpl busy = sessions(singleDrone(true), Duration.ofMinutes(5));
+        for (int i = 0; i < 4; i++) busy.open(List.of());
+        assertThrows(IllegalStateException.class, () -> busy.open(List.of()));
+
+        PlanSessionServiceImpl idle = sessions(singleDrone(true), Duration.ZERO);
+        String id = idle.open(List.of()).getSessionId();
+        assertEquals(1, idle.evictIdle());
+        assertNull(idle.status(id));
+        assertFalse(idle.close(id));
+    }
+
+    @Test
+    @DisplayName("open: concurrent opens never go over the session limit")
+    void open_concurrentLimit() throws Exception {
+        PlanSessionServiceImpl limited = sessions(singleDrone(true), Duration.ofMinutes(5));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch go = new CountDownLatch(1);
+            List<Future<Boolean>> opens = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                opens.add(pool.submit(() -> {
+                    go.await();
+                    try {
+                        limited.open(List.of());
+                        return true;
+                    } catch (IllegalStateException e) {
+                        return false;
+                    }
+                }));
+            }
+            go.countDown();
+            int opened = 0;
+            for (Future<Boolean> f : opens) if (f.get()) opened++;
+            assertEquals(4, opened);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // A closed session frees its slot
+        PlanSessionServiceImpl full = sessions(singleDrone(true), Duration.ofMinutes(5));
+        String first = full.open(List.of()).getSessionId();
+        for (int i = 1; i < 4; i++) full.open(List.of());
+        assertTrue(full.close(first));
+        assertNotNull(full.open(List.of()).getSessionId());
+        assertThrows(IllegalStateException.class, () -> full.open(List.of()));
+    }
+}
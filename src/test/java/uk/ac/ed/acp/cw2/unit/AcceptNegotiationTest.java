@@ -0,0 +1,36 @@
+package uk.ac.ed.acp.cw2.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import uk.ac.ed.acp.cw2.utility.AcceptNegotiation;
+import uk.ac.ed.acp.cw2.utility.PlanBinaryWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AcceptNegotiationTest {
+
+    private static final MediaType BINARY = PlanBinaryWriter.MEDIA_TYPE;
+    private static final MediaType JSON = MediaType.APPLICATION_JSON;
+
+    @Test
+    @DisplayName("prefers: higher q wins, then exact types over wildcards, then header order")
+    void prefers_rankedByQualityThenSpecificity() {
+        assertTrue(AcceptNegotiation.prefers("application/json;q=0.8, application/vnd.ilp.plan;q=0.9", BINARY, JSON));
+        assertTrue(AcceptNegotiation.prefers("*/*, application/vnd.ilp.plan", BINARY, JSON));
+        assertFalse(AcceptNegotiation.prefers("application/*, application/vnd.ilp.plan;q=0.5", BINARY, JSON));
+        assertFalse(AcceptNegotiation.prefers("application/json, application/vnd.ilp.plan", BINARY, JSON));
+        assertFalse(AcceptNegotiation.prefers("application/vnd.ilp.plan;q=0", BINARY, JSON));
+    }
+
+    @Test
+    @DisplayName("accepts: any range with q > 0 including the type; missing or malformed headers accept all")
+    void accepts_rangesWithPositiveQuality() {
+        assertTrue(AcceptNegotiation.accepts(null, JSON));
+        assertTrue(AcceptNegotiation.accepts("not a media type", JSON));
+        assertTrue(AcceptNegotiation.accepts("application/vnd.ilp.plan, */*;q=0.1", JSON));
+        assertTrue(AcceptNegotiation.accepts("application/*", JSON));
+        assertFalse(AcceptNegotiation.accepts("application/vnd.ilp.plan", JSON));
+        assertFalse(AcceptNegotiation.accepts("application/json;q=0, application/vnd.ilp.plan", JSON));
+    }
+}
@@ -0,0 +1,82 @@
+package uk.ac.ed.acp.cw2.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.data.DroneForServicePoint;
+import uk.ac.ed.acp.cw2.utility.AvailabilityCalendar;
+import uk.ac.ed.acp.cw2.utility.QueryDroneHelper;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AvailabilityCalendarTest {
+
+    private static DroneForServicePoint.Availability w(String day, String from, String until) {
+        return new DroneForServicePoint.Availability(day, from, until);
+    }
+
+    // Dates covering every weekday, and times on and around the window bounds
+    private static void assertSameAnswers(List<DroneForServicePoint.Availability> windows) {
+        AvailabilityCalendar calendar = AvailabilityCalendar.compile(windows);
+        List<LocalTime> times = new ArrayList<>();
+        times.add(null);
+        for (int m = 0; m < 24 * 60; m += 30) times.add(LocalTime.of(m / 60, m % 60));
+        for (String t : List.of("08:59:59", "09:00", "12:00:00.000000001", "16:59:59.999", "17:00", "17:00:00.5",
+                "23:59:59", "23:59:59.999999999"))
+            times.add(LocalTime.parse(t));
+        List<LocalDate> dates = new ArrayList<>();
+        dates.add(null);
+        for (int d = 0; d < 7; d++) dates.add(LocalDate.of(2025, 12, 22).plusDays(d));
+
+        for (LocalDate date : dates) {
+            for (LocalTime time : times) {
+                assertEquals(QueryDroneHelper.isAvailableAt(windows, date, time),
+                        calendar.isAvailableAt(date, time), date + " " + time);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("isAvailableAt: same answers as the string-based check, inclusive bounds and merged windows")
+    void isAvailableAt_matchesRawWindows() {
+        assertSameAnswers(List.of(w("MONDAY", "09:00:00", "17:00:00")));
+        assertSameAnswers(List.of(
+                w("TUESDAY", "09:00:00", "12:00:00"),
+                w("TUESDAY", "12:00:00", "13:30:00"),   // touching
+                w("TUESDAY", "10:00:00", "11:00:00"),   // nested
+                w("TUESDAY", "15:00:00", "17:00:00"),
+                w("friday", "00:00:00", "23:59:59"),    // lower-case day name
+                w("SUNDAY", "22:00:00", "02:00:00")));  // inverted, never matches a time
+    }
+
+    @Test
+    @DisplayName("isAvailableAt: malformed windows count for date-only checks exactly as before")
+    void isAvailableAt_malformedWindows() {
+        assertSameAnswers(List.of(
+                w("WEDNESDAY", "nine", "17:00:00"),
+                w("THURSDAY", null, null),
+                w("FUNDAY", "09:00:00", "17:00:00"),
+                w(null, "09:00:00", "17:00:00"),
+                w("SATURDAY", "08:00", "09:15")));
+        assertSameAnswers(List.of());
+        assertSameAnswers(null);
+    }
+
+    @Test
+    @DisplayName("Item.getCalendar: compiled once and rebuilt when the windows are replaced")
+    void item_calendarFollowsAvailability() {
+        DroneForServicePoint.Item item = new DroneForServicePoint.Item();
+        item.setAvailability(List.of(w("MONDAY", "09:00:00", "17:00:00")));
+        AvailabilityCalendar first = item.getCalendar();
+        assertSame(first, item.getCalendar());
+        assertTrue(first.isAvailableAt(LocalDate.of(2025, 12, 22), LocalTime.NOON));
+
+        item.setAvailability(List.of(w("TUESDAY", "09:00:00", "17:00:00")));
+        assertFalse(item.getCalendar().isAvailableAt(LocalDate.of(2025, 12, 22), LocalTime.NOON));
+        assertTrue(item.getCalendar().isAvailableAt(LocalDate.of(2025, 12, 23), LocalTime.NOON));
+    }
+}
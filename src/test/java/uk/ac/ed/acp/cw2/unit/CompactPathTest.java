@@ -0,0 +1,79 @@
+package uk.ac.ed.acp.cw2.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.data.BoundBox;
+import uk.ac.ed.acp.cw2.data.Coordinate;
+import uk.ac.ed.acp.cw2.utility.CompactPath;
+import uk.ac.ed.acp.cw2.utility.GeoUtilities;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactPathTest {
+
+    private static Coordinate c(double lng, double lat) {
+        return new Coordinate(lng, lat);
+    }
+
+    private static void assertSamePoints(List<Coordinate> expected, List<Coordinate> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(Double.doubleToLongBits(expected.get(i).getLng()),
+                    Double.doubleToLongBits(actual.get(i).getLng()), "lng at " + i);
+            assertEquals(Double.doubleToLongBits(expected.get(i).getLat()),
+                    Double.doubleToLongBits(actual.get(i).getLat()), "lat at " + i);
+        }
+    }
+
+    private static List<Coordinate> detourWithHover() {
+        List<List<Coordinate>> rects = List.of(List.of(
+                c(-3.1880, 55.9430), c(-3.1860, 55.9430), c(-3.1860, 55.9460),
+                c(-3.1880, 55.9460), c(-3.1880, 55.9430)));
+        List<BoundBox> boxes = List.of(new BoundBox(c(-3.1860, 55.9460), c(-3.1880, 55.9430)));
+        List<Coordinate> path = new ArrayList<>(
+                GeoUtilities.pathBetween(c(-3.1900, 55.9445), c(-3.1840, 55.9446), rects, boxes));
+        path.add(path.getLast());
+        return path;
+    }
+
+    @Test
+    @DisplayName("of/toCoordinates: an A* path with a hover round-trips bit for bit")
+    void roundTrip_aStarPathWithHover() {
+        List<Coordinate> path = detourWithHover();
+
+        CompactPath compact = CompactPath.of(path);
+
+        assertEquals(path.size(), compact.size());
+        assertEquals(path.size() - 1, compact.moves());
+        assertSamePoints(path, compact.toCoordinates());
+        assertTrue(compact.packedBytes() < path.size(), "expected well under a byte per point");
+    }
+
+    @Test
+    @DisplayName("of: moves that are not grid steps are kept as exact anchors")
+    void roundTrip_arbitraryPoints() {
+        List<Coordinate> path = List.of(c(0.0, 0.0), c(0.00015, 0.0), c(0.1234, -0.5678),
+                c(0.1234, -0.5678), c(-0.0, 0.0));
+
+        assertSamePoints(path, CompactPath.of(path).toCoordinates());
+        assertTrue(CompactPath.of(List.of()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("prefix/reversed: the outbound path without its hover, reversed, matches the list version")
+    void reversedPrefix_matchesReversedList() {
+        List<Coordinate> path = detourWithHover();
+        List<Coordinate> expected = new ArrayList<>(path);
+        expected.removeLast();
+        expected = expected.reversed();
+
+        CompactPath compact = CompactPath.of(path);
+        CompactPath back = compact.prefix(compact.size() - 1).reversed();
+
+        assertEquals(expected.size() - 1, back.moves());
+        assertSamePoints(expected, back.toCoordinates());
+    }
+}
@@ -0,0 +1,100 @@
+package uk.ac.ed.acp.cw2.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.data.Drone;
+import uk.ac.ed.acp.cw2.data.QueryCondition;
+import uk.ac.ed.acp.cw2.utility.CompiledQuery;
+import uk.ac.ed.acp.cw2.utility.QueryDroneHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledQueryTest {
+
+    private static final String[] ATTRS = {"id", "Name", "cooling", "HEATING", "capacity", "maxMoves",
+            "costPerMove", "costInitial", "costFinal", "colour"};
+    private static final String[] OPS = {"=", "!=", "<", ">", ">="};
+    private static final String[] VALUES = {"1", "2", "4", "4.0", "8", "1000", "2000", "0.01", "true", "false",
+            "Drone 1", "drone 2", "abc", ""};
+
+    private static QueryCondition cond(String attr, String op, String val) {
+        QueryCondition c = new QueryCondition();
+        c.setAttribute(attr);
+        c.setOperator(op);
+        c.setValue(val);
+        return c;
+    }
+
+    private static Drone drone(Random rnd, int i) {
+        Drone.DroneCapability cap = new Drone.DroneCapability();
+        cap.setCooling(rnd.nextBoolean());
+        cap.setHeating(rnd.nextBoolean());
+        cap.setCapacity(new double[]{1, 2, 4, 8}[rnd.nextInt(4)]);
+        cap.setMaxMoves(new int[]{1000, 2000}[rnd.nextInt(2)]);
+        cap.setCostPerMove(new double[]{0.01, 0.02}[rnd.nextInt(2)]);
+        cap.setCostInitial(rnd.nextInt(3));
+        cap.setCostFinal(rnd.nextInt(3));
+        Drone d = new Drone();
+        d.setId(String.valueOf(i));
+        d.setName("Drone " + i);
+        d.setCapability(cap);
+        return d;
+    }
+
+    @Test
+    @DisplayName("matches: same drones as matchesConditions on random condition lists")
+    void matches_agreesWithMatchesConditions() {
+        Random rnd = new Random(44);
+        List<Drone> drones = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) drones.add(drone(rnd, i));
+
+        int nonEmpty = 0;
+        for (int round = 0; round < 2000; round++) {
+            List<QueryCondition> conditions = new ArrayList<>();
+            int n = 1 + rnd.nextInt(3);
+            for (int k = 0; k < n; k++) {
+                conditions.add(cond(ATTRS[rnd.nextInt(ATTRS.length)], OPS[rnd.nextInt(OPS.length)],
+                        VALUES[rnd.nextInt(VALUES.length)]));
+            }
+            CompiledQuery compiled = CompiledQuery.compile(conditions);
+            for (Drone d : drones) {
+                boolean expected = QueryDroneHelper.matchesConditions(d, conditions);
+                assertEquals(expected, compiled.matches(d), "round " + round + ", drone " + d.getId());
+                if (expected) nonEmpty++;
+            }
+        }
+        assertTrue(nonEmpty > 100, "too few matches to be a useful comparison");
+    }
+
+    @Test
+    @DisplayName("compile: a condition no drone can meet makes the query unsatisfiable")
+    void compile_invalidConditionIsUnsatisfiable() {
+        assertTrue(CompiledQuery.compile(List.of(cond("capacity", "<", "abc"))).isUnsatisfiable());
+        assertTrue(CompiledQuery.compile(List.of(cond("colour", "=", "red"))).isUnsatisfiable());
+        assertTrue(CompiledQuery.compile(List.of(cond("capacity", "~", "4"))).isUnsatisfiable());
+        assertTrue(CompiledQuery.compile(List.of(cond(null, "=", "4"))).isUnsatisfiable());
+
+        // Negating a condition that never holds leaves a condition that always does
+        CompiledQuery negated = CompiledQuery.compile(List.of(cond("colour", "!=", "red")));
+        assertFalse(negated.isUnsatisfiable());
+        assertTrue(negated.matches(drone(new Random(1), 1)));
+    }
+
+    @Test
+    @DisplayName("compile: reordered conditions with different attribute case share one compiled query")
+    void compile_cachedByNormalisedText() {
+        CompiledQuery first = CompiledQuery.compile(List.of(
+                cond("capacity", ">", "2"), cond("cooling", "=", "true")));
+        CompiledQuery second = CompiledQuery.compile(List.of(
+                cond("COOLING", "=", "true"), cond("Capacity", ">", "2")));
+        CompiledQuery other = CompiledQuery.compile(List.of(
+                cond("capacity", ">", "4"), cond("cooling", "=", "true")));
+
+        assertSame(first, second);
+        assertNotSame(first, other);
+    }
+}
@@ -0,0 +1,78 @@
+package uk.ac.ed.acp.cw2.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.data.*;
+import uk.ac.ed.acp.cw2.utility.DispatchClusters;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DispatchClustersTest {
+
+    private static Coordinate c(double lng, double lat) {
+        return new Coordinate(lng, lat);
+    }
+
+    private static ServicePoint sp(int id, Coordinate location) {
+        ServicePoint sp = new ServicePoint();
+        sp.setId(id);
+        sp.setName("SP-" + id);
+        sp.setLocation(location);
+        return sp;
+    }
+
+    private static MedDispatchRec rec(int id, Coordinate delivery) {
+        MedDispatchRec r = new MedDispatchRec();
+        r.setId(id);
+        r.setDelivery(delivery);
+        MedDispatchRec.Requirement req = new MedDispatchRec.Requirement();
+        req.setCapacity(1.0);
+        r.setRequirements(req);
+        return r;
+    }
+
+    private static List<Integer> ids(List<MedDispatchRec> recs) {
+        return recs.stream().map(MedDispatchRec::getId).toList();
+    }
+
+    @Test
+    @DisplayName("order: groups by nearest service point, then grid bucket in serpentine order, ties stable")
+    void order_groupsByServicePointAndBucket() {
+        List<ServicePoint> sps = List.of(sp(1, c(-3.1900, 55.9410)), sp(2, c(-3.1700, 55.9410)));
+        List<MedDispatchRec> recs = new ArrayList<>();
+        recs.add(rec(1, c(-3.1710, 55.9411)));     // SP-2, bottom row
+        recs.add(rec(2, c(-3.1911, 55.9431)));     // SP-1, next row up, left bucket
+        recs.add(rec(3, null));                    // no delivery point: last
+        recs.add(rec(4, c(-3.1891, 55.9411)));     // SP-1, bottom row, right bucket
+        recs.add(rec(5, c(-3.1911, 55.9411)));     // SP-1, bottom row, left bucket
+        recs.add(rec(6, c(-3.1891, 55.9431)));     // SP-1, next row up, right bucket
+        recs.add(rec(7, c(-3.1911, 55.9412)));     // same bucket as 5, later
+
+        List<MedDispatchRec> ordered = DispatchClusters.order(recs, sps);
+
+        // Bottom row left to right, the row above right to left
+        assertEquals(List.of(5, 7, 4, 6, 2, 1, 3), ids(ordered));
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7), ids(recs), "input list must not be reordered");
+    }
+
+    @Test
+    @DisplayName("nearestFirst: flights ordered by distance of their end to the delivery, input untouched")
+    void nearestFirst_ordersByEndDistance() {
+        ServicePoint base = sp(1, c(-3.1900, 55.9410));
+        List<FlightBuilder> flights = new ArrayList<>();
+        double[] endLng = {-3.1800, -3.1890, -3.1850};
+        for (int i = 0; i < endLng.length; i++) {
+            FlightBuilder fb = new FlightBuilder("D" + i, base, 4.0, 2000, 0.01, 1.0, 1.0, rec(i, null));
+            fb.setEnd(c(endLng[i], 55.9410));
+            flights.add(fb);
+        }
+
+        List<FlightBuilder> ordered = DispatchClusters.nearestFirst(c(-3.1895, 55.9410), flights);
+
+        assertEquals(List.of("D1", "D2", "D0"), ordered.stream().map(FlightBuilder::getDroneId).toList());
+        assertEquals(List.of("D0", "D1", "D2"), flights.stream().map(FlightBuilder::getDroneId).toList());
+    }
+}
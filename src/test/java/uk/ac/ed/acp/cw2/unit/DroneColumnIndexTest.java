@@ -0,0 +1,117 @@
+package uk.ac.ed.acp.cw2.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.data.Drone;
+import uk.ac.ed.acp.cw2.data.QueryCondition;
+import uk.ac.ed.acp.cw2.utility.CompiledQuery;
+import uk.ac.ed.acp.cw2.utility.DroneColumnIndex;
+import uk.ac.ed.acp.cw2.utility.QueryDroneHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DroneColumnIndexTest {
+
+    private static final String[] ATTRS = {"id", "name", "cooling", "heating", "capacity", "maxMoves",
+            "costPerMove", "costInitial", "costFinal"};
+    private static final String[] OPS = {"=", "!=", "<", ">"};
+
+    private static QueryCondition cond(String attr, String op, String val) {
+        QueryCondition c = new QueryCondition();
+        c.setAttribute(attr);
+        c.setOperator(op);
+        c.setValue(val);
+        return c;
+    }
+
+    private static Drone drone(String id, String name, double capacity, int maxMoves, double costPerMove,
+                               boolean cooling) {
+        Drone.DroneCapability cap = new Drone.DroneCapability();
+        cap.setCooling(cooling);
+        cap.setHeating(!cooling);
+        cap.setCapacity(capacity);
+        cap.setMaxMoves(maxMoves);
+        cap.setCostPerMove(costPerMove);
+        cap.setCostInitial(1.0);
+        cap.setCostFinal(2.0);
+        Drone d = new Drone();
+        d.setId(id);
+        d.setName(name);
+        d.setCapability(cap);
+        return d;
+    }
+
+    private static String value(Random rnd, String attr) {
+        return switch (attr) {
+            case "id" -> String.valueOf(1 + rnd.nextInt(60));
+            case "name" -> (rnd.nextBoolean() ? "drone " : "DRONE ") + (1 + rnd.nextInt(60));
+            case "cooling", "heating" -> String.valueOf(rnd.nextBoolean());
+            case "maxMoves" -> String.valueOf(500 * (1 + rnd.nextInt(4)));
+            default -> String.valueOf(rnd.nextInt(9) * 0.5);
+        };
+    }
+
+    @Test
+    @DisplayName("matchingIds: same ids, in the same order, as filtering with matchesConditions")
+    void matchingIds_agreesWithScan() {
+        Random rnd = new Random(45);
+        List<Drone> drones = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            drones.add(drone(String.valueOf(i), "Drone " + i, rnd.nextInt(9) * 0.5, 500 * (1 + rnd.nextInt(4)),
+                    rnd.nextInt(9) * 0.5, rnd.nextBoolean()));
+        }
+        Drone noCapability = new Drone();
+        noCapability.setId("51");
+        noCapability.setName("Drone 51");
+        drones.add(noCapability);
+        DroneColumnIndex index = DroneColumnIndex.of(drones);
+
+        int nonEmpty = 0;
+        for (int round = 0; round < 1000; round++) {
+            List<QueryCondition> conditions = new ArrayList<>();
+            int n = 1 + rnd.nextInt(3);
+            for (int k = 0; k < n; k++) {
+                String attr = ATTRS[rnd.nextInt(ATTRS.length)];
+                String op = OPS[rnd.nextInt(OPS.length)];
+                conditions.add(cond(attr, op, value(rnd, attr)));
+            }
+            // The scan throws on a drone without a capability once a capability is compared,
+            // so that drone is only compared on queries over id and name
+            boolean idOrNameOnly = conditions.stream()
+                    .allMatch(c -> c.getAttribute().equals("id") || c.getAttribute().equals("name"));
+            List<Drone> scanned = idOrNameOnly ? drones : drones.subList(0, 50);
+            List<String> expected = scanned.stream()
+                    .filter(d -> QueryDroneHelper.matchesConditions(d, conditions))
+                    .map(Drone::getId)
+                    .toList();
+            List<String> actual = CompiledQuery.compile(conditions).matchingIds(index);
+            if (!idOrNameOnly) actual = actual.stream().filter(id -> !id.equals("51")).toList();
+            assertEquals(expected, actual, "round " + round);
+            if (!expected.isEmpty()) nonEmpty++;
+        }
+        assertTrue(nonEmpty > 100, "too few matches to be a useful comparison");
+    }
+
+    @Test
+    @DisplayName("of: unchanged drones reuse the index, a changed value gives a new version")
+    void of_reusesIndexUntilDronesChange() {
+        List<Drone> drones = List.of(drone("1", "A", 4.0, 1000, 0.01, true),
+                drone("2", "B", 8.0, 2000, 0.02, false));
+        DroneColumnIndex first = DroneColumnIndex.of(drones);
+
+        List<Drone> refetched = List.of(drone("1", "A", 4.0, 1000, 0.01, true),
+                drone("2", "B", 8.0, 2000, 0.02, false));
+        assertSame(first, DroneColumnIndex.of(refetched));
+
+        List<Drone> changed = List.of(drone("1", "A", 4.0, 1000, 0.01, true),
+                drone("2", "B", 6.0, 2000, 0.02, false));
+        DroneColumnIndex second = DroneColumnIndex.of(changed);
+        assertNotSame(first, second);
+        assertTrue(second.version() > first.version());
+        assertArrayEquals(new int[]{1}, second.range(DroneColumnIndex.Column.CAPACITY, '>', 5.0));
+    }
+}
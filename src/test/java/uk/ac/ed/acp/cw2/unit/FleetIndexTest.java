@@ -0,0 +1,213 @@
+package uk.ac.ed.acp.cw2.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.data.Coordinate;
+import uk.ac.ed.acp.cw2.data.Drone;
+import uk.ac.ed.acp.cw2.data.DroneForServicePoint;
+import uk.ac.ed.acp.cw2.data.MedDispatchRec;
+import uk.ac.ed.acp.cw2.data.ServicePoint;
+import uk.ac.ed.acp.cw2.utility.FleetIndex;
+import uk.ac.ed.acp.cw2.utility.QueryDroneHelper;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FleetIndexTest {
+
+    private static final String[] DAYS =
+            {"MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY", "SATURDAY", "SUNDAY"};
+
+    // The drones queryAvailableDrones returned before the index: canHandleAll on each drone
+    private static List<String> reference(List<Drone> drones, List<DroneForServicePoint> dfsp,
+                                          List<ServicePoint> sps, List<MedDispatchRec> recs) {
+        var availability = QueryDroneHelper.buildAvailabilityIndex(dfsp);
+        var homes = QueryDroneHelper.buildHomePointIndex(dfsp, sps);
+        return drones.stream()
+                .filter(d -> QueryDroneHelper.canHandleAll(d,
+                        availability.getOrDefault(d.getId(), Collections.emptyList()),
+                        homes.getOrDefault(d.getId(), Collections.emptyList()), recs, recs.size()))
+                .map(Drone::getId)
+                .sorted()
+                .toList();
+    }
+
+    private static String time(Random rnd) {
+        return String.format("%02d:%02d:%02d", rnd.nextInt(24), rnd.nextInt(4) * 15, rnd.nextInt(2) * 30);
+    }
+
+    @Test
+    @DisplayName("availableFor: same drones as canHandleAll on random fleets and dispatch lists")
+    void availableFor_matchesCanHandleAll() {
+        Random rnd = new Random(43);
+        int nonEmpty = 0;
+        for (int round = 0; round < 20; round++) {
+            List<ServicePoint> sps = new ArrayList<>();
+            for (int s = 0; s < 3; s++) {
+                ServicePoint sp = new ServicePoint();
+                sp.setId(s + 1);
+                sp.setLocation(new Coordinate(-3.19 + 0.01 * s, 55.94 + 0.005 * s));
+                sps.add(sp);
+            }
+            List<Drone> drones = new ArrayList<>();
+            List<DroneForServicePoint> dfsp = new ArrayList<>();
+            for (ServicePoint sp : sps) {
+                DroneForServicePoint e = new DroneForServicePoint();
+                e.setServicePointId(sp.getId());
+                e.setDrones(new ArrayList<>());
+                dfsp.add(e);
+            }
+            for (int i = 0; i < 150; i++) {
+                Drone d = new Drone();
+                d.setId("D" + i);
+                if (rnd.nextInt(20) > 0) {
+                    Drone.DroneCapability cap = new Drone.DroneCapability();
+                    cap.setCooling(rnd.nextBoolean());
+                    cap.setHeating(rnd.nextBoolean());
+                    cap.setCapacity(1 + rnd.nextInt(12));
+                    cap.setMaxMoves(2000);
+                    cap.setCostPerMove(0.01 + rnd.nextInt(5) * 0.01);
+                    cap.setCostInitial(rnd.nextInt(4));
+                    cap.setCostFinal(rnd.nextInt(4));
+                    d.setCapability(cap);
+                }
+                drones.add(d);
+                // Zero, one or two service points, each with its own windows
+                for (DroneForServicePoint e : dfsp) {
+                    if (rnd.nextInt(3) != 0) continue;
+                    DroneForServicePoint.Item item = new DroneForServicePoint.Item();
+                    item.setId(d.getId());
+                    List<DroneForServicePoint.Availability> windows = new ArrayList<>();
+                    for (int w = rnd.nextInt(5); w > 0; w--) {
+                        String day = DAYS[rnd.nextInt(7)];
+                        windows.add(new DroneForServicePoint.Availability(day, time(rnd), time(rnd)));
+                    }
+                    item.setAvailability(windows);
+                    e.getDrones().add(item);
+                }
+            }
+
+            for (int q = 0; q < 25; q++) {
+                List<MedDispatchRec> recs = new ArrayList<>();
+                for (int r = 1 + rnd.nextInt(4); r > 0; r--) {
+                    MedDispatchRec rec = new MedDispatchRec();
+                    rec.setId(r);
+                    int kind = rnd.nextInt(4);
+                    if (kind > 0) rec.setDate(LocalDate.of(2025, 12, 22).plusDays(rnd.nextInt(7)));
+                    if (kind > 1) rec.setTime(LocalTime.parse(time(rnd)));
+                    rec.setDelivery(new Coordinate(-3.19 + rnd.nextDouble() * 0.02, 55.94 + rnd.nextDouble() * 0.01));
+                    MedDispatchRec.Requirement req = new MedDispatchRec.Requirement();
+                    req.setCapacity((double) rnd.nextInt(6));
+                    int temp = rnd.nextInt(4);
+                    req.setCooling(temp == 1);
+                    req.setHeating(temp == 2);
+                    if (rnd.nextInt(3) == 0) req.setMaxCost(2.0 + rnd.nextInt(30));
+                    rec.setRequirements(req);
+                    recs.add(rec);
+                }
+                List<String> expected = reference(drones, dfsp, sps, recs);
+                assertEquals(expected,
+                        FleetIndex.build(drones, dfsp, sps).availableFor(recs), "round " + round + " query " + q);
+                if (!expected.isEmpty()) nonEmpty++;
+            }
+        }
+        // The lists must not be so strict that every answer is empty
+        assertTrue(nonEmpty > 100, "non-empty answers: " + nonEmpty);
+    }
+
+    @Test
+    @DisplayName("availableFor: a time without a date or a missing capacity matches no drone")
+    void availableFor_unsatisfiable() {
+        Drone d = new Drone();
+        d.setId("D1");
+        d.setCapability(new Drone.DroneCapability());
+        d.getCapability().setCapacity(5);
+        ServicePoint sp = new ServicePoint();
+        sp.setId(1);
+        sp.setLocation(new Coordinate(-3.19, 55.94));
+        DroneForServicePoint.Item item = new DroneForServicePoint.Item();
+        item.setId("D1");
+        item.setAvailability(List.of(new DroneForServicePoint.Availability("MONDAY", "00:00:00", "23:59:59")));
+        DroneForServicePoint e = new DroneForServicePoint();
+        e.setServicePointId(1);
+        e.setDrones(List.of(item));
+        FleetIndex index = FleetIndex.build(List.of(d), List.of(e), List.of(sp));
+
+        MedDispatchRec rec = new MedDispatchRec();
+        rec.setId(1);
+        MedDispatchRec.Requirement req = new MedDispatchRec.Requirement();
+        req.setCapacity(1.0);
+        rec.setRequirements(req);
+        assertEquals(List.of("D1"), index.availableFor(List.of(rec)));
+
+        rec.setTime(LocalTime.NOON);
+        assertTrue(index.availableFor(List.of(rec)).isEmpty());
+        rec.setTime(null);
+        req.setCapacity(null);
+        assertTrue(index.availableFor(List.of(rec)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("availableFor: a large fleet gives the canHandleAll drones")
+    void availableFor_largeFleetMatchesCanHandleAll() {
+        Random rnd = new Random(47);
+        List<ServicePoint> sps = new ArrayList<>();
+        List<DroneForServicePoint> dfsp = new ArrayList<>();
+        for (int s = 0; s < 4; s++) {
+            ServicePoint sp = new ServicePoint();
+            sp.setId(s + 1);
+            sp.setLocation(new Coordinate(-3.19 + 0.01 * s, 55.94 + 0.005 * s));
+            sps.add(sp);
+            DroneForServicePoint e = new DroneForServicePoint();
+            e.setServicePointId(sp.getId());
+            e.setDrones(new ArrayList<>());
+            dfsp.add(e);
+        }
+        List<Drone> drones = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            Drone d = new Drone();
+            d.setId("D" + i);
+            Drone.DroneCapability cap = new Drone.DroneCapability();
+            cap.setCapacity(4 + rnd.nextInt(8));
+            cap.setCostPerMove(0.01 + rnd.nextInt(5) * 0.01);
+            cap.setCostInitial(rnd.nextInt(4));
+            cap.setCostFinal(rnd.nextInt(4));
+            d.setCapability(cap);
+            drones.add(d);
+            for (DroneForServicePoint e : dfsp) {
+                if (rnd.nextInt(2) != 0) continue;
+                DroneForServicePoint.Item item = new DroneForServicePoint.Item();
+                item.setId(d.getId());
+                item.setAvailability(List.of(new DroneForServicePoint.Availability(
+                        DAYS[rnd.nextInt(7)], "08:00:00", "18:00:00")));
+                e.getDrones().add(item);
+            }
+        }
+
+        // Undated, capacity 1: every drone with a service point passes the bitsets, so only the
+        // exact (max cost) checks narrow the answer down
+        Set<String> usable = new HashSet<>();
+        for (DroneForServicePoint e : dfsp) for (DroneForServicePoint.Item item : e.getDrones()) usable.add(item.getId());
+        int narrowed = 0;
+        for (int q = 0; q < 10; q++) {
+            List<MedDispatchRec> recs = new ArrayList<>();
+            for (int r = 1 + rnd.nextInt(3); r > 0; r--) {
+                MedDispatchRec rec = new MedDispatchRec();
+                rec.setId(r);
+                rec.setDelivery(new Coordinate(-3.19 + rnd.nextDouble() * 0.03, 55.94 + rnd.nextDouble() * 0.015));
+                MedDispatchRec.Requirement req = new MedDispatchRec.Requirement();
+                req.setCapacity(1.0);
+                req.setMaxCost(5.0 + rnd.nextInt(20));
+                rec.setRequirements(req);
+                recs.add(rec);
+            }
+            List<String> expected = reference(drones, dfsp, sps, recs);
+            assertEquals(expected, FleetIndex.build(drones, dfsp, sps).availableFor(recs), "query " + q);
+            if (!expected.isEmpty() && expected.size() < usable.size()) narrowed++;
+        }
+        assertTrue(narrowed > 3, "answers narrowed by the exact checks: " + narrowed);
+    }
+}
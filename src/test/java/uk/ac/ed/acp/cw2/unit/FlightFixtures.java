@@ -0,0 +1,52 @@
+package uk.ac.ed.acp.cw2.unit;
+
+import uk.ac.ed.acp.cw2.data.Coordinate;
+import uk.ac.ed.acp.cw2.data.FlightBuilder;
+import uk.ac.ed.acp.cw2.data.MedDispatchRec;
+import uk.ac.ed.acp.cw2.data.ServicePoint;
+import uk.ac.ed.acp.cw2.utility.CompactPath;
+import uk.ac.ed.acp.cw2.utility.GeoUtilities;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Finished flights shared by the plan writer tests: one delivery each, on open ground, with the
+// same drone costs.
+final class FlightFixtures {
+
+    private FlightFixtures() {
+    }
+
+    static Coordinate c(double lng, double lat) {
+        return new Coordinate(lng, lat);
+    }
+
+    // Flight from the service point to one delivery (with hover) and back along a searched path
+    static FlightBuilder flight(String droneId, Coordinate spLoc, Coordinate target, int deliveryId) {
+        return flight(droneId, spLoc, target, deliveryId, false);
+    }
+
+    // Same, the return either searched or the reversed outbound path (as closeFlight does)
+    static FlightBuilder flight(String droneId, Coordinate spLoc, Coordinate target,
+                                int deliveryId, boolean reverseBack) {
+        ServicePoint sp = new ServicePoint();
+        sp.setId(1);
+        sp.setLocation(spLoc);
+        MedDispatchRec rec = new MedDispatchRec();
+        rec.setId(deliveryId);
+        FlightBuilder fb = new FlightBuilder(droneId, sp, 4.0, 2000, 0.01, 4.3, 6.5, rec);
+
+        List<Coordinate> forward = new ArrayList<>(GeoUtilities.pathBetween(spLoc, target, List.of(), List.of()));
+        forward.add(forward.getLast());
+        fb.addSegment(deliveryId, forward, forward.size() - 1, 1.0, null, false, false);
+        if (reverseBack) {
+            CompactPath out = fb.getSegments().getFirst().getPath();
+            CompactPath back = out.prefix(out.size() - 1).reversed();
+            fb.addReturn(back, spLoc, back.moves());
+        } else {
+            List<Coordinate> back = GeoUtilities.pathBetween(fb.getEnd(), spLoc, List.of(), List.of());
+            fb.addReturn(back, back.size() - 1);
+        }
+        return fb;
+    }
+}
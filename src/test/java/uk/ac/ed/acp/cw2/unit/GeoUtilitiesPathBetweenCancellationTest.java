@@ -0,0 +1,53 @@
+package uk.ac.ed.acp.cw2.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.data.Coordinate;
+import uk.ac.ed.acp.cw2.utility.CancellationToken;
+import uk.ac.ed.acp.cw2.utility.GeoUtilities;
+import uk.ac.ed.acp.cw2.utility.PlanAbortedException;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeoUtilitiesPathBetweenCancellationTest {
+
+    private static Coordinate c(double lng, double lat) {
+        return new Coordinate(lng, lat);
+    }
+
+    @Test
+    @DisplayName("pathBetween: a cancelled token aborts a long search with PlanAbortedException")
+    void pathBetween_throws_whenTokenCancelled() {
+        CancellationToken token = CancellationToken.none();
+        token.cancel(CancellationToken.REASON_DISCONNECT);
+
+        PlanAbortedException e = assertThrows(PlanAbortedException.class,
+                () -> GeoUtilities.pathBetween(c(0.0, 0.0), c(0.5, 0.0), List.of(), List.of(), token));
+        assertEquals(CancellationToken.REASON_DISCONNECT, e.getReason());
+    }
+
+    @Test
+    @DisplayName("pathBetween: an expired deadline is reported as a deadline abort")
+    void pathBetween_throws_whenDeadlinePassed() {
+        CancellationToken token = CancellationToken.withTimeout(Duration.ZERO);
+
+        PlanAbortedException e = assertThrows(PlanAbortedException.class,
+                () -> GeoUtilities.pathBetween(c(0.0, 0.0), c(0.5, 0.0), List.of(), List.of(), token));
+        assertEquals(CancellationToken.REASON_DEADLINE, e.getReason());
+    }
+
+    @Test
+    @DisplayName("pathBetween: a live token does not change the result of a short search")
+    void pathBetween_sameResult_withLiveToken() {
+        CancellationToken token = CancellationToken.withTimeout(Duration.ofMinutes(1));
+
+        List<Coordinate> plain = GeoUtilities.pathBetween(c(0.0, 0.0), c(0.003, 0.001), List.of(), List.of());
+        List<Coordinate> withToken = GeoUtilities.pathBetween(c(0.0, 0.0), c(0.003, 0.001), List.of(), List.of(), token);
+
+        assertFalse(plain.isEmpty());
+        assertEquals(plain.size(), withToken.size());
+    }
+}
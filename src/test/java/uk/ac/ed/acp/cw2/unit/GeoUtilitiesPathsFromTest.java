@@ -0,0 +1,110 @@
+package uk.ac.ed.acp.cw2.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.data.BoundBox;
+import uk.ac.ed.acp.cw2.data.Coordinate;
+import uk.ac.ed.acp.cw2.utility.CancellationToken;
+import uk.ac.ed.acp.cw2.utility.GeoUtilities;
+import uk.ac.ed.acp.cw2.utility.SourcePaths;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeoUtilitiesPathsFromTest {
+
+    private static Coordinate c(double lng, double lat) {
+        return new Coordinate(lng, lat);
+    }
+
+    private static List<Coordinate> rect(double x0, double y0, double x1, double y1) {
+        return List.of(c(x0, y0), c(x1, y0), c(x1, y1), c(x0, y1), c(x0, y0));
+    }
+
+    private static final List<List<Coordinate>> WALL = List.of(rect(0.0012, -0.0024, 0.0018, 0.0024));
+    private static final List<BoundBox> WALL_BOX = List.of(new BoundBox(c(0.0018, 0.0024), c(0.0012, -0.0024)));
+
+    @Test
+    @DisplayName("pathsFrom: a single goal gives exactly the pathBetween path")
+    void pathsFrom_singleGoal_matchesPathBetween() {
+        Coordinate start = c(0.0, 0.0);
+        Coordinate goal = c(0.003, 0.0005);
+
+        SourcePaths paths = GeoUtilities.pathsFrom(start, List.of(goal), WALL, WALL_BOX,
+                Integer.MAX_VALUE, CancellationToken.none());
+        List<Coordinate> single = GeoUtilities.pathBetween(start, goal, WALL, WALL_BOX);
+
+        assertTrue(paths.isReached(0));
+        List<Coordinate> multi = paths.path(0);
+        assertEquals(single.size(), multi.size());
+        for (int i = 0; i < single.size(); i++) {
+            assertEquals(single.get(i).getLng(), multi.get(i).getLng());
+            assertEquals(single.get(i).getLat(), multi.get(i).getLat());
+        }
+        assertEquals(single.size() - 1, paths.steps(0));
+    }
+
+    @Test
+    @DisplayName("pathsFrom: every goal in open space is reached, within a step of pathBetween")
+    void pathsFrom_manyGoals_closeToPathBetween() {
+        Coordinate start = c(0.0, 0.0);
+        List<Coordinate> goals = List.of(c(0.0015, 0.0), c(-0.003, 0.001), c(0.0, -0.0045));
+
+        SourcePaths paths = GeoUtilities.pathsFrom(start, goals, List.of(), List.of(),
+                Integer.MAX_VALUE, CancellationToken.none());
+
+        for (int i = 0; i < goals.size(); i++) {
+            List<Coordinate> single = GeoUtilities.pathBetween(start, goals.get(i), List.of(), List.of());
+            // First arrival per cell depends on the order cells are reached in, which the
+            // other goals change
+            assertTrue(Math.abs(single.size() - 1 - paths.steps(i)) <= 1, "goal " + i);
+            List<Coordinate> path = paths.path(i);
+            assertTrue(GeoUtilities.isNear(path.getLast(), goals.get(i)));
+            assertSame(start, path.getFirst());
+        }
+    }
+
+    @Test
+    @DisplayName("pathsFrom: goals inside restricted areas or beyond the budget are not reached")
+    void pathsFrom_unreachableGoals() {
+        Coordinate start = c(0.0, 0.0);
+        List<Coordinate> goals = List.of(c(0.0015, 0.0), c(0.0006, 0.0));
+
+        SourcePaths blocked = GeoUtilities.pathsFrom(start, goals, WALL, WALL_BOX,
+                Integer.MAX_VALUE, CancellationToken.none());
+        assertFalse(blocked.isReached(0));
+        assertEquals(-1, blocked.steps(0));
+        assertTrue(blocked.path(0).isEmpty());
+        assertTrue(blocked.isReached(1));
+
+        SourcePaths starved = GeoUtilities.pathsFrom(start, List.of(c(0.003, 0.0)), WALL, WALL_BOX,
+                10, CancellationToken.none());
+        assertFalse(starved.isReached(0));
+    }
+
+    // Smallest budget (in steps of 10) with which a single-goal search reaches the goal
+    private static int budgetFor(Coordinate start, Coordinate goal) {
+        int budget = 10;
+        while (!GeoUtilities.pathsFrom(start, List.of(goal), WALL, WALL_BOX, budget,
+                CancellationToken.none()).isReached(0))
+            budget += 10;
+        return budget;
+    }
+
+    @Test
+    @DisplayName("pathsFrom: each goal has its own budget, so a goal reached late is not starved")
+    void pathsFrom_budgetPerGoal() {
+        Coordinate start = c(0.0, 0.0);
+        // One goal behind the wall, one in open space the other way
+        Coordinate behind = c(0.003, 0.0005);
+        Coordinate open = c(-0.0045, 0.0);
+        int budget = Math.max(budgetFor(start, behind), budgetFor(start, open));
+
+        SourcePaths paths = GeoUtilities.pathsFrom(start, List.of(behind, open), WALL, WALL_BOX,
+                budget, CancellationToken.none());
+
+        assertTrue(paths.isReached(0));
+        assertTrue(paths.isReached(1));
+    }
+}
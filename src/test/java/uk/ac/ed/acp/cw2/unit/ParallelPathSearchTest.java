@@ -0,0 +1,102 @@
+package uk.ac.ed.acp.cw2.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import uk.ac.ed.acp.cw2.data.BoundBox;
+import uk.ac.ed.acp.cw2.data.Coordinate;
+import uk.ac.ed.acp.cw2.data.RestrictedArea;
+import uk.ac.ed.acp.cw2.utility.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelPathSearchTest {
+
+    private static Coordinate c(double lng, double lat) {
+        return new Coordinate(lng, lat);
+    }
+
+    private static RestrictedArea ra(int id, double minX, double minY, double maxX, double maxY) {
+        RestrictedArea r = new RestrictedArea();
+        r.setId(id);
+        r.setName("RA-" + id);
+        r.setVertices(List.of(c(minX, minY), c(maxX, minY), c(maxX, maxY), c(minX, maxY), c(minX, minY)));
+        return r;
+    }
+
+    // Two staggered walls with off-axis gaps force long detours
+    private static final List<RestrictedArea> WALLS = List.of(
+            ra(1, 0.0025, -0.0200, 0.0040, 0.0090),
+            ra(2, 0.0025, 0.0150, 0.0040, 0.0200),
+            ra(3, 0.0070, -0.0200, 0.0085, -0.0120),
+            ra(4, 0.0070, -0.0060, 0.0085, 0.0200)
+    );
+
+    @ParameterizedTest(name = "goal=({0}, {1}) helpers={2}")
+    @CsvSource({
+            "0.0150, 0.0000, 3",
+            "0.0120, -0.0100, 2",
+            "0.0050, 0.0120, 1",
+            "-0.0050, 0.0050, 3"
+    })
+    @DisplayName("HDA*: same path whatever the number of threads, as long as the sequential path, never blocked")
+    void parallel_independentOfThreads(double goalLng, double goalLat, int helpers) {
+        var rects = DeliveryPlanHelper.extractPolygons(WALLS);
+        var boxes = DeliveryPlanHelper.extractBBoxes(WALLS);
+        Coordinate start = c(0.0, 0.0);
+        Coordinate goal = c(goalLng, goalLat);
+
+        List<Coordinate> sequential = GeoUtilities.pathBetween(start, goal, rects, boxes);
+        BoundBox global = PathFindingHelper.computeGlobalBoundBox(start, goal, boxes);
+        List<Coordinate> alone = ParallelPathSearch.search(start, goal, rects, boxes, global,
+                CancellationToken.none(), null, 0);
+        ExecutorService pool = Executors.newFixedThreadPool(helpers);
+        List<Coordinate> parallel;
+        try {
+            parallel = ParallelPathSearch.search(start, goal, rects, boxes, global,
+                    CancellationToken.none(), pool, helpers);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertFalse(sequential.isEmpty());
+        assertEquals(alone.size(), parallel.size(), "path must not depend on the threads used");
+        for (int i = 0; i < parallel.size(); i++) {
+            assertEquals(alone.get(i).getLng(), parallel.get(i).getLng());
+            assertEquals(alone.get(i).getLat(), parallel.get(i).getLat());
+        }
+        assertEquals(sequential.size(), parallel.size(), "parallel path length must match sequential");
+        assertTrue(GeoUtilities.isNear(parallel.getLast(), goal));
+        for (int i = 1; i < parallel.size(); i++) {
+            assertFalse(PathFindingHelper.stepBlocked(parallel.get(i - 1), parallel.get(i), rects, boxes),
+                    "step " + i + " crosses a restricted area");
+        }
+    }
+
+    @Test
+    @DisplayName("HDA*: a helper interrupted before it starts aborts the search instead of hanging it")
+    void interruptedHelper_abortsSearch() {
+        var rects = DeliveryPlanHelper.extractPolygons(WALLS);
+        var boxes = DeliveryPlanHelper.extractBBoxes(WALLS);
+        Coordinate start = c(0.0, 0.0);
+        Coordinate goal = c(0.0150, 0.0000);
+        BoundBox global = PathFindingHelper.computeGlobalBoundBox(start, goal, boxes);
+        // As shutdownNow does: the helper thread is interrupted before the search releases it
+        Executor interrupting = r -> {
+            Thread t = new Thread(r, "interrupted-helper");
+            t.start();
+            t.interrupt();
+        };
+
+        assertTimeoutPreemptively(Duration.ofSeconds(20), () ->
+                assertThrows(IllegalStateException.class, () -> ParallelPathSearch.search(start, goal,
+                        rects, boxes, global, CancellationToken.none(), interrupting, 2)));
+    }
+}
@@ -0,0 +1,82 @@
+package uk.ac.ed.acp.cw2.unit;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.data.FlightBuilder;
+import uk.ac.ed.acp.cw2.data.response.CalcDeliveryPathResponse;
+import uk.ac.ed.acp.cw2.utility.DeliveryPlanHelper;
+import uk.ac.ed.acp.cw2.utility.PlanBinaryReader;
+import uk.ac.ed.acp.cw2.utility.PlanBinaryWriter;
+import uk.ac.ed.acp.cw2.utility.PlanJsonWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static uk.ac.ed.acp.cw2.unit.FlightFixtures.*;
+
+class PlanBinaryCodecTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private static List<FlightBuilder> plan() {
+        return List.of(
+                flight("D1", c(-3.1863580788986368, 55.94468066708487), c(-3.1840, 55.9460), 7, true),
+                flight("D2", c(0.0, 0.0), c(-0.0021, -0.0009), -8, false),
+                flight(null, c(-3.17732, 55.98115), c(-3.1790, 55.9825), 9, true));
+    }
+
+    private static byte[] encode(List<FlightBuilder> flights) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PlanBinaryWriter.write(flights, out);
+        return out.toByteArray();
+    }
+
+    @Test
+    @DisplayName("write/read: the decoded plan serialises to the same JSON as the streamed response")
+    void roundTrip_matchesJson() throws IOException {
+        List<FlightBuilder> flights = plan();
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        try (JsonGenerator gen = mapper.getFactory().createGenerator(json)) {
+            PlanJsonWriter.writeDeliveryPath(flights, gen);
+        }
+
+        byte[] binary = encode(flights);
+        CalcDeliveryPathResponse decoded = PlanBinaryReader.read(new ByteArrayInputStream(binary));
+
+        assertArrayEquals(json.toByteArray(), mapper.writeValueAsBytes(decoded));
+        assertTrue(binary.length * 10 < json.size(), "expected a tenth of the JSON size or less");
+    }
+
+    @Test
+    @DisplayName("write/read: GeoJSON built from the decoded plan matches the streamed GeoJSON")
+    void roundTrip_matchesGeoJson() throws IOException {
+        List<FlightBuilder> flights = plan();
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        try (JsonGenerator gen = mapper.getFactory().createGenerator(json)) {
+            PlanJsonWriter.writeGeoJson(flights, gen);
+        }
+
+        CalcDeliveryPathResponse decoded = PlanBinaryReader.read(new ByteArrayInputStream(encode(flights)));
+
+        assertArrayEquals(json.toByteArray(),
+                mapper.writeValueAsBytes(DeliveryPlanHelper.buildGeoJsonResponseCollection(decoded)));
+        assertArrayEquals(mapper.writeValueAsBytes(DeliveryPlanHelper.emptyDeliveryResponse()),
+                mapper.writeValueAsBytes(PlanBinaryReader.read(new ByteArrayInputStream(encode(List.of())))));
+    }
+
+    @Test
+    @DisplayName("isPreferred: binary only when the Accept header ranks it above JSON")
+    void isPreferred_followsAcceptHeader() {
+        assertTrue(PlanBinaryWriter.isPreferred("application/vnd.ilp.plan"));
+        assertTrue(PlanBinaryWriter.isPreferred("application/json;q=0.5, application/vnd.ilp.plan"));
+        assertFalse(PlanBinaryWriter.isPreferred(null));
+        assertFalse(PlanBinaryWriter.isPreferred("*/*"));
+        assertFalse(PlanBinaryWriter.isPreferred("application/json, application/vnd.ilp.plan;q=0.9"));
+        assertFalse(PlanBinaryWriter.isPreferred("not a media type"));
+    }
+}
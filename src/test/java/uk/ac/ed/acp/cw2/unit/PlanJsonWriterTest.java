@@ -0,0 +1,88 @@
+package uk.ac.ed.acp.cw2.unit;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.data.BoundBox;
+import uk.ac.ed.acp.cw2.data.Coordinate;
+import uk.ac.ed.acp.cw2.data.FlightBuilder;
+import uk.ac.ed.acp.cw2.utility.DeliveryPlanHelper;
+import uk.ac.ed.acp.cw2.utility.PlanJsonWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static uk.ac.ed.acp.cw2.unit.FlightFixtures.*;
+
+class PlanJsonWriterTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private static byte[] streamed(List<FlightBuilder> flights, ObjectMapper mapper) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator gen = mapper.getFactory().createGenerator(out)) {
+            PlanJsonWriter.writeDeliveryPath(flights, gen);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    @DisplayName("writeDeliveryPath: bytes equal the Jackson serialisation of buildDeliveryResponse")
+    void writeDeliveryPath_matchesObjectMapper() throws IOException {
+        List<FlightBuilder> flights = List.of(
+                flight("D1", c(-3.1863580788986368, 55.94468066708487), c(-3.1840, 55.9460), 7),
+                flight("D2", c(0.0, 0.0), c(-0.0021, -0.0009), 8));
+
+        byte[] expected = mapper.writeValueAsBytes(DeliveryPlanHelper.buildDeliveryResponse(flights));
+
+        assertArrayEquals(expected, streamed(flights, mapper));
+    }
+
+    @Test
+    @DisplayName("writeGeoJson: bytes equal the Jackson serialisation of the GeoJSON collection")
+    void writeGeoJson_matchesObjectMapper() throws IOException {
+        List<FlightBuilder> flights = List.of(
+                flight("D1", c(-3.1863580788986368, 55.94468066708487), c(-3.1840, 55.9460), 7),
+                flight("D3", c(0.0, 0.0), c(0.0012, 0.0006), 9));
+
+        byte[] expected = mapper.writeValueAsBytes(DeliveryPlanHelper.buildGeoJsonResponseCollection(
+                DeliveryPlanHelper.buildDeliveryResponse(flights)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator gen = mapper.getFactory().createGenerator(out)) {
+            PlanJsonWriter.writeGeoJson(flights, gen);
+        }
+
+        assertArrayEquals(expected, out.toByteArray());
+    }
+
+    @Test
+    @DisplayName("writeGeoJson with a tolerance: bytes equal the simplified GeoJSON collection")
+    void writeGeoJson_simplified_matchesObjectMapper() throws IOException {
+        List<List<Coordinate>> rects = List.of(List.of(c(0.0005, 0.0002), c(0.0008, 0.0002),
+                c(0.0008, 0.0012), c(0.0005, 0.0012), c(0.0005, 0.0002)));
+        List<BoundBox> boxes = List.of(new BoundBox(c(0.0008, 0.0012), c(0.0005, 0.0002)));
+        List<FlightBuilder> flights = List.of(
+                flight("D1", c(-3.1863580788986368, 55.94468066708487), c(-3.1840, 55.9460), 7),
+                flight("D3", c(0.0, 0.0), c(0.0012, 0.0006), 9));
+
+        byte[] expected = mapper.writeValueAsBytes(DeliveryPlanHelper.buildGeoJsonResponseCollection(
+                DeliveryPlanHelper.buildDeliveryResponse(flights), 0.0003, rects, boxes));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator gen = mapper.getFactory().createGenerator(out)) {
+            PlanJsonWriter.writeGeoJson(flights, 0.0003, rects, boxes, gen);
+        }
+
+        assertArrayEquals(expected, out.toByteArray());
+    }
+
+    @Test
+    @DisplayName("writeDeliveryPath: an empty plan matches the empty response")
+    void writeDeliveryPath_emptyPlan() throws IOException {
+        byte[] expected = mapper.writeValueAsBytes(DeliveryPlanHelper.emptyDeliveryResponse());
+
+        assertArrayEquals(expected, streamed(List.of(), mapper));
+    }
+}
@@ -0,0 +1,84 @@
+package uk.ac.ed.acp.cw2.unit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.data.FlightBuilder;
+import uk.ac.ed.acp.cw2.data.response.CalcDeliveryPathResponse;
+import uk.ac.ed.acp.cw2.utility.DeliveryPlanHelper;
+import uk.ac.ed.acp.cw2.utility.PlanStreamWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static uk.ac.ed.acp.cw2.unit.FlightFixtures.*;
+
+class PlanStreamWriterTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private static List<FlightBuilder> flights() {
+        return List.of(
+                flight("D1", c(-3.1863580788986368, 55.94468066708487), c(-3.1840, 55.9460), 7),
+                flight("D2", c(0.0, 0.0), c(-0.0021, -0.0009), 8));
+    }
+
+    @Test
+    @DisplayName("NDJSON: one line per flight matching the dronePaths entries, then the totals")
+    void ndjson_matchesDeliveryResponse() throws IOException {
+        List<FlightBuilder> flights = flights();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PlanStreamWriter writer = new PlanStreamWriter(out, mapper.getFactory(), false);
+        flights.forEach(writer::flightClosed);
+        writer.finish(true);
+
+        CalcDeliveryPathResponse expected = DeliveryPlanHelper.buildDeliveryResponse(flights);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        for (int i = 0; i < 2; i++) {
+            assertEquals(mapper.writeValueAsString(expected.getDronePaths().get(i)),
+                    mapper.writeValueAsString(mapper.readTree(lines[i]).get("flight")));
+        }
+        JsonNode summary = mapper.readTree(lines[2]).get("summary");
+        assertEquals(PlanStreamWriter.STATUS_OK, summary.get("status").asText());
+        assertEquals(expected.getTotalCost(), summary.get("totalCost").asDouble());
+        assertEquals(expected.getTotalMoves(), summary.get("totalMoves").asInt());
+        assertEquals(2, summary.get("flights").asInt());
+        assertFalse(summary.has("reason"));
+    }
+
+    @Test
+    @DisplayName("SSE: each frame is a named event with one data line")
+    void eventStream_frames() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PlanStreamWriter writer = new PlanStreamWriter(out, mapper.getFactory(), true);
+        writer.flightClosed(flights().getFirst());
+        writer.aborted("deadline");
+
+        String[] events = out.toString(StandardCharsets.UTF_8).split("\n\n");
+        assertEquals(2, events.length);
+        String[] flight = events[0].split("\n");
+        assertEquals("event: flight", flight[0]);
+        assertEquals("D1", mapper.readTree(flight[1].substring("data: ".length())).get("droneId").asText());
+        String[] summary = events[1].split("\n");
+        assertEquals("event: summary", summary[0]);
+        JsonNode s = mapper.readTree(summary[1].substring("data: ".length()));
+        assertEquals(PlanStreamWriter.STATUS_ABORTED, s.get("status").asText());
+        assertEquals("deadline", s.get("reason").asText());
+        assertEquals(1, s.get("flights").asInt());
+    }
+
+    @Test
+    @DisplayName("prefersEventStream: only when text/event-stream outranks NDJSON")
+    void prefersEventStream_accept() {
+        assertTrue(PlanStreamWriter.prefersEventStream("text/event-stream"));
+        assertTrue(PlanStreamWriter.prefersEventStream("application/x-ndjson;q=0.5, text/event-stream"));
+        assertFalse(PlanStreamWriter.prefersEventStream("application/x-ndjson, text/event-stream"));
+        assertFalse(PlanStreamWriter.prefersEventStream("*/*"));
+        assertFalse(PlanStreamWriter.prefersEventStream(null));
+    }
+}
@@ -0,0 +1,81 @@
+package uk.ac.ed.acp.cw2.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.data.BoundBox;
+import uk.ac.ed.acp.cw2.data.Coordinate;
+import uk.ac.ed.acp.cw2.data.response.CalcDeliveryPathResponse;
+import uk.ac.ed.acp.cw2.data.response.GeoJsonResponseCollection;
+import uk.ac.ed.acp.cw2.utility.DeliveryPlanHelper;
+import uk.ac.ed.acp.cw2.utility.GeoUtilities;
+import uk.ac.ed.acp.cw2.utility.PathFindingHelper;
+import uk.ac.ed.acp.cw2.utility.PolylineSimplifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolylineSimplifierTest {
+
+    private static final List<List<Coordinate>> RECTS = List.of(List.of(
+            c(-3.1880, 55.9430), c(-3.1860, 55.9430), c(-3.1860, 55.9460),
+            c(-3.1880, 55.9460), c(-3.1880, 55.9430)));
+    private static final List<BoundBox> BOXES =
+            List.of(new BoundBox(c(-3.1860, 55.9460), c(-3.1880, 55.9430)));
+
+    private static Coordinate c(double lng, double lat) {
+        return new Coordinate(lng, lat);
+    }
+
+    @Test
+    @DisplayName("simplify: a straight run with a hover collapses to its two endpoints")
+    void straightRunWithHover_collapsesToEndpoints() {
+        List<Coordinate> line = new ArrayList<>(List.of(c(0.0, 0.0)));
+        for (int i = 0; i < 20; i++) line.add(GeoUtilities.nextPosition(line.getLast(), 45.0));
+        line.add(line.getLast());
+
+        List<Coordinate> out = PolylineSimplifier.simplify(line, 0.0, List.of(), List.of());
+
+        assertEquals(List.of(line.getFirst(), line.getLast()), out);
+    }
+
+    @Test
+    @DisplayName("simplify: the line around a restricted area is shortened but never cuts through it")
+    void detour_neverCutsRestrictedArea() {
+        Coordinate start = c(-3.1900, 55.9445), goal = c(-3.1840, 55.9446);
+        List<Coordinate> line = GeoUtilities.pathBetween(start, goal, RECTS, BOXES);
+
+        List<Coordinate> out = PolylineSimplifier.simplify(line, 1.0, RECTS, BOXES);
+
+        assertTrue(out.size() > 2, "the direct line would cross the area");
+        assertTrue(out.size() < line.size());
+        assertSame(line.getFirst(), out.getFirst());
+        assertSame(line.getLast(), out.getLast());
+        for (int i = 0; i + 1 < out.size(); i++)
+            assertFalse(PathFindingHelper.segmentBlocked(out.get(i), out.get(i + 1), RECTS, BOXES), "segment " + i);
+    }
+
+    @Test
+    @DisplayName("buildGeoJsonResponseCollection: pointsRemoved is reported only when simplifying")
+    void geoJson_reportsPointsRemoved() {
+        List<Coordinate> line = GeoUtilities.pathBetween(c(-3.1900, 55.9445), c(-3.1840, 55.9446), RECTS, BOXES);
+        CalcDeliveryPathResponse.DeliverySegment seg = new CalcDeliveryPathResponse.DeliverySegment();
+        seg.setDeliveryId(1);
+        seg.setFlightPath(line);
+        CalcDeliveryPathResponse.DronePath dp = new CalcDeliveryPathResponse.DronePath();
+        dp.setDroneId("D1");
+        dp.setDeliveries(List.of(seg));
+        CalcDeliveryPathResponse resp = new CalcDeliveryPathResponse();
+        resp.setDronePaths(List.of(dp));
+
+        GeoJsonResponseCollection full = DeliveryPlanHelper.buildGeoJsonResponseCollection(resp);
+        GeoJsonResponseCollection simplified =
+                DeliveryPlanHelper.buildGeoJsonResponseCollection(resp, 0.0005, RECTS, BOXES);
+
+        assertNull(full.getFeatures().getFirst().getProperties().getPointsRemoved());
+        int kept = simplified.getFeatures().getFirst().getGeometry().getCoordinates().size();
+        assertEquals(line.size() - kept, simplified.getFeatures().getFirst().getProperties().getPointsRemoved());
+        assertTrue(kept < line.size());
+    }
+}
@@ -0,0 +1,154 @@
+package uk.ac.ed.acp.cw2.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.data.*;
+import uk.ac.ed.acp.cw2.external.IlpClientComponent;
+import uk.ac.ed.acp.cw2.external.IlpSnapshot;
+import uk.ac.ed.acp.cw2.utility.CancellationToken;
+import uk.ac.ed.acp.cw2.utility.DeliveryPlanHelper;
+import uk.ac.ed.acp.cw2.utility.DeliveryPlanner;
+import uk.ac.ed.acp.cw2.utility.RetryMemo;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RetryMemoTest {
+
+    private static Coordinate c(double lng, double lat) {
+        return new Coordinate(lng, lat);
+    }
+
+    // One drone (capacity 4, no heating) at two service points, on duty on Wednesdays only;
+    // a restricted block east of the first service point
+    private static IlpSnapshot snapshot() {
+        Drone d = new Drone();
+        d.setId("D1");
+        Drone.DroneCapability cap = new Drone.DroneCapability();
+        cap.setCapacity(4.0);
+        cap.setCooling(true);
+        cap.setMaxMoves(2000);
+        cap.setCostInitial(1.0);
+        cap.setCostFinal(1.0);
+        cap.setCostPerMove(0.02);
+        d.setCapability(cap);
+
+        List<ServicePoint> sps = new ArrayList<>();
+        List<DroneForServicePoint> dfsp = new ArrayList<>();
+        for (int s = 1; s <= 2; s++) {
+            ServicePoint sp = new ServicePoint();
+            sp.setId(s);
+            sp.setName("SP-" + s);
+            sp.setLocation(c(-3.1900 + 0.004 * (s - 1), 55.9445 - 0.002 * (s - 1)));
+            sps.add(sp);
+            DroneForServicePoint.Item item = new DroneForServicePoint.Item();
+            item.setId("D1");
+            item.setAvailability(List.of(new DroneForServicePoint.Availability("WEDNESDAY", "00:00:00", "23:59:59")));
+            DroneForServicePoint e = new DroneForServicePoint();
+            e.setServicePointId(s);
+            e.setDrones(new ArrayList<>(List.of(item)));
+            dfsp.add(e);
+        }
+
+        RestrictedArea ra = new RestrictedArea();
+        ra.setId(1);
+        ra.setName("RA-1");
+        ra.setVertices(List.of(c(-3.1880, 55.9430), c(-3.1860, 55.9430), c(-3.1860, 55.9460),
+                c(-3.1880, 55.9460), c(-3.1880, 55.9430)));
+
+        IlpClientComponent ilp = mock(IlpClientComponent.class);
+        when(ilp.getAllDrones()).thenReturn(List.of(d));
+        when(ilp.getServicePoints()).thenReturn(sps);
+        when(ilp.getRestrictedAreas()).thenReturn(List.of(ra));
+        when(ilp.getDronesForServicePoints()).thenReturn(dfsp);
+        return IlpSnapshot.fetch(ilp);
+    }
+
+    private static MedDispatchRec anytime(int id, double lng, double lat, double capacity, boolean heating,
+                                          Double maxCost) {
+        MedDispatchRec r = new MedDispatchRec();
+        r.setId(id);
+        r.setDelivery(c(lng, lat));
+        MedDispatchRec.Requirement req = new MedDispatchRec.Requirement();
+        req.setCapacity(capacity);
+        req.setHeating(heating);
+        req.setMaxCost(maxCost);
+        r.setRequirements(req);
+        return r;
+    }
+
+    private static List<MedDispatchRec> records() {
+        return List.of(
+                anytime(1, -3.1840, 55.9446, 1.0, false, null),
+                anytime(2, -3.1870, 55.9445, 1.0, false, null),     // inside the restricted block
+                anytime(3, -3.1850, 55.9420, 1.0, true, null),      // needs heating
+                anytime(4, -3.1830, 55.9400, 1.0, false, 2.5),      // max cost below any estimate
+                anytime(5, -3.1845, 55.9470, 6.0, false, null),     // more than the drone carries
+                anytime(6, -3.1850, 55.9420, 2.0, false, null));
+    }
+
+    // The anytime part of planDeliveries over a week starting on Monday
+    private static List<FlightBuilder> planWeek(IlpSnapshot ilp, List<MedDispatchRec> recs, RetryMemo memo) {
+        List<ServicePoint> sps = new ArrayList<>(ilp.getServicePoints());
+        List<MedDispatchRec> pending = new ArrayList<>(recs);
+        List<FlightBuilder> active = new ArrayList<>();
+        List<FlightBuilder> finished = new ArrayList<>();
+        for (LocalDate day = LocalDate.of(2025, 12, 22); day.isBefore(LocalDate.of(2025, 12, 29));
+             day = day.plusDays(1)) {
+            for (Iterator<MedDispatchRec> it = pending.iterator(); it.hasNext(); ) {
+                MedDispatchRec r = it.next();
+                if (DeliveryPlanner.tryAssignOrStartFlight(sps, ilp.getSpMapDrone(), ilp.getDroneById(),
+                        ilp.getRestrictedPolys(), ilp.getBoxes(), r, day, active, finished, true,
+                        CancellationToken.none(), memo)) {
+                    it.remove();
+                }
+            }
+        }
+        for (FlightBuilder fb : active)
+            DeliveryPlanner.closeFlight(fb, finished, ilp.getRestrictedPolys(), ilp.getBoxes(), CancellationToken.none());
+        return finished;
+    }
+
+    @Test
+    @DisplayName("tryAssignOrStartFlight: retrying with a memo plans the same flights as without")
+    void memo_samePlan() throws Exception {
+        IlpSnapshot ilp = snapshot();
+        ObjectMapper mapper = new ObjectMapper();
+
+        String without = mapper.writeValueAsString(DeliveryPlanHelper.buildDeliveryResponse(
+                planWeek(ilp, records(), null)));
+        String with = mapper.writeValueAsString(DeliveryPlanHelper.buildDeliveryResponse(
+                planWeek(ilp, records(), new RetryMemo())));
+
+        assertEquals(without, with);
+        assertTrue(with.contains("\"deliveryId\":1"), with);
+    }
+
+    @Test
+    @DisplayName("hopeless: failures that do not depend on the day are classified per service point")
+    void memo_classifiesFailures() {
+        IlpSnapshot ilp = snapshot();
+        List<MedDispatchRec> recs = records();
+        RetryMemo memo = new RetryMemo();
+        LocalDate wednesday = LocalDate.of(2025, 12, 24);
+        List<ServicePoint> sps = new ArrayList<>(ilp.getServicePoints());
+        for (MedDispatchRec r : recs.subList(1, 5)) {
+            assertNull(DeliveryPlanner.openNewFlight(sps, ilp.getDroneById(), ilp.getSpMapDrone(), r,
+                    ilp.getRestrictedPolys(), ilp.getBoxes(), wednesday, true, CancellationToken.none(), memo));
+        }
+
+        ServicePoint sp1 = ilp.getServicePoints().getFirst();
+        assertEquals(RetryMemo.Reason.UNREACHABLE, memo.hopeless(recs.get(1), sp1, ilp.getSpMapDrone(), ilp.getDroneById()));
+        assertEquals(RetryMemo.Reason.NO_CAPABLE_DRONE, memo.hopeless(recs.get(2), sp1, ilp.getSpMapDrone(), ilp.getDroneById()));
+        assertEquals(RetryMemo.Reason.TOO_FAR_OR_COSTLY, memo.hopeless(recs.get(3), sp1, ilp.getSpMapDrone(), ilp.getDroneById()));
+        assertEquals(RetryMemo.Reason.NO_CAPABLE_DRONE, memo.hopeless(recs.get(4), sp1, ilp.getSpMapDrone(), ilp.getDroneById()));
+        // A record that fits is never written off
+        assertNull(memo.hopeless(recs.get(0), sp1, ilp.getSpMapDrone(), ilp.getDroneById()));
+    }
+}
@@ -0,0 +1,97 @@
+package uk.ac.ed.acp.cw2.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.utility.CancellationToken;
+import uk.ac.ed.acp.cw2.utility.PlanAbortedException;
+import uk.ac.ed.acp.cw2.utility.SharedTask;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedTaskTest {
+
+    @Test
+    @DisplayName("join: a task no worker took is run by the caller, once")
+    void join_runsUnstartedInline() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        Executor rejecting = r -> {
+            throw new RejectedExecutionException();
+        };
+        SharedTask<String> rejected = SharedTask.submit(rejecting, () -> {
+            runs.incrementAndGet();
+            return Thread.currentThread().getName();
+        });
+        assertEquals(Thread.currentThread().getName(), rejected.join(CancellationToken.none()));
+        assertEquals(Thread.currentThread().getName(), rejected.join(CancellationToken.none()));
+        assertEquals(1, runs.get());
+
+        // Queued behind a busy worker: the caller does not wait for the worker to get to it
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            single.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            SharedTask<Integer> queued = SharedTask.submit(single, runs::incrementAndGet);
+            assertEquals(2, queued.join(CancellationToken.none()));
+            release.countDown();
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("join: waits for a started task no longer than the token's deadline")
+    void join_boundedByDeadline() throws Exception {
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            SharedTask<String> slow = SharedTask.submit(single, () -> {
+                started.countDown();
+                release.await();
+                return "done";
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            CancellationToken token = CancellationToken.withTimeout(Duration.ofMillis(100));
+            long t0 = System.nanoTime();
+            PlanAbortedException e = assertThrows(PlanAbortedException.class, () -> slow.join(token));
+            assertEquals(CancellationToken.REASON_DEADLINE, e.getReason());
+            assertTrue(System.nanoTime() - t0 < TimeUnit.SECONDS.toNanos(5));
+        } finally {
+            release.countDown();
+            single.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("cancel: a task not started yet is dropped and never runs")
+    void cancel_dropsUnstarted() {
+        AtomicInteger runs = new AtomicInteger();
+        SharedTask<Integer> task = SharedTask.submit(null, runs::incrementAndGet);
+        task.cancel();
+
+        PlanAbortedException e = assertThrows(PlanAbortedException.class, () -> task.join(CancellationToken.none()));
+        assertEquals(CancellationToken.REASON_UNUSED, e.getReason());
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    @DisplayName("join: a failure of the work is reported as ExecutionException")
+    void join_reportsFailure() {
+        SharedTask<Integer> task = SharedTask.submit(null, () -> {
+            throw new IllegalStateException("boom");
+        });
+        ExecutionException e = assertThrows(ExecutionException.class, () -> task.join(CancellationToken.none()));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+}
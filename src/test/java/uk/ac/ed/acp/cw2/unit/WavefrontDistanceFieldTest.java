@@ -0,0 +1,85 @@
+package uk.ac.ed.acp.cw2.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.data.BoundBox;
+import uk.ac.ed.acp.cw2.data.Coordinate;
+import uk.ac.ed.acp.cw2.utility.CancellationToken;
+import uk.ac.ed.acp.cw2.utility.DistanceFieldCache;
+import uk.ac.ed.acp.cw2.utility.GeoUtilities;
+import uk.ac.ed.acp.cw2.utility.PathFindingHelper;
+import uk.ac.ed.acp.cw2.utility.WavefrontDistanceField;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WavefrontDistanceFieldTest {
+
+    private static final double STEP = 0.00015;
+
+    private static Coordinate c(double lng, double lat) {
+        return new Coordinate(lng, lat);
+    }
+
+    private static List<Coordinate> rect(double x0, double y0, double x1, double y1) {
+        return List.of(c(x0, y0), c(x1, y0), c(x1, y1), c(x0, y1), c(x0, y0));
+    }
+
+    private static List<BoundBox> boxesOf(List<List<Coordinate>> rects) {
+        List<BoundBox> boxes = new ArrayList<>();
+        for (List<Coordinate> r : rects)
+            boxes.add(new BoundBox(r.get(2), r.get(0)));
+        return boxes;
+    }
+
+    @Test
+    @DisplayName("flood: open space distances equal the king-move (Chebyshev) distance")
+    void flood_openSpace_isChebyshev() {
+        Coordinate source = c(0.0, 0.0);
+        BoundBox bounds = new BoundBox(c(30 * STEP, 30 * STEP), c(-30 * STEP, -30 * STEP));
+        WavefrontDistanceField field = WavefrontDistanceField.flood(source, bounds, List.of(), CancellationToken.none());
+
+        assertEquals(0, field.stepsTo(source));
+        assertEquals(12, field.stepsTo(c(12 * STEP, 5 * STEP)));
+        assertEquals(20, field.stepsTo(c(-7 * STEP, -20 * STEP)));
+        assertEquals(30, field.getWaves());
+        assertEquals(WavefrontDistanceField.UNREACHABLE, field.stepsTo(c(40 * STEP, 0.0)));
+    }
+
+    @Test
+    @DisplayName("flood: a wall forces a detour and stays a lower bound on pathBetween")
+    void flood_wall_isLowerBoundOfAStar() {
+        Coordinate source = c(0.0, 0.0);
+        Coordinate target = c(0.003, 0.0);
+        List<List<Coordinate>> rects = List.of(rect(0.0012, -0.0024, 0.0018, 0.0024));
+        List<BoundBox> boxes = boxesOf(rects);
+
+        BoundBox bounds = PathFindingHelper.computeGlobalBoundBox(source, target, boxes);
+        WavefrontDistanceField field = WavefrontDistanceField.flood(source, bounds, rects, CancellationToken.none());
+        List<Coordinate> path = GeoUtilities.pathBetween(source, target, rects, boxes);
+
+        int bound = field.lowerBound(target);
+        assertFalse(path.isEmpty());
+        assertTrue(bound > 20, "detour expected, got " + bound);
+        assertTrue(bound <= path.size() - 1, bound + " > " + (path.size() - 1));
+    }
+
+    @Test
+    @DisplayName("provesUnreachable: a walled-in target is rejected and A* agrees")
+    void provesUnreachable_enclosedTarget() {
+        Coordinate source = c(0.0, 0.0);
+        Coordinate target = c(0.003, 0.0);
+        List<List<Coordinate>> rects = List.of(
+                rect(0.0021, -0.0009, 0.0039, -0.0006),
+                rect(0.0021, 0.0006, 0.0039, 0.0009),
+                rect(0.0021, -0.0009, 0.0024, 0.0009),
+                rect(0.0036, -0.0009, 0.0039, 0.0009));
+        List<BoundBox> boxes = boxesOf(rects);
+
+        assertTrue(DistanceFieldCache.provesUnreachable(source, target, rects, boxes, CancellationToken.none()));
+        assertTrue(GeoUtilities.pathBetween(source, target, rects, boxes).isEmpty());
+        assertFalse(DistanceFieldCache.provesUnreachable(source, c(0.0015, 0.0), rects, boxes, CancellationToken.none()));
+    }
+}